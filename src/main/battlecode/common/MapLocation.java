@@ -3,7 +3,6 @@ package battlecode.common;
 import org.apache.commons.lang3.StringUtils;
 
 import java.io.Serializable;
-import java.util.ArrayList;
 
 /**
  * This class is an immutable representation of two-dimensional coordinates
@@ -12,6 +11,7 @@ import java.util.ArrayList;
 public final class MapLocation implements Serializable, Comparable<MapLocation> {
 
     private static final long serialVersionUID = -8945913587066072824L;
+
     /**
      * The x-coordinate.
      */
@@ -61,6 +61,10 @@ public final class MapLocation implements Serializable, Comparable<MapLocation>
     @Override
     public boolean equals(Object obj) {
 
+        if (obj == this) {
+            return true;
+        }
+
         if (!(obj instanceof MapLocation)) {
             return false;
         }
@@ -253,28 +257,34 @@ public final class MapLocation implements Serializable, Comparable<MapLocation>
      * @battlecode.doc.costlymethod
      */
     public static MapLocation[] getAllMapLocationsWithinRadiusSq(MapLocation center, int radiusSquared) {
-        ArrayList<MapLocation> locations = new ArrayList<>();
-
         if (radiusSquared > 100 || radiusSquared < 0) {
             throw new IllegalArgumentException("radiusSquared argument for getAllMapLocationsWithinRadiusSq cannot be greater than 100 or negative. However, since Battlecode is open source, you are free to use the source code of this method to implement it yourself.");
         }    
 
-        int radius = (int) Math.sqrt(radiusSquared);
-
-        int minXPos = center.x - radius;
-        int maxXPos = center.x + radius;
-        int minYPos = center.y - radius;
-        int maxYPos = center.y + radius;
+        // The half-height of each column of the disc, indexed by |dx|.
+        // Columns only get shorter going outwards, so each one's is found
+        // by counting down from the last.
+        int radius = 0;
+        while ((radius + 1) * (radius + 1) <= radiusSquared) radius++;
+        final int[] halfHeights = new int[radius + 1];
+        int size = 0;
+        int h = radius;
+        for (int dx = 0; dx <= radius; dx++) {
+            while (dx * dx + h * h > radiusSquared) h--;
+            halfHeights[dx] = h;
+            size += (dx == 0 ? 1 : 2) * (2 * h + 1);
+        }
+        final MapLocation[] locations = new MapLocation[size];
 
-        for (int x = minXPos; x <= maxXPos; x++) {
-            for (int y = minYPos; y <= maxYPos; y++) {
-                MapLocation loc = new MapLocation(x, y);
-                if (loc.distanceSquaredTo(center) <= radiusSquared)
-                    locations.add(loc);
+        int i = 0;
+        for (int dx = -radius; dx <= radius; dx++) {
+            final int height = halfHeights[Math.abs(dx)];
+            for (int dy = -height; dy <= height; dy++) {
+                locations[i++] = new MapLocation(center.x + dx, center.y + dy);
             }
         }
 
-        return locations.toArray(new MapLocation[locations.size()]);
+        return locations;
     }
 
     /**
@@ -0,0 +1,370 @@
+package battlecode.instrumenter;
+
+import battlecode.instrumenter.bytecode.ClassReferenceUtil;
+import battlecode.server.ErrorReporter;
+import battlecode.server.Version;
+import org.apache.commons.io.IOUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.JarURLConnection;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * A directory of instrumented class files that outlives the process, so
+ * that a worker running many short matches doesn't instrument the same
+ * classes over and over. Used by IndividualClassLoader.Cache when
+ * bc.engine.instrumentation-cache names a directory.
+ *
+ * Entries are named by a hash of everything the instrumented bytes depend
+ * on: the original class file, the team it's instrumented for, the
+ * instrumentation options, the engine version, MethodCosts.txt and the
+ * whitelist, and the JVM, since the instrumenter reads the hierarchy of
+ * the classes a class uses. A team class can depend on the team's other classes the same way, so its hash
+ * covers all of the team's class files; if they can't be listed, the
+ * team's classes aren't cached. Entries never change once written, so
+ * nothing needs invalidating; delete the directory to clear it.
+ *
+ * Any number of processes may use the directory at once. An entry is
+ * written to a temporary file and renamed into place, so it appears whole
+ * or not at all, and it carries a checksum that is checked when it's read,
+ * so a damaged entry is just a miss.
+ */
+final class DiskCache {
+
+    /**
+     * Change this when the format of entries changes, or the instrumenter
+     * changes without the engine version changing.
+     */
+    private final static String FORMAT = "1";
+
+    /**
+     * The files that configure instrumentation, relative to
+     * ClassReferenceUtil.
+     */
+    private final static String[] INSTRUMENTATION_RESOURCES = {
+            "resources/MethodCosts.txt",
+            "resources/AllowedPackages.txt",
+            "resources/DisallowedClasses.txt"
+    };
+
+    /**
+     * The start of every entry, followed by the length of the class file,
+     * its SHA-256 hash, and the class file itself.
+     */
+    private final static int MAGIC = 0xBCCAC4E1;
+    private final static int HEADER_LENGTH = 8 + 32;
+
+    /**
+     * Stands for a team whose classes can't be listed.
+     */
+    private final static byte[] UNKNOWN_TEAM = new byte[0];
+
+    private final Path directory;
+
+    /**
+     * Where team classes are loaded from: a directory or jar, or null for
+     * the classpath of the loader.
+     */
+    private final URL classURL;
+    private final ClassLoader loader;
+
+    /**
+     * The hash of the engine and JVM, which every key includes.
+     */
+    private final byte[] engineHash;
+
+    /**
+     * The hash of the class files of each team.
+     */
+    private final Map<String, byte[]> teamHashes;
+
+    /**
+     * Whether we've warned that the cache isn't working, so that we only
+     * do it once.
+     */
+    private volatile boolean warned;
+
+    /**
+     * @param directory the directory to keep entries in; created if needed
+     * @param classURL  where team classes are loaded from, or null if
+     *                  they're loaded from the classpath of loader
+     * @param loader    the loader used to load team classes
+     */
+    DiskCache(Path directory, URL classURL, ClassLoader loader) {
+        this.directory = directory;
+        this.classURL = classURL;
+        this.loader = loader;
+        this.engineHash = hashEngine();
+        this.teamHashes = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Find the key of the entry for an instrumented class.
+     *
+     * @param className           the class, using .s or /s
+     * @param teamPackageName     the team the class is instrumented for
+     * @param checkDisallowed     whether the class is checked for
+     *                            disallowed references
+     * @param debugMethodsEnabled whether debug methods are enabled
+     * @param classBytes          the class file that is instrumented
+     * @return the key, or null if the class can't be cached
+     */
+    String key(String className,
+               String teamPackageName,
+               boolean checkDisallowed,
+               boolean debugMethodsEnabled,
+               byte[] classBytes) {
+        final MessageDigest digest = sha256();
+        digest.update(engineHash);
+        update(digest, className.replace('.', '/'));
+        update(digest, checkDisallowed + " " + debugMethodsEnabled);
+
+        // How any class is instrumented depends on the team's package name,
+        // since references into that package are left alone.
+        update(digest, teamPackageName);
+        if (className.replace('.', '/').startsWith(teamPackageName.replace('.', '/') + "/")) {
+            final byte[] teamHash = teamHashes.computeIfAbsent(teamPackageName, this::hashTeam);
+            if (teamHash == UNKNOWN_TEAM) {
+                return null;
+            }
+            digest.update(teamHash);
+        }
+
+        digest.update(classBytes);
+        return hex(digest.digest());
+    }
+
+    /**
+     * @param key the key of the entry
+     * @return the instrumented class, or null if there is no valid entry
+     */
+    byte[] get(String key) {
+        final Path file = entryFile(key);
+        final byte[] entry;
+        try {
+            entry = Files.readAllBytes(file);
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException e) {
+            warn("Can't read instrumentation cache entry " + file + ": " + e);
+            return null;
+        }
+
+        final byte[] classBytes = decode(entry);
+        if (classBytes == null) {
+            // Someone else may have replaced it with a good one meanwhile,
+            // but then it's just written again.
+            try {
+                Files.deleteIfExists(file);
+            } catch (IOException e) {
+                // We'll try again next time.
+            }
+        }
+        return classBytes;
+    }
+
+    /**
+     * Store an instrumented class. If an entry with the same key is being
+     * stored at the same time, as it may be by another process, one of
+     * them wins; they have the same contents.
+     *
+     * @param key        the key of the entry
+     * @param classBytes the instrumented class
+     */
+    void put(String key, byte[] classBytes) {
+        final Path file = entryFile(key);
+        Path temp = null;
+        try {
+            Files.createDirectories(file.getParent());
+            temp = Files.createTempFile(file.getParent(), key, ".tmp");
+            Files.write(temp, encode(classBytes));
+            try {
+                Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException e) {
+            // Fine if it failed because someone else has it open after
+            // writing it.
+            if (!Files.exists(file)) {
+                warn("Can't write instrumentation cache entry " + file + ": " + e);
+            }
+        } finally {
+            if (temp != null) {
+                try {
+                    Files.deleteIfExists(temp);
+                } catch (IOException e) {
+                    // Just litter.
+                }
+            }
+        }
+    }
+
+    private Path entryFile(String key) {
+        // Spread entries out so that no directory gets too large.
+        return directory.resolve(key.substring(0, 2)).resolve(key.substring(2));
+    }
+
+    private static byte[] encode(byte[] classBytes) {
+        return ByteBuffer.allocate(HEADER_LENGTH + classBytes.length)
+                .putInt(MAGIC)
+                .putInt(classBytes.length)
+                .put(sha256().digest(classBytes))
+                .put(classBytes)
+                .array();
+    }
+
+    /**
+     * @return the class in an entry, or null if the entry is damaged
+     */
+    private static byte[] decode(byte[] entry) {
+        if (entry.length < HEADER_LENGTH) {
+            return null;
+        }
+        final ByteBuffer buffer = ByteBuffer.wrap(entry);
+        if (buffer.getInt() != MAGIC || buffer.getInt() != entry.length - HEADER_LENGTH) {
+            return null;
+        }
+        final byte[] hash = new byte[32];
+        buffer.get(hash);
+        final byte[] classBytes = Arrays.copyOfRange(entry, HEADER_LENGTH, entry.length);
+        if (!MessageDigest.isEqual(hash, sha256().digest(classBytes))) {
+            return null;
+        }
+        return classBytes;
+    }
+
+    private static byte[] hashEngine() {
+        final MessageDigest digest = sha256();
+        update(digest, FORMAT);
+        update(digest, Version.version);
+        update(digest, System.getProperty("java.vendor"));
+        update(digest, System.getProperty("java.runtime.version"));
+        for (String resource : INSTRUMENTATION_RESOURCES) {
+            try (InputStream in = ClassReferenceUtil.class.getResourceAsStream(resource)) {
+                digest.update(IOUtils.toByteArray(in));
+            } catch (IOException | NullPointerException e) {
+                throw new InstrumentationException("Can't read " + resource, e);
+            }
+        }
+        return digest.digest();
+    }
+
+    /**
+     * @return the hash of the class files of a team, or UNKNOWN_TEAM if
+     *         they can't be found
+     */
+    private byte[] hashTeam(String teamPackageName) {
+        final String prefix = teamPackageName.replace('.', '/') + "/";
+        final MessageDigest digest = sha256();
+        int classes = 0;
+        try {
+            if (classURL != null) {
+                final Path path = Paths.get(classURL.toURI());
+                if (Files.isDirectory(path)) {
+                    classes = hashDirectory(digest, path.resolve(prefix));
+                } else {
+                    classes = hashJar(digest, path, prefix);
+                }
+            } else {
+                // Every copy on the classpath, to be safe; usually there's one.
+                for (URL url : Collections.list(loader.getResources(prefix))) {
+                    if (url.getProtocol().equals("file")) {
+                        classes += hashDirectory(digest, Paths.get(url.toURI()));
+                    } else if (url.getProtocol().equals("jar")) {
+                        final URL jarURL = ((JarURLConnection) url.openConnection()).getJarFileURL();
+                        classes += hashJar(digest, Paths.get(jarURL.toURI()), prefix);
+                    } else {
+                        return UNKNOWN_TEAM;
+                    }
+                }
+            }
+        } catch (IOException | URISyntaxException | IllegalArgumentException
+                | FileSystemNotFoundException e) {
+            warn("Can't list the classes of " + teamPackageName
+                    + " for the instrumentation cache: " + e);
+            return UNKNOWN_TEAM;
+        }
+        return classes > 0 ? digest.digest() : UNKNOWN_TEAM;
+    }
+
+    private static int hashDirectory(MessageDigest digest, Path dir) throws IOException {
+        if (!Files.isDirectory(dir)) {
+            return 0;
+        }
+        final List<Path> files;
+        try (Stream<Path> walk = Files.walk(dir)) {
+            files = walk.filter(f -> f.toString().endsWith(".class"))
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+        for (Path file : files) {
+            update(digest, dir.relativize(file).toString());
+            digest.update(Files.readAllBytes(file));
+        }
+        return files.size();
+    }
+
+    private static int hashJar(MessageDigest digest, Path jar, String prefix) throws IOException {
+        try (ZipFile zip = new ZipFile(jar.toFile())) {
+            final List<? extends ZipEntry> entries = zip.stream()
+                    .filter(e -> e.getName().startsWith(prefix) && e.getName().endsWith(".class"))
+                    .sorted(Comparator.comparing(ZipEntry::getName))
+                    .collect(Collectors.toList());
+            for (ZipEntry entry : entries) {
+                update(digest, entry.getName());
+                try (InputStream in = zip.getInputStream(entry)) {
+                    digest.update(IOUtils.toByteArray(in));
+                }
+            }
+            return entries.size();
+        }
+    }
+
+    private static void update(MessageDigest digest, String s) {
+        digest.update(String.valueOf(s).getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) 0);
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            // Every JVM has it.
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String hex(byte[] bytes) {
+        final StringBuilder s = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            s.append(Character.forDigit((b >> 4) & 0xF, 16));
+            s.append(Character.forDigit(b & 0xF, 16));
+        }
+        return s.toString();
+    }
+
+    private void warn(String message) {
+        if (!warned) {
+            warned = true;
+            ErrorReporter.report(message, false);
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package battlecode.instrumenter;
 
+import battlecode.instrumenter.bytecode.ClassReferenceUtil;
 import battlecode.instrumenter.bytecode.InstrumentingClassVisitor;
 import battlecode.server.Config;
 import battlecode.server.ErrorReporter;
@@ -13,6 +14,7 @@ import java.net.URLClassLoader;
 import java.nio.file.Files;
 import java.nio.file.Paths;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 import static org.objectweb.asm.ClassWriter.COMPUTE_MAXS;
 
@@ -30,11 +32,7 @@ public class IndividualClassLoader extends ClassLoader {
      * for every individual player.
      */
     protected final static Set<String> alwaysRedefine = Collections.unmodifiableSet(new HashSet<>(Arrays.asList(
-            "battlecode.instrumenter.inject.ObjectHashCode",
-            "battlecode.instrumenter.inject.InstrumentableFunctions",
-            "battlecode.instrumenter.inject.System",
-            "battlecode.instrumenter.inject.RobotMonitor",
-            "battlecode.common.Clock"
+            "battlecode.instrumenter.inject.InstrumentableFunctions"
     )));
 
     /**
@@ -101,7 +99,12 @@ public class IndividualClassLoader extends ClassLoader {
         // this is the class we'll return
         Class finishedClass;
 
-        if (sharedCache.hasCached(name)) {
+        if (ClassReferenceUtil.isSharedClass(name.replace('.', '/'))) {
+            // All of the team's robots use the same copy of this class;
+            // see LibraryClassLoader. It reports instrumentation errors
+            // itself.
+            finishedClass = sharedCache.getLibraryLoader(teamPackageName).loadClass(name);
+        } else if (sharedCache.hasCached(name)) {
             byte[] classBytes = sharedCache.getCached(name);
             finishedClass = defineClass(null, classBytes, 0, classBytes.length);
         } else if (alwaysRedefine.contains(name)) {
@@ -141,10 +144,7 @@ public class IndividualClassLoader extends ClassLoader {
 
             finishedClass = saveAndDefineClass(name, classBytes);
         } else if (name.startsWith("instrumented.")) {
-            // Each robot has its own version of java.util classes.
-            // If permgen space becomes a problem, we could make it so
-            // that only one copy of these classes is loaded, but
-            // we would need to modify ObjectHashCode.
+            // Each robot has its own version of other libraries.
             byte[] classBytes;
             try {
                 classBytes = instrument(name, false, false);
@@ -219,12 +219,39 @@ public class IndividualClassLoader extends ClassLoader {
 
     }
 
+    /**
+     * Get the instrumented bytes of a library class, instrumenting it if no
+     * robot has yet. Doesn't define the class.
+     *
+     * @param className the class, e.g. "instrumented.java.util.HashMap"
+     * @return the instrumented class
+     * @throws InstrumentationException if the class can't be instrumented
+     */
+    byte[] libraryClassBytes(String className) throws InstrumentationException {
+        byte[] classBytes = sharedCache.getCached(className);
+        if (classBytes == null) {
+            classBytes = instrument(className, false, false);
+            sharedCache.setCached(className, classBytes);
+        }
+        return classBytes;
+    }
+
     public byte[] instrument(String className,
                              boolean checkDisallowed,
                              boolean debugMethodsEnabled) throws InstrumentationException {
 
         ClassReader cr = reader(className);
 
+        final DiskCache diskCache = sharedCache.getDiskCache();
+        final String key = diskCache == null ? null : diskCache.key(
+                className, teamPackageName, checkDisallowed, debugMethodsEnabled, cr.b);
+        if (key != null) {
+            final byte[] cached = diskCache.get(key);
+            if (cached != null) {
+                return cached;
+            }
+        }
+
         ClassWriter cw = new ClassWriter(COMPUTE_MAXS); // passing true sets maxLocals and maxStack, so we don't have to
         ClassVisitor cv = new InstrumentingClassVisitor(
                 cw,
@@ -235,7 +262,12 @@ public class IndividualClassLoader extends ClassLoader {
                 debugMethodsEnabled
         );
         cr.accept(cv, 0);        //passing false lets debug info be included in the transformation, so players get line numbers in stack traces
-        return cw.toByteArray();
+        final byte[] classBytes = cw.toByteArray();
+
+        if (key != null) {
+            diskCache.put(key, classBytes);
+        }
+        return classBytes;
     }
 
     @SuppressWarnings("unused")
@@ -251,6 +283,9 @@ public class IndividualClassLoader extends ClassLoader {
      * A class that caches data used by an IndividualClassLoader.
      * Should be shared between IndividualClassLoaders that use the same source
      * for their code, i.e. both from the same URL, or both from the local classpath.
+     *
+     * Safe to use from several threads at once, since sandboxes may be
+     * created in the background (see SandboxPool).
      */
     public static final class Cache {
 
@@ -273,6 +308,17 @@ public class IndividualClassLoader extends ClassLoader {
          */
         private final Set<String> teamsWithErrors;
 
+        /**
+         * The loader of each team's shared library classes.
+         */
+        private final Map<String, LibraryClassLoader> libraryLoaders;
+
+        /**
+         * Instrumented classes saved by earlier runs, or null if
+         * bc.engine.instrumentation-cache is unset.
+         */
+        private final DiskCache diskCache;
+
         /**
          * Create a cache for classes loaded from a URL, or the local classpath.
          * The URL can point to a jar file or a directory containing class
@@ -299,8 +345,10 @@ public class IndividualClassLoader extends ClassLoader {
                 }
             };
 
-            this.instrumentedClasses = new HashMap<>();
-            this.teamsWithErrors = new HashSet<>();
+            this.instrumentedClasses = new ConcurrentHashMap<>();
+            this.teamsWithErrors = ConcurrentHashMap.newKeySet();
+            this.libraryLoaders = new ConcurrentHashMap<>();
+            this.diskCache = createDiskCache(classURL, loader);
         }
 
         /**
@@ -308,8 +356,18 @@ public class IndividualClassLoader extends ClassLoader {
          */
         public Cache() {
             this.loader = getClass().getClassLoader();
-            this.instrumentedClasses = new HashMap<>();
-            this.teamsWithErrors = new HashSet<>();
+            this.instrumentedClasses = new ConcurrentHashMap<>();
+            this.teamsWithErrors = ConcurrentHashMap.newKeySet();
+            this.libraryLoaders = new ConcurrentHashMap<>();
+            this.diskCache = createDiskCache(null, loader);
+        }
+
+        private static DiskCache createDiskCache(URL classURL, ClassLoader loader) {
+            final String directory = Config.getGlobalConfig().get("bc.engine.instrumentation-cache");
+            if (directory == null || directory.isEmpty()) {
+                return null;
+            }
+            return new DiskCache(Paths.get(directory), classURL, loader);
         }
 
         /**
@@ -359,5 +417,21 @@ public class IndividualClassLoader extends ClassLoader {
             this.teamsWithErrors.add(teamName);
         }
 
+        /**
+         * @return the cache of instrumented classes on disk, or null if
+         *         there isn't one
+         */
+        DiskCache getDiskCache() {
+            return this.diskCache;
+        }
+
+        /**
+         * @param teamName the team to look up
+         * @return the loader of the team's shared library classes
+         */
+        LibraryClassLoader getLibraryLoader(String teamName) {
+            return this.libraryLoaders.computeIfAbsent(teamName, t -> new LibraryClassLoader(t, this));
+        }
+
     }
 }
@@ -0,0 +1,782 @@
+package battlecode.instrumenter;
+
+import battlecode.instrumenter.bytecode.ClassReferenceUtil;
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.Type;
+import org.objectweb.asm.tree.*;
+
+import java.util.*;
+
+import static battlecode.instrumenter.bytecode.ClassReferenceUtil.SHARED_INITIALIZER;
+import static battlecode.instrumenter.bytecode.ClassReferenceUtil.STATIC_GETTER_PREFIX;
+import static battlecode.instrumenter.bytecode.ClassReferenceUtil.STATIC_SETTER_PREFIX;
+import static org.objectweb.asm.ClassWriter.COMPUTE_MAXS;
+import static org.objectweb.asm.Opcodes.*;
+
+/**
+ * Defines the instrumented library classes (instrumented.java.* and
+ * InstrumentableFunctions) once for all of a team's robots, instead of once
+ * in every robot's IndividualClassLoader. The team's own classes are still
+ * defined separately for every robot.
+ *
+ * Robots mustn't be able to tell that they share these classes, so each
+ * robot gets its own copy of any static field it could change or notice
+ * changing. Instrumented code uses the static fields of shared classes
+ * through accessors, $get$name and $set$name, which we add to each class:
+ *  - Fields no robot can change are left as they are: constants, final
+ *    primitives and Strings, compiler-made tables, and empty arrays and
+ *    immutable objects made by the static initializer. An object is
+ *    immutable if its fields are all final and hold nothing but
+ *    primitives, Strings, boxed primitives, enum constants and other
+ *    immutable objects; or if it's one of the few library objects we know
+ *    are never changed (KNOWN_IMMUTABLE).
+ *  - Any other field is moved into the robot's RobotContext, where it
+ *    starts out with its default value. If the static initializer sets
+ *    such a field, or might otherwise depend on the robot running it,
+ *    every robot needs its own run of it: all of the class's fields are
+ *    moved, and the initializer instead runs, charged as it always has
+ *    been, the first time a robot uses one of them.
+ *  - Otherwise the static initializer runs once for the whole team, charged
+ *    to whichever robot uses the class first; see shareInitializer. The
+ *    robots that use the class later don't pay for it, as they did when
+ *    every robot had its own copy of the class. If the initializer fails,
+ *    say because the robot runs out of stack or is killed, the class isn't
+ *    left broken for the robot's teammates: the next robot to use it runs
+ *    the initializer again.
+ *  - Enum constants must be shared, since the engine caches them, so an
+ *    enum's initializer always runs once for the whole team. Robots can't
+ *    use an enum whose constants aren't immutable, or whose initializer
+ *    sets anything else that isn't.
+ * Other per-robot state, such as bytecode counts, hash codes and the
+ * System streams, lives in the RobotContext to begin with.
+ *
+ * Library classes are shared per team rather than per JVM because how they
+ * are instrumented depends a little on the team's package name.
+ */
+final class LibraryClassLoader extends ClassLoader {
+
+    private static final String ROBOT_MONITOR = "battlecode/instrumenter/inject/RobotMonitor";
+    private static final String OBJECT_HASH_CODE = "battlecode/instrumenter/inject/ObjectHashCode";
+    private static final String SYSTEM = "battlecode/instrumenter/inject/System";
+    private static final String INSTRUMENTABLE_FUNCTIONS =
+            "instrumented/battlecode/instrumenter/inject/InstrumentableFunctions";
+
+    /**
+     * The methods we add to classes with fields moved into the RobotContext:
+     * one that finds the robot's copy of the fields, and the static
+     * initializer, if each robot runs it.
+     */
+    private static final String STATICS = "$statics";
+    private static final String ROBOT_INIT = "$robotInit";
+
+    /**
+     * What we add to classes whose static initializer runs once for the
+     * team, besides the initializer itself: a flag that's set once it has
+     * run, and a method that runs it if it hasn't.
+     */
+    private static final String READY = "$ready";
+    private static final String INIT = "$init";
+
+    /**
+     * Uninstrumented superclasses with no fields that can change.
+     */
+    private static final Set<String> ENGINE_SUPERCLASSES = new HashSet<>(Arrays.asList(
+            "java/lang/Object", "java/lang/Enum", "java/lang/Number"
+    ));
+
+    /**
+     * Uninstrumented classes whose objects can't change, and hold nothing
+     * that can.
+     */
+    private static final Set<String> IMMUTABLE_CLASSES = new HashSet<>(Arrays.asList(
+            "java/lang/String", "java/lang/Boolean", "java/lang/Byte", "java/lang/Character",
+            "java/lang/Short", "java/lang/Integer", "java/lang/Long", "java/lang/Float",
+            "java/lang/Double"
+    ));
+
+    /**
+     * Library classes, and static fields (as class.field), that hold
+     * objects which could change but never do: they're private, and only
+     * filled in by a constructor or static initializer.
+     */
+    private static final Set<String> KNOWN_IMMUTABLE = new HashSet<>(Arrays.asList(
+            "instrumented/java/util/stream/StreamOpFlag",
+            "instrumented/java/util/regex/UnicodeProp.posix",
+            "instrumented/java/util/regex/UnicodeProp.aliases"
+    ));
+
+    private final String teamPackageName;
+    private final IndividualClassLoader.Cache cache;
+
+    /**
+     * Used to instrument classes; never defines any itself.
+     */
+    private final IndividualClassLoader instrumenter;
+
+    /**
+     * How we've decided to share each class we've looked at, by name
+     * (using /s). Null while we're deciding.
+     */
+    private final Map<String, Sharing> sharings = new HashMap<>();
+
+    /**
+     * Whether each class we've looked at is immutable.
+     */
+    private final Map<String, Boolean> immutable = new HashMap<>();
+
+    /**
+     * Create a loader for a team's library classes.
+     *
+     * @param teamPackageName the team
+     * @param cache the cache of instrumented classes the team's robots use
+     */
+    LibraryClassLoader(String teamPackageName, IndividualClassLoader.Cache cache) {
+        super(IndividualClassLoader.class.getClassLoader());
+        this.teamPackageName = teamPackageName;
+        this.cache = cache;
+        this.instrumenter = new IndividualClassLoader(teamPackageName, cache);
+    }
+
+    @Override
+    protected synchronized Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+        Class<?> result = findLoadedClass(name);
+        if (result == null) {
+            final String className = name.replace('.', '/');
+            if (!ClassReferenceUtil.isSharedClass(className)) {
+                return super.loadClass(name, resolve);
+            }
+            final byte[] bytes;
+            try {
+                bytes = share(className);
+            } catch (InstrumentationException e) {
+                cache.setError(teamPackageName);
+                throw e;
+            }
+            result = defineClass(null, bytes, 0, bytes.length);
+        }
+        if (resolve) {
+            resolveClass(result);
+        }
+        return result;
+    }
+
+    /**
+     * How a class's static fields are shared.
+     */
+    private static final class Sharing {
+        /**
+         * The fields each robot has its own copy of, in the order they're
+         * kept in the RobotContext.
+         */
+        final List<String> robotFields = new ArrayList<>();
+
+        /**
+         * Whether each robot runs the static initializer.
+         */
+        boolean robotInit;
+    }
+
+    /**
+     * @param className a shared class
+     * @return the class as it should be defined
+     * @throws InstrumentationException if it can't be instrumented
+     */
+    private byte[] share(String className) {
+        final ClassNode node = read(className);
+        final Sharing sharing = sharing(className, node);
+        final boolean itf = (node.access & ACC_INTERFACE) != 0;
+
+        final List<FieldNode> statics = new ArrayList<>();
+        final Map<String, FieldNode> robotFields = new HashMap<>();
+        for (Object f : node.fields) {
+            final FieldNode field = (FieldNode) f;
+            if ((field.access & ACC_STATIC) != 0) {
+                statics.add(field);
+                if (sharing.robotFields.contains(field.name)) {
+                    robotFields.put(field.name, field);
+                }
+            }
+        }
+
+        // Use the robot's copy of the fields that have one
+        MethodNode clinit = null;
+        for (Object m : node.methods) {
+            final MethodNode method = (MethodNode) m;
+            if (method.name.equals("<clinit>")) {
+                clinit = method;
+            }
+            for (AbstractInsnNode insn : method.instructions.toArray()) {
+                if (insn instanceof FieldInsnNode) {
+                    final FieldInsnNode field = (FieldInsnNode) insn;
+                    if (field.owner.equals(className) && robotFields.containsKey(field.name)) {
+                        method.instructions.set(field, accessorCall(field, itf));
+                    }
+                }
+            }
+        }
+        if (sharing.robotInit) {
+            clinit.name = ROBOT_INIT;
+            clinit.access = ACC_STATIC | ACC_SYNTHETIC | (itf ? ACC_PUBLIC : ACC_PRIVATE);
+        }
+
+        final StringBuilder types = new StringBuilder();
+        for (String name : sharing.robotFields) {
+            types.append(robotFields.get(name).desc.charAt(0));
+            node.fields.remove(robotFields.get(name));
+        }
+        if (!sharing.robotFields.isEmpty()) {
+            addStaticsMethod(node, types.toString(), sharing.robotInit, itf);
+        }
+        for (FieldNode field : statics) {
+            addAccessors(node, field, sharing.robotFields.indexOf(field.name), itf);
+        }
+        if (clinit != null && !sharing.robotInit && !itf) {
+            shareInitializer(node, clinit);
+        }
+
+        final ClassWriter writer = new ClassWriter(COMPUTE_MAXS);
+        node.accept(writer);
+        return writer.toByteArray();
+    }
+
+    /**
+     * Read an instrumented class, with its own static fields used directly
+     * rather than through accessors, as it was written.
+     *
+     * @param className the class
+     * @return the class
+     * @throws InstrumentationException if it can't be instrumented
+     */
+    private ClassNode read(String className) {
+        final ClassNode node = new ClassNode();
+        new ClassReader(instrumenter.libraryClassBytes(className.replace('/', '.'))).accept(node, 0);
+
+        final Map<String, String> staticDescs = new HashMap<>();
+        for (Object f : node.fields) {
+            final FieldNode field = (FieldNode) f;
+            if ((field.access & ACC_STATIC) != 0) {
+                staticDescs.put(field.name, field.desc);
+            }
+        }
+        for (Object m : node.methods) {
+            final InsnList instructions = ((MethodNode) m).instructions;
+            for (AbstractInsnNode insn : instructions.toArray()) {
+                if (!(insn instanceof MethodInsnNode)) {
+                    continue;
+                }
+                final MethodInsnNode call = (MethodInsnNode) insn;
+                final String field = accessedField(call);
+                if (call.owner.equals(className) && staticDescs.containsKey(field)) {
+                    instructions.set(call, new FieldInsnNode(
+                            call.name.startsWith(STATIC_GETTER_PREFIX) ? GETSTATIC : PUTSTATIC,
+                            className, field, staticDescs.get(field)));
+                }
+            }
+        }
+        return node;
+    }
+
+    /**
+     * @return the static field whose accessor a method is, or null if it
+     *         isn't one
+     */
+    private static String accessedField(MethodInsnNode call) {
+        if (call.getOpcode() != INVOKESTATIC) {
+            return null;
+        } else if (call.name.startsWith(STATIC_GETTER_PREFIX)) {
+            return call.name.substring(STATIC_GETTER_PREFIX.length());
+        } else if (call.name.startsWith(STATIC_SETTER_PREFIX)) {
+            return call.name.substring(STATIC_SETTER_PREFIX.length());
+        } else {
+            return null;
+        }
+    }
+
+    /**
+     * Decide which of a class's static fields each robot needs its own copy
+     * of.
+     *
+     * @param className the class
+     * @param node the class, from read(); or null to read it if we haven't
+     *             decided yet
+     * @return the decision, or null if we're in the middle of making it
+     * @throws InstrumentationException if the class can't be instrumented
+     */
+    private Sharing sharing(String className, ClassNode node) {
+        if (sharings.containsKey(className)) {
+            return sharings.get(className);
+        }
+        sharings.put(className, null);
+        final Sharing sharing;
+        try {
+            sharing = decideSharing(className, node != null ? node : read(className));
+        } catch (RuntimeException | Error e) {
+            // Decide again next time, rather than never
+            sharings.remove(className);
+            throw e;
+        }
+        sharings.put(className, sharing);
+        return sharing;
+    }
+
+    private Sharing decideSharing(String className, ClassNode node) {
+        final Sharing sharing = new Sharing();
+
+        // Constants are never set by code, so they can always be shared
+        final List<String> statics = new ArrayList<>();
+        for (Object f : node.fields) {
+            final FieldNode field = (FieldNode) f;
+            if ((field.access & ACC_STATIC) != 0 && field.value == null) {
+                statics.add(field.name);
+            }
+        }
+        if (statics.isEmpty()) {
+            return sharing;
+        }
+
+        // The fields robots could change, or notice changing
+        final Set<String> robotFields = new LinkedHashSet<>();
+        for (Object f : node.fields) {
+            final FieldNode field = (FieldNode) f;
+            if (statics.contains(field.name) && (field.access & (ACC_FINAL | ACC_PRIVATE)) == 0) {
+                robotFields.add(field.name);
+            }
+        }
+        MethodNode clinit = null;
+        for (Object m : node.methods) {
+            final MethodNode method = (MethodNode) m;
+            if (method.name.equals("<clinit>")) {
+                clinit = method;
+                continue;
+            }
+            for (AbstractInsnNode insn : method.instructions.toArray()) {
+                if (insn.getOpcode() == PUTSTATIC && ((FieldInsnNode) insn).owner.equals(className)) {
+                    robotFields.add(((FieldInsnNode) insn).name);
+                }
+            }
+        }
+
+        final Set<String> setInClinit = new HashSet<>();
+        boolean clinitUsesRobot = false;
+        boolean clinitCallsClass = false;
+        if (clinit != null) {
+            for (AbstractInsnNode insn : clinit.instructions.toArray()) {
+                if (insn.getOpcode() == PUTSTATIC && ((FieldInsnNode) insn).owner.equals(className)) {
+                    final FieldInsnNode put = (FieldInsnNode) insn;
+                    setInClinit.add(put.name);
+                    if (!isUnchangeable(put)) {
+                        robotFields.add(put.name);
+                    }
+                } else if (insn instanceof MethodInsnNode) {
+                    final MethodInsnNode call = (MethodInsnNode) insn;
+                    clinitUsesRobot |= usesRobot(call);
+                    clinitCallsClass |= call.owner.equals(className);
+                }
+            }
+        }
+
+        if (clinit != null && ((node.access & ACC_INTERFACE) != 0
+                // An interface's fields must be final, so it can't share
+                // an initializer that isn't a real static initializer
+                || clinitUsesRobot
+                || !Collections.disjoint(robotFields, setInClinit)
+                // The class's own methods could set the robot's fields
+                || clinitCallsClass && !robotFields.isEmpty())) {
+            if ((node.access & ACC_ENUM) != 0) {
+                // Each robot would have its own constants
+                throw new InstrumentationException("Can't share the enum " + className
+                        + " between robots: it has state they could change");
+            }
+            robotFields.addAll(statics);
+            sharing.robotInit = true;
+        }
+        sharing.robotFields.addAll(robotFields);
+        return sharing;
+    }
+
+    /**
+     * @return whether a call in a static initializer uses the state of the
+     *         robot running it, so far as we can tell from the call alone
+     */
+    private boolean usesRobot(MethodInsnNode call) {
+        if (call.owner.equals(OBJECT_HASH_CODE)
+                || call.owner.equals(INSTRUMENTABLE_FUNCTIONS)
+                || (call.owner.equals(ROBOT_MONITOR) && call.name.equals("getRandomSeed"))) {
+            return true;
+        }
+        if (call.owner.equals(SYSTEM)) {
+            return !call.name.equals("arraycopy") && !call.name.equals("lineSeparator");
+        }
+        final String field = accessedField(call);
+        return field != null && ClassReferenceUtil.isSharedClass(call.owner)
+                && (call.name.startsWith(STATIC_SETTER_PREFIX) || isRobotField(call.owner, field));
+    }
+
+    /**
+     * @return whether each robot has its own copy of a static field of a
+     *         shared class, or might
+     */
+    private boolean isRobotField(String className, String field) {
+        final Sharing sharing = sharing(className, null);
+        return sharing == null || sharing.robotFields.contains(field);
+    }
+
+    /**
+     * Check what a static initializer stores in a static field.
+     *
+     * @return whether it's something no robot can change
+     */
+    private boolean isUnchangeable(FieldInsnNode put) {
+        final Type type = Type.getType(put.desc);
+        if (type.getSort() != Type.OBJECT && type.getSort() != Type.ARRAY
+                || put.desc.equals("Ljava/lang/String;")) {
+            return true;
+        }
+        if (put.name.equals("serialPersistentFields") || put.name.startsWith("$SwitchMap$")
+                || put.name.equals("$VALUES")) {
+            // Only used by serialization, which robots can't use; or a
+            // table the compiler made for switching on an enum; or the
+            // array of an enum's constants, which values() copies
+            return true;
+        }
+        if (KNOWN_IMMUTABLE.contains(put.owner + "." + put.name)) {
+            return true;
+        }
+
+        final AbstractInsnNode value = previous(put);
+        if (value == null) {
+            return false;
+        }
+        switch (value.getOpcode()) {
+            case ACONST_NULL:
+            case LDC:
+                return true;
+            case ANEWARRAY:
+            case NEWARRAY:
+                final AbstractInsnNode length = previous(value);
+                return length != null && length.getOpcode() == ICONST_0;
+            case INVOKESTATIC:
+                final MethodInsnNode call = (MethodInsnNode) value;
+                if (call.owner.equals("battlecode/instrumenter/inject/Unsafe")) {
+                    return call.name.equals("getUnsafe");
+                }
+                // Another class's field, if that can't change either
+                final String field = accessedField(call);
+                return field != null && call.name.startsWith(STATIC_GETTER_PREFIX)
+                        && ClassReferenceUtil.isSharedClass(call.owner)
+                        && !isRobotField(call.owner, field);
+            case INVOKESPECIAL:
+                // A new object, such as an enum constant, if it can't
+                // change
+                final MethodInsnNode init = (MethodInsnNode) value;
+                return init.name.equals("<init>") && isImmutable(init.owner);
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * @return whether no object of a class can change, or hold anything
+     *         that can: its instance fields, and its superclasses', are all
+     *         final, and can only hold immutable objects
+     */
+    private boolean isImmutable(String className) {
+        if (IMMUTABLE_CLASSES.contains(className) || KNOWN_IMMUTABLE.contains(className)) {
+            return true;
+        }
+        if (!ClassReferenceUtil.isSharedClass(className)) {
+            return false;
+        }
+        Boolean result = immutable.get(className);
+        if (result == null) {
+            // Suppose it is while we look, in case it holds objects of its
+            // own class
+            immutable.put(className, true);
+            try {
+                final ClassNode node = header(className);
+                result = true;
+                for (Object f : node.fields) {
+                    final FieldNode field = (FieldNode) f;
+                    if ((field.access & ACC_STATIC) == 0
+                            && ((field.access & ACC_FINAL) == 0 || !holdsImmutable(field.desc))) {
+                        result = false;
+                    }
+                }
+                final String superName = classReference(node.superName);
+                result = result && (ENGINE_SUPERCLASSES.contains(superName) || isImmutable(superName));
+            } catch (RuntimeException | Error e) {
+                immutable.remove(className);
+                throw e;
+            }
+            immutable.put(className, result);
+        }
+        return result;
+    }
+
+    /**
+     * @return whether a field of a type can only hold immutable objects: if
+     *         the type is primitive, an immutable class that can't be
+     *         extended, or an enum, which is only shared if its constants
+     *         are immutable
+     */
+    private boolean holdsImmutable(String desc) {
+        final Type type = Type.getType(desc);
+        if (type.getSort() == Type.ARRAY) {
+            return false;
+        } else if (type.getSort() != Type.OBJECT) {
+            return true;
+        }
+        final String className = classReference(type.getInternalName());
+        if (IMMUTABLE_CLASSES.contains(className) || KNOWN_IMMUTABLE.contains(className)) {
+            return true;
+        } else if (!ClassReferenceUtil.isSharedClass(className)) {
+            return false;
+        }
+        final int access = header(className).access;
+        return (access & ACC_ENUM) != 0 || (access & ACC_FINAL) != 0 && isImmutable(className);
+    }
+
+    /**
+     * @return a library class as it was before it was instrumented, with
+     *         its fields but not its code
+     */
+    private ClassNode header(String className) {
+        final ClassNode node = new ClassNode();
+        instrumenter.reader(className).accept(node,
+                ClassReader.SKIP_CODE | ClassReader.SKIP_DEBUG | ClassReader.SKIP_FRAMES);
+        return node;
+    }
+
+    /**
+     * @return the name a library class refers to another by, after it's
+     *         instrumented
+     */
+    private String classReference(String className) {
+        return ClassReferenceUtil.classReference(className, teamPackageName, false);
+    }
+
+    /**
+     * @return the instruction before another, skipping labels, line
+     *         numbers and frames
+     */
+    private static AbstractInsnNode previous(AbstractInsnNode insn) {
+        AbstractInsnNode prev = insn.getPrevious();
+        while (prev != null && prev.getOpcode() == -1) {
+            prev = prev.getPrevious();
+        }
+        return prev;
+    }
+
+    /**
+     * @return a call to the accessor that replaces a GETSTATIC or PUTSTATIC
+     */
+    private static MethodInsnNode accessorCall(FieldInsnNode field, boolean itf) {
+        if (field.getOpcode() == GETSTATIC) {
+            return new MethodInsnNode(INVOKESTATIC, field.owner,
+                    STATIC_GETTER_PREFIX + field.name, "()" + field.desc, itf);
+        } else {
+            return new MethodInsnNode(INVOKESTATIC, field.owner,
+                    STATIC_SETTER_PREFIX + field.name, "(" + field.desc + ")V", itf);
+        }
+    }
+
+    /**
+     * Add the method that finds the running robot's copy of a class's
+     * fields, giving it one if it doesn't have one yet:
+     *
+     * <pre>
+     * Object[] statics = RobotMonitor.getStatics(C.class);
+     * if (statics == null) {
+     *     statics = RobotMonitor.newStatics(C.class, types);
+     *     $robotInit();
+     * }
+     * return statics;
+     * </pre>
+     *
+     * The robot's copy is made before the static initializer runs, so that
+     * the initializer sees it, as it would see the class's own fields.
+     */
+    @SuppressWarnings("unchecked")
+    private static void addStaticsMethod(ClassNode node, String types, boolean robotInit, boolean itf) {
+        final MethodNode method = new MethodNode(
+                ACC_STATIC | ACC_SYNTHETIC | (itf ? ACC_PUBLIC : ACC_PRIVATE),
+                STATICS, "()[Ljava/lang/Object;", null, null);
+        final InsnList insns = method.instructions;
+        final LabelNode found = new LabelNode();
+        final Type owner = Type.getObjectType(node.name);
+
+        insns.add(new LdcInsnNode(owner));
+        insns.add(new MethodInsnNode(INVOKESTATIC, ROBOT_MONITOR,
+                "getStatics", "(Ljava/lang/Class;)[Ljava/lang/Object;", false));
+        insns.add(new InsnNode(DUP));
+        insns.add(new JumpInsnNode(IFNONNULL, found));
+        insns.add(new InsnNode(POP));
+        insns.add(new LdcInsnNode(owner));
+        insns.add(new LdcInsnNode(types));
+        insns.add(new MethodInsnNode(INVOKESTATIC, ROBOT_MONITOR,
+                "newStatics", "(Ljava/lang/Class;Ljava/lang/String;)[Ljava/lang/Object;", false));
+        if (robotInit) {
+            insns.add(new MethodInsnNode(INVOKESTATIC, node.name, ROBOT_INIT, "()V", itf));
+        }
+        insns.add(found);
+        insns.add(new FrameNode(F_FULL, 0, new Object[0], 1, new Object[]{"[Ljava/lang/Object;"}));
+        insns.add(new InsnNode(ARETURN));
+        node.methods.add(method);
+    }
+
+    /**
+     * Add the accessors of a static field: a getter, and a setter unless
+     * the field is final.
+     *
+     * @param index where the robot's copy of the field is kept in the array
+     *              $statics returns, or -1 if it's a real field
+     */
+    @SuppressWarnings("unchecked")
+    private static void addAccessors(ClassNode node, FieldNode field, int index, boolean itf) {
+        final int access = ACC_STATIC | ACC_SYNTHETIC
+                | (itf ? ACC_PUBLIC : field.access & (ACC_PUBLIC | ACC_PROTECTED | ACC_PRIVATE));
+        final Type type = Type.getType(field.desc);
+        final Type boxType = boxType(type);
+
+        final MethodNode getter = new MethodNode(access,
+                STATIC_GETTER_PREFIX + field.name, "()" + field.desc, null, null);
+        final InsnList get = getter.instructions;
+        if (index < 0) {
+            get.add(new FieldInsnNode(GETSTATIC, node.name, field.name, field.desc));
+        } else {
+            get.add(new MethodInsnNode(INVOKESTATIC, node.name, STATICS, "()[Ljava/lang/Object;", itf));
+            get.add(pushInt(index));
+            get.add(new InsnNode(AALOAD));
+            if (boxType == null) {
+                get.add(new TypeInsnNode(CHECKCAST, type.getInternalName()));
+            } else {
+                get.add(new TypeInsnNode(CHECKCAST, boxType.getInternalName()));
+                get.add(new MethodInsnNode(INVOKEVIRTUAL, boxType.getInternalName(),
+                        type.getClassName() + "Value", "()" + type.getDescriptor(), false));
+            }
+        }
+        get.add(new InsnNode(type.getOpcode(IRETURN)));
+        node.methods.add(getter);
+
+        if (index < 0 && (field.access & ACC_FINAL) != 0) {
+            return;
+        }
+        final MethodNode setter = new MethodNode(access,
+                STATIC_SETTER_PREFIX + field.name, "(" + field.desc + ")V", null, null);
+        final InsnList set = setter.instructions;
+        if (index < 0) {
+            set.add(new VarInsnNode(type.getOpcode(ILOAD), 0));
+            set.add(new FieldInsnNode(PUTSTATIC, node.name, field.name, field.desc));
+        } else {
+            set.add(new MethodInsnNode(INVOKESTATIC, node.name, STATICS, "()[Ljava/lang/Object;", itf));
+            set.add(pushInt(index));
+            set.add(new VarInsnNode(type.getOpcode(ILOAD), 0));
+            if (boxType != null) {
+                set.add(new MethodInsnNode(INVOKESTATIC, boxType.getInternalName(), "valueOf",
+                        "(" + type.getDescriptor() + ")" + boxType.getDescriptor(), false));
+            }
+            set.add(new InsnNode(AASTORE));
+        }
+        set.add(new InsnNode(RETURN));
+        node.methods.add(setter);
+    }
+
+    private static AbstractInsnNode pushInt(int value) {
+        if (value <= 5) {
+            return new InsnNode(ICONST_0 + value);
+        } else if (value <= Short.MAX_VALUE) {
+            return new IntInsnNode(SIPUSH, value);
+        } else {
+            return new LdcInsnNode(value);
+        }
+    }
+
+    /**
+     * @return the class values of a primitive type are boxed in, or null
+     *         if it isn't primitive
+     */
+    private static Type boxType(Type type) {
+        switch (type.getSort()) {
+            case Type.BOOLEAN: return Type.getType(Boolean.class);
+            case Type.BYTE: return Type.getType(Byte.class);
+            case Type.CHAR: return Type.getType(Character.class);
+            case Type.SHORT: return Type.getType(Short.class);
+            case Type.INT: return Type.getType(Integer.class);
+            case Type.LONG: return Type.getType(Long.class);
+            case Type.FLOAT: return Type.getType(Float.class);
+            case Type.DOUBLE: return Type.getType(Double.class);
+            default: return null;
+        }
+    }
+
+    /**
+     * Make a class's static initializer one that's run once for the team,
+     * by RobotMonitor.initShared, the first time one of the class's static
+     * methods (accessors included) or constructors is called:
+     *
+     * <pre>
+     * private static volatile boolean $ready;
+     *
+     * private static void $sharedInit() {
+     *     ...the static initializer...
+     *     $ready = true;
+     * }
+     *
+     * private static void $init() {
+     *     if (!$ready) {
+     *         RobotMonitor.initShared(C.class);
+     *     }
+     * }
+     * </pre>
+     *
+     * The JVM never marks a class that has no real static initializer as
+     * failed, so if $sharedInit throws, the next call to $init tries again.
+     * The fields it sets can't be final, since it isn't a real static
+     * initializer.
+     */
+    @SuppressWarnings("unchecked")
+    private static void shareInitializer(ClassNode node, MethodNode clinit) {
+        clinit.name = SHARED_INITIALIZER;
+        clinit.access = ACC_STATIC | ACC_SYNTHETIC | ACC_PRIVATE;
+        final Set<String> set = new HashSet<>();
+        for (AbstractInsnNode insn : clinit.instructions.toArray()) {
+            if (insn.getOpcode() == RETURN) {
+                clinit.instructions.insertBefore(insn, new InsnNode(ICONST_1));
+                clinit.instructions.insertBefore(insn, new FieldInsnNode(PUTSTATIC, node.name, READY, "Z"));
+            } else if (insn.getOpcode() == PUTSTATIC && ((FieldInsnNode) insn).owner.equals(node.name)) {
+                set.add(((FieldInsnNode) insn).name);
+            }
+        }
+        for (Object f : node.fields) {
+            final FieldNode field = (FieldNode) f;
+            if ((field.access & ACC_STATIC) != 0 && set.contains(field.name)) {
+                field.access &= ~ACC_FINAL;
+            }
+        }
+        node.fields.add(new FieldNode(ACC_PRIVATE | ACC_STATIC | ACC_VOLATILE | ACC_SYNTHETIC,
+                READY, "Z", null, null));
+
+        for (Object m : node.methods) {
+            final MethodNode method = (MethodNode) m;
+            if (method != clinit && method.instructions.size() > 0
+                    && ((method.access & ACC_STATIC) != 0 || method.name.equals("<init>"))) {
+                method.instructions.insert(new MethodInsnNode(INVOKESTATIC, node.name, INIT, "()V", false));
+            }
+        }
+
+        final MethodNode init = new MethodNode(ACC_PRIVATE | ACC_STATIC | ACC_SYNTHETIC,
+                INIT, "()V", null, null);
+        final InsnList insns = init.instructions;
+        final LabelNode ready = new LabelNode();
+        insns.add(new FieldInsnNode(GETSTATIC, node.name, READY, "Z"));
+        insns.add(new JumpInsnNode(IFNE, ready));
+        insns.add(new LdcInsnNode(Type.getObjectType(node.name)));
+        insns.add(new MethodInsnNode(INVOKESTATIC, ROBOT_MONITOR,
+                "initShared", "(Ljava/lang/Class;)V", false));
+        insns.add(ready);
+        insns.add(new FrameNode(F_SAME, 0, null, 0, null));
+        insns.add(new InsnNode(RETURN));
+        node.methods.add(init);
+    }
+}
@@ -0,0 +1,146 @@
+package battlecode.instrumenter;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Keeps a few sandboxes for a team ready ahead of time, so that spawning a
+ * robot only has to bind one to the robot instead of building a classloader
+ * and starting a thread while the game waits.
+ *
+ * Sandboxes are created on a background thread, whenever refill() is called
+ * and the pool isn't full. No player code runs until a sandbox is bound and
+ * stepped, so it doesn't matter to the game when they're created.
+ *
+ * Apart from the background thread, a pool should only be used from one
+ * thread.
+ */
+public class SandboxPool {
+
+    /**
+     * The team the sandboxes are for.
+     */
+    private final String teamName;
+
+    /**
+     * The cache the sandboxes' classloaders share.
+     */
+    private final IndividualClassLoader.Cache sharedCache;
+
+    /**
+     * How many sandboxes to keep ready.
+     */
+    private final int size;
+
+    /**
+     * The sandboxes ready to be taken, and how many there are.
+     */
+    private final ConcurrentLinkedQueue<SandboxedRobotPlayer> ready;
+    private final AtomicInteger readyCount;
+
+    /**
+     * Creates sandboxes in the background.
+     */
+    private final ExecutorService refiller;
+
+    /**
+     * The refill in progress, if any.
+     */
+    private Future<?> refill;
+
+    /**
+     * Set when the pool is closed, or when creating a sandbox has failed;
+     * no more sandboxes will be created.
+     */
+    private volatile boolean stopped;
+
+    /**
+     * Create an empty pool.
+     *
+     * @param teamName the team to create sandboxes for
+     * @param sharedCache the cache the sandboxes' classloaders should use
+     * @param size how many sandboxes to keep ready
+     */
+    public SandboxPool(String teamName,
+                       IndividualClassLoader.Cache sharedCache,
+                       int size) {
+        this.teamName = teamName;
+        this.sharedCache = sharedCache;
+        this.size = size;
+        this.ready = new ConcurrentLinkedQueue<>();
+        this.readyCount = new AtomicInteger();
+        this.refiller = Executors.newSingleThreadExecutor(r -> {
+            final Thread thread = new Thread(r, teamName + " sandbox pool");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Start filling the pool back up in the background, unless it's full
+     * or already being filled.
+     */
+    public void refill() {
+        if (stopped || readyCount.get() >= size
+                || (refill != null && !refill.isDone())) {
+            return;
+        }
+        refill = refiller.submit(() -> {
+            while (!stopped && readyCount.get() < size) {
+                final SandboxedRobotPlayer sandbox;
+                try {
+                    sandbox = new SandboxedRobotPlayer(teamName, sharedCache);
+                } catch (RuntimeException e) {
+                    // Includes InstrumentationException. Leave it to
+                    // whoever creates the next sandbox directly to report
+                    // the problem.
+                    stopped = true;
+                    return;
+                }
+                if (stopped) {
+                    // Closed while we were creating it
+                    sandbox.terminate();
+                    return;
+                }
+                ready.add(sandbox);
+                readyCount.incrementAndGet();
+            }
+        });
+    }
+
+    /**
+     * Take a ready sandbox out of the pool, without waiting.
+     *
+     * @return a sandbox that isn't bound to a robot yet, or null if there
+     *         are none ready
+     */
+    public SandboxedRobotPlayer take() {
+        final SandboxedRobotPlayer sandbox = ready.poll();
+        if (sandbox != null) {
+            readyCount.decrementAndGet();
+        }
+        return sandbox;
+    }
+
+    /**
+     * Stop refilling the pool, and terminate the sandboxes in it.
+     */
+    public void close() {
+        stopped = true;
+        refiller.shutdown();
+        try {
+            refiller.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        SandboxedRobotPlayer sandbox;
+        while ((sandbox = take()) != null) {
+            sandbox.terminate();
+        }
+    }
+}
@@ -2,6 +2,8 @@ package battlecode.instrumenter;
 
 import battlecode.common.RobotController;
 import battlecode.common.Team;
+import battlecode.instrumenter.inject.RobotContext;
+import battlecode.instrumenter.inject.RobotMonitor;
 import battlecode.instrumenter.stream.RoboPrintStream;
 import battlecode.instrumenter.stream.SilencedPrintStream;
 import battlecode.server.ErrorReporter;
@@ -16,8 +18,9 @@ import java.lang.reflect.Modifier;
  * Encapsulates an instrumented robot player, its personally-loaded classes,
  * and its main thread. Sort of like a mini-jvm.
  *
- * Closely bound to RobotMonitor; RobotMonitor exists inside the sandbox,
- * this exists as a container for the sandbox.
+ * Closely bound to RobotMonitor; RobotMonitor acts on the sandbox's
+ * RobotContext from inside the sandbox, this exists as a container for the
+ * sandbox.
  *
  * This class is NOT THREAD SAFE, even though it uses threads internally.
  * Do NOT call its methods from multiple threads. Seriously. It will break
@@ -25,7 +28,12 @@ import java.lang.reflect.Modifier;
  *
  * However, it is okay if the thread SandboxedRobotPlayer is managing calls
  * into SandboxedRobotPlayer. This is still "single-threaded" use, since
- * there's only one thread operating at a time.
+ * there's only one thread operating at a time. It's also okay to create a
+ * sandbox on one thread and hand it to another through something that
+ * synchronizes, like a concurrent queue.
+ *
+ * A sandbox can be created ahead of time, before the robot it will control
+ * exists, and bound to the robot later; see SandboxPool.
  *
  * @author james
  */
@@ -34,14 +42,15 @@ public class SandboxedRobotPlayer {
     public static final String PLAYER_CLASS_NAME = "RobotPlayer";
 
     /**
-     * The controller for the robot we're controlling.
+     * The controller for the robot we're controlling; null until the
+     * sandbox is bound to a robot.
      */
-    private final RobotController robotController;
+    private RobotController robotController;
 
     /**
-     * The seed to use in all "random" operations.
+     * The name of the team we're loading.
      */
-    private final int seed;
+    private final String teamName;
 
     /**
      * Whether the robot player is terminated.
@@ -59,29 +68,15 @@ public class SandboxedRobotPlayer {
     private final Thread mainThread;
 
     /**
-     * The cached 'killRobot' method of the monitor.
-     */
-    private final Method killMethod;
-
-    /**
-     * The cached 'setBytecodeLimit' method of the monitor.
-     */
-    private final Method setBytecodeLimitMethod;
-
-    /**
-     * The cached 'getBytecodeNum' method of the monitor.
-     */
-    private final Method getBytecodeNumMethod;
-
-    /**
-     * The cached 'setSystemOut' method of the monitor.
+     * The player's bytecode budget and other runtime state, which
+     * RobotMonitor acts on while the player runs.
      */
-    private final Method setSystemOutMethod;
+    private final RobotContext context;
 
     /**
-     * The object used to trade of control between threads.
+     * Used to trade off control between threads.
      */
-    private final Object notifier;
+    private final TurnHandoff handoff;
 
     /**
      * Whether or not we are currently running, i.e. in "step".
@@ -103,50 +98,36 @@ public class SandboxedRobotPlayer {
                                 int seed,
                                 IndividualClassLoader.Cache sharedCache)
             throws InstrumentationException {
-        this.robotController = robotController;
-        this.seed = seed;
+        this(teamName, sharedCache);
+        bind(robotController, seed);
+    }
+
+    /**
+     * Create a new sandbox that isn't controlling a robot yet. Its player
+     * thread is started and waiting; the player's code isn't loaded until
+     * the sandbox is bound to a robot and stepped.
+     *
+     * @param teamName          the name of the team to create a player for
+     * @param sharedCache       the cache our classloader should use
+     * @throws InstrumentationException if the player doesn't work for some reason
+     * @throws RuntimeException if our code fails for some reason
+     */
+    public SandboxedRobotPlayer(String teamName,
+                                IndividualClassLoader.Cache sharedCache)
+            throws InstrumentationException {
+        this.teamName = teamName;
         this.terminated = false;
-        this.notifier = new Object();
+        this.handoff = new TurnHandoff();
 
         // Create classloader sandbox
         individualLoader = new IndividualClassLoader(teamName, sharedCache);
 
-        // Load monitor / monitor methods
-        // Used to initialize the RobotMonitor for the player
-        final Method initMethod;
-        // Used to pause the player thread after loading
-        final Method pauseMethod;
-        try {
-            // The loaded, uninstrumented-but-individual RobotMonitor for this player.
-            Class<?> monitor = individualLoader
-                    .loadClass("battlecode.instrumenter.inject.RobotMonitor");
-
-            killMethod = monitor.getMethod("killRobot");
-            setBytecodeLimitMethod = monitor.getMethod("setBytecodeLimit", int.class);
-            getBytecodeNumMethod = monitor.getMethod("getBytecodeNum");
-            pauseMethod = monitor.getMethod("pause");
-            initMethod = monitor.getMethod("init", Pauser.class, Killer.class, int.class);
-
-            // Note: loading this here also keeps any initialization we do in System
-            // from inflicting its bytecode cost on the player.
-            Class<?> system = individualLoader
-                    .loadClass("battlecode.instrumenter.inject.System");
-            setSystemOutMethod = system.getMethod("setSystemOut", PrintStream.class);
-
-        } catch (ReflectiveOperationException e) {
-            throw new RuntimeException("Couldn't load RobotMonitor", e);
-        }
-
         // Used to pause the RobotPlayer main thread.
         final Pauser pauser = () -> {
             try {
-                synchronized (notifier) {
-                    // Unpause the main thread, which is waiting on the player thread
-                    notifier.notifyAll();
-
-                    // Wait for the main thread to restart us
-                    notifier.wait();
-                }
+                // Unpause the main thread, which is waiting on the player
+                // thread, and wait for it to restart us
+                handoff.yieldToEngine();
             } catch (InterruptedException e) {
                 ErrorReporter.report("RobotPlayer thread interrupted while paused");
                 throw new RobotDeathException();
@@ -160,12 +141,15 @@ public class SandboxedRobotPlayer {
             throw new RobotDeathException();
         };
 
+        // The seed is set when we're bound to a robot
+        context = new RobotContext(pauser, killer, 0);
+
         mainThread = new Thread(() -> {
             try {
                 // Init RobotMonitor
-                initMethod.invoke(null, pauser, killer, this.seed);
+                context.enter();
                 // Pause immediately
-                pauseMethod.invoke(null);
+                RobotMonitor.pause();
                 // Run the robot!
                 loadAndRunPlayer(teamName, PLAYER_CLASS_NAME);
                 // If we get here, we've returned from the 'run' method. Tell the user.
@@ -190,26 +174,43 @@ public class SandboxedRobotPlayer {
                 this.terminated = true;
 
                 // Unpause the main thread, which is waiting on the player thread.
-                synchronized (notifier) {
-                    notifier.notifyAll();
-                }
+                handoff.finish();
             }
-        }, teamName + "." + PLAYER_CLASS_NAME + " #"+ robotController.getID());
+        }, teamName + "." + PLAYER_CLASS_NAME);
 
 
         // Wait for thread to tell us it's ready
         try {
-            synchronized (notifier) {
-                // Doesn't do anything besides initialize the sandbox, since thread pauses immediately
-                mainThread.start();
-
-                notifier.wait();
-            }
+            // Doesn't do anything besides initialize the sandbox, since thread pauses immediately
+            handoff.start(mainThread);
         } catch (InterruptedException e) {
             throw new RuntimeException("Unexpected interruption initializing sandbox", e);
         }
     }
 
+    /**
+     * Bind the sandbox to the robot it will control. Must be called exactly
+     * once, before the first step.
+     *
+     * @param robotController   the robot we're loading a player for
+     * @param seed              the seed the robot should use for random operations
+     */
+    public void bind(RobotController robotController, int seed) {
+        if (this.robotController != null) {
+            throw new IllegalStateException("Sandbox is already bound to a robot");
+        }
+        this.robotController = robotController;
+        mainThread.setName(teamName + "." + PLAYER_CLASS_NAME + " #" + robotController.getID());
+        context.setRandomSeed(seed);
+    }
+
+    /**
+     * @return whether the sandbox has been bound to a robot
+     */
+    public boolean isBound() {
+        return robotController != null;
+    }
+
     /**
      * Load the player class and invoke "run", counting bytecode as we go.
      * We do this after the rest of the player state is initialized, so that
@@ -251,11 +252,7 @@ public class SandboxedRobotPlayer {
      * @param limit the new limit
      */
     public void setBytecodeLimit(int limit) {
-        try {
-            setBytecodeLimitMethod.invoke(null, limit);
-        } catch (ReflectiveOperationException e) {
-            ErrorReporter.report(e, true);
-        }
+        context.setBytecodeLimit(limit);
     }
 
     /**
@@ -266,34 +263,53 @@ public class SandboxedRobotPlayer {
         if (terminated) {
             throw new RuntimeException("Step called after robot killed");
         }
+        if (robotController == null) {
+            throw new IllegalStateException("Step called before sandbox bound to a robot");
+        }
 
         // Update the robot's information
-        try {
-            setSystemOutMethod.invoke(null, getOut());
-        } catch (ReflectiveOperationException e) {
-            ErrorReporter.report(e, true);
-        }
+        context.setSystemOut(getOut());
 
+        resume();
+    }
 
+    /**
+     * Run the RobotPlayer thread until it pauses or dies.
+     */
+    private void resume() {
         try {
-            synchronized (notifier) {
-                // We are now running the robot!
-                running = true;
+            // We are now running the robot!
+            running = true;
 
-                // Unpause the robot's thread
-                notifier.notifyAll();
+            // Unpause the robot's thread, and pause this thread until the
+            // robot ends turn or dies
+            handoff.runPlayer();
 
-                // Pause this thread until the robot ends turn or dies
-                notifier.wait();
-
-                // Main thread reactivated: no longer running.
-                running = false;
-            }
+            // Main thread reactivated: no longer running.
+            running = false;
         } catch (InterruptedException e) {
             throw new RuntimeException("Unexpected interruption", e);
         }
     }
 
+    /**
+     * Take a step with a bytecode limit of zero without waking the
+     * RobotPlayer thread, if the step wouldn't run any player code anyway:
+     * i.e. the player is paused because it ran out of bytecodes. Afterwards
+     * the player is in the same state, and reports the same bytecodes used,
+     * as after setBytecodeLimit(0) and step().
+     *
+     * @return whether the step was taken; if not, call setBytecodeLimit(0)
+     *         and step() instead
+     */
+    public boolean skipStep() {
+        if (terminated) {
+            throw new RuntimeException("Step called after robot killed");
+        }
+
+        return context.skipTurn();
+    }
+
     /**
      * Kills a RobotPlayer control thread immediately.
      * Does nothing if the player is already killed.
@@ -316,23 +332,20 @@ public class SandboxedRobotPlayer {
             // execute zero-cost actions after "dying", like (maybe?) returning
             // from run(), which could issue nonsensical warnings. However, it's
             // the best solution I can think of.
-            try {
-                killMethod.invoke(null);
-            } catch (ReflectiveOperationException e) {
-                ErrorReporter.report(e, true);
-            }
+            context.kill();
         } else {
             // We're not running.
             // Set the "shouldDie" flag and then step to finish the job.
 
-            try {
-                killMethod.invoke(null);
-            } catch (ReflectiveOperationException e) {
-                ErrorReporter.report(e, true);
-            }
+            context.kill();
 
-            // Step to make the robot die.
-            step();
+            // Step to make the robot die. A sandbox that was never bound
+            // has no System.out to set up; just let its thread die.
+            if (robotController != null) {
+                step();
+            } else {
+                resume();
+            }
         }
     }
 
@@ -340,12 +353,7 @@ public class SandboxedRobotPlayer {
      * @return the bytecodes used by the player during the most recent step() call.
      */
     public int getBytecodesUsed() {
-        try {
-            return (Integer) getBytecodeNumMethod.invoke(null);
-        } catch (ReflectiveOperationException e) {
-            ErrorReporter.report(e, true);
-            return 0;
-        }
+        return context.getBytecodeNum();
     }
 
     /**
@@ -0,0 +1,108 @@
+package battlecode.instrumenter;
+
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Passes control back and forth between the engine thread and a robot
+ * player's thread, so that exactly one of them runs at a time.
+ *
+ * Each side flips a volatile flag to hand over and unparks the other. The
+ * side that's now waiting spins on the flag for a little while before
+ * parking, since the other side usually hands back within microseconds
+ * and a thread that never parks doesn't have to be woken up by the OS.
+ *
+ * This replaces synchronizing on a shared monitor with notifyAll() and
+ * wait(), which costs two monitor handoffs and two full context switches
+ * per turn.
+ */
+final class TurnHandoff {
+    /**
+     * How many times to check the flag before parking. Spinning only helps
+     * if the other thread can run at the same time.
+     */
+    private static final int SPINS =
+            Runtime.getRuntime().availableProcessors() > 1 ? 2000 : 0;
+
+    /**
+     * Whether the player thread is the one that should be running.
+     */
+    private volatile boolean playerTurn;
+
+    /**
+     * The engine thread, set whenever it hands control to the player.
+     */
+    private volatile Thread engine;
+
+    /**
+     * The player thread.
+     */
+    private volatile Thread player;
+
+    /**
+     * Start the player thread and wait for it to hand control back for the
+     * first time. Called on the engine thread.
+     *
+     * @param thread the player thread; not yet started
+     * @throws InterruptedException if the engine thread is interrupted
+     */
+    void start(Thread thread) throws InterruptedException {
+        player = thread;
+        engine = Thread.currentThread();
+        playerTurn = true;
+        thread.start();
+        await(false);
+    }
+
+    /**
+     * Let the player run until it hands control back. Called on the engine
+     * thread.
+     *
+     * @throws InterruptedException if the engine thread is interrupted
+     */
+    void runPlayer() throws InterruptedException {
+        engine = Thread.currentThread();
+        playerTurn = true;
+        LockSupport.unpark(player);
+        await(false);
+    }
+
+    /**
+     * Hand control back to the engine and wait until it runs the player
+     * again. Called on the player thread.
+     *
+     * @throws InterruptedException if the player thread is interrupted
+     */
+    void yieldToEngine() throws InterruptedException {
+        finish();
+        await(true);
+    }
+
+    /**
+     * Hand control back to the engine for good. Called on the player
+     * thread when it's about to exit.
+     */
+    void finish() {
+        playerTurn = false;
+        LockSupport.unpark(engine);
+    }
+
+    /**
+     * Wait until it's a side's turn.
+     *
+     * @param forPlayer whether to wait for the player's turn rather than
+     *                  the engine's
+     */
+    private void await(boolean forPlayer) throws InterruptedException {
+        for (int i = 0; i < SPINS; i++) {
+            if (playerTurn == forPlayer) {
+                return;
+            }
+        }
+        while (playerTurn != forPlayer) {
+            LockSupport.park(this);
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+        }
+    }
+}
@@ -39,6 +39,21 @@ public class ClassReferenceUtil {
      */
     private final static Set<String> disallowedClasses;
 
+    /**
+     * The prefixes of the names of the accessors through which instrumented
+     * code uses the static fields of shared classes, e.g. "$get$out" and
+     * "$set$out" for the field "out".
+     */
+    public final static String STATIC_GETTER_PREFIX = "$get$";
+    public final static String STATIC_SETTER_PREFIX = "$set$";
+
+    /**
+     * The name that the static initializer of a shared class is given when
+     * it's run once for all of a team's robots, rather than by the JVM; see
+     * LibraryClassLoader.
+     */
+    public final static String SHARED_INITIALIZER = "$sharedInit";
+
     // We can't instrument these classes because they have native methods.  Java won't allow us
     // to create an instrumented class that has the same prefix as a builtin class, so we have to
     // change the name.  But when we rename the class, it can't use the old class's native methods any more.
@@ -87,6 +102,20 @@ public class ClassReferenceUtil {
 
     }
 
+    /**
+     * Tests whether an instrumented class is defined once for all of a
+     * team's robots, rather than once per robot; see LibraryClassLoader.
+     * Instrumented code uses the static fields of these classes through
+     * accessors, since each robot may have its own values of them.
+     *
+     * @param className the name of the class, after classReference, using /s
+     * @return whether the class is shared
+     */
+    public static boolean isSharedClass(String className) {
+        return className.startsWith("instrumented/java/")
+                || className.equals("instrumented/battlecode/instrumenter/inject/InstrumentableFunctions");
+    }
+
     protected static boolean isInAllowedPackage(String className) {
         int dotIndex = className.lastIndexOf('/');
         if (dotIndex == -1) return false;
@@ -11,7 +11,9 @@ import java.io.IOException;
 import java.util.Arrays;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import static org.objectweb.asm.tree.AbstractInsnNode.*;
 
@@ -27,6 +29,8 @@ public class InstrumentingMethodVisitor extends MethodNode implements Opcodes {
 
     private final static String DEBUG_PREFIX = "debug_";
 
+    private final static String SYSTEM = "battlecode/instrumenter/inject/System";
+
     private final String teamPackageName;
     private final String className;    // the class to which this method belongs
     private final boolean checkDisallowed;
@@ -251,6 +255,102 @@ public class InstrumentingMethodVisitor extends MethodNode implements Opcodes {
         bytecodeCtr++;
         n.owner = classReference(n.owner);
         n.desc = classDescReference(n.desc);
+
+        // Each robot may have its own values of the static fields of shared
+        // classes, so code uses them through the accessors that
+        // LibraryClassLoader gives the declaring class.
+        if (n.getOpcode() == GETSTATIC || n.getOpcode() == PUTSTATIC) {
+            final StaticFieldOwner owner = staticFieldOwner(n.owner, n.name);
+            if (owner != null) {
+                instructions.set(n, staticAccessor(n, owner));
+            }
+        }
+    }
+
+    /**
+     * The class that declares a static field, if its static fields are used
+     * through accessors.
+     */
+    private static final class StaticFieldOwner {
+        final String name;
+        final boolean itf;
+
+        StaticFieldOwner(String name, boolean itf) {
+            this.name = name;
+            this.itf = itf;
+        }
+    }
+
+    /**
+     * The owners of the static fields we've looked up, by "class.field",
+     * or NO_ACCESSORS for those used directly.
+     */
+    private static final Map<String, StaticFieldOwner> staticFieldOwners = new ConcurrentHashMap<>();
+    private static final StaticFieldOwner NO_ACCESSORS = new StaticFieldOwner(null, false);
+
+    /**
+     * Find the class that declares a static field, which may be a
+     * superclass or superinterface of the class the field was referred to
+     * by, if the class's static fields are used through accessors.
+     *
+     * @param className the class the field was referred to by
+     * @param fieldName the field
+     * @return the declaring class, or null if the field is used directly
+     */
+    private StaticFieldOwner staticFieldOwner(String className, String fieldName) {
+        if (className.equals(SYSTEM)) {
+            return new StaticFieldOwner(SYSTEM, false);
+        }
+        if (!ClassReferenceUtil.isSharedClass(className)) {
+            return null;
+        }
+        final String key = className + "." + fieldName;
+        StaticFieldOwner owner = staticFieldOwners.get(key);
+        if (owner == null) {
+            owner = findStaticFieldOwner(className, fieldName);
+            staticFieldOwners.put(key, owner == null ? NO_ACCESSORS : owner);
+        }
+        return owner == NO_ACCESSORS ? null : owner;
+    }
+
+    private StaticFieldOwner findStaticFieldOwner(String className, String fieldName) {
+        if (!ClassReferenceUtil.isSharedClass(className)) {
+            return null;
+        }
+        // Field lookup goes through the class, its superinterfaces, then
+        // its superclass (JVMS 5.4.3.2)
+        final ClassNode node = new ClassNode();
+        loader.reader(className).accept(node,
+                ClassReader.SKIP_CODE | ClassReader.SKIP_DEBUG | ClassReader.SKIP_FRAMES);
+        for (Object f : node.fields) {
+            if (((FieldNode) f).name.equals(fieldName)) {
+                return new StaticFieldOwner(className, (node.access & ACC_INTERFACE) != 0);
+            }
+        }
+        for (Object i : node.interfaces) {
+            final StaticFieldOwner owner = findStaticFieldOwner(libraryReference((String) i), fieldName);
+            if (owner != null) {
+                return owner;
+            }
+        }
+        return node.superName == null ? null : findStaticFieldOwner(libraryReference(node.superName), fieldName);
+    }
+
+    private String libraryReference(String name) {
+        return ClassReferenceUtil.classReference(name, teamPackageName, false);
+    }
+
+    /**
+     * @return a call to the accessor that replaces a GETSTATIC or PUTSTATIC
+     */
+    private static MethodInsnNode staticAccessor(FieldInsnNode n, StaticFieldOwner owner) {
+        if (n.getOpcode() == GETSTATIC) {
+            return new MethodInsnNode(INVOKESTATIC, owner.name,
+                    ClassReferenceUtil.STATIC_GETTER_PREFIX + n.name, "()" + n.desc, owner.itf);
+        } else {
+            return new MethodInsnNode(INVOKESTATIC, owner.name,
+                    ClassReferenceUtil.STATIC_SETTER_PREFIX + n.name, "(" + n.desc + ")V", owner.itf);
+        }
     }
 
     private void visitInsnNode(InsnNode n) {
@@ -418,7 +518,8 @@ public class InstrumentingMethodVisitor extends MethodNode implements Opcodes {
         // But in practice this should be good enough.
         else if (n.name.equals("printStackTrace") && n.desc.equals("()V") &&
                 (n.owner == null || n.owner.equals("java/lang/Throwable") || isSuperClass(n.owner, "java/lang/Throwable"))) {
-            instructions.insertBefore(n, new FieldInsnNode(GETSTATIC, "battlecode/instrumenter/inject/System", "out", "Ljava/io/PrintStream;"));
+            instructions.insertBefore(n, new MethodInsnNode(INVOKESTATIC, SYSTEM,
+                    ClassReferenceUtil.STATIC_GETTER_PREFIX + "out", "()Ljava/io/PrintStream;", false));
             n.desc = "(Ljava/io/PrintStream;)V";
         } else {
             // replace class names
@@ -1,10 +1,14 @@
 package battlecode.instrumenter.inject;
 
-import org.hibernate.search.util.WeakIdentityHashMap;
-
 import java.lang.reflect.Method;
-import java.util.HashMap;
+import java.util.concurrent.ConcurrentHashMap;
 
+/**
+ * Deterministic replacements for Object.hashCode and
+ * System.identityHashCode: each robot numbers objects in the order it first
+ * asks for their hash codes. The numbering is kept in the running robot's
+ * RobotContext.
+ */
 @SuppressWarnings("unused")
 public class ObjectHashCode {
 
@@ -27,12 +31,8 @@ public class ObjectHashCode {
         characterHashCode = tmpc;
     }
 
-    static int lastHashCode = -1;
-
-    static WeakIdentityHashMap<Object, Integer> codes = new WeakIdentityHashMap<>();
-
-    // reflection is slow so cache the results
-    static HashMap<Class, Boolean> usesOHC = new HashMap<>();
+    // reflection is slow so cache the results; shared by every robot
+    static final ConcurrentHashMap<Class, Boolean> usesOHC = new ConcurrentHashMap<>();
 
     static public int hashCode(Object o) throws NoSuchMethodException {
         if (usesObjectHashCode(o.getClass()))
@@ -54,10 +54,11 @@ public class ObjectHashCode {
     }
 
     static public int identityHashCode(Object o) {
-        Integer code = codes.get(o);
+        final RobotContext context = RobotContext.current();
+        Integer code = context.hashCodes.get(o);
         if (code == null) {
-            codes.put(o, ++lastHashCode);
-            return lastHashCode;
+            context.hashCodes.put(o, ++context.lastHashCode);
+            return context.lastHashCode;
         } else
             return code;
     }
@@ -0,0 +1,193 @@
+package battlecode.instrumenter.inject;
+
+import battlecode.instrumenter.SandboxedRobotPlayer;
+import battlecode.instrumenter.stream.EOFInputStream;
+import battlecode.instrumenter.stream.PrintStreamWrapper;
+import org.hibernate.search.util.WeakIdentityHashMap;
+
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+
+/**
+ * The state of one robot player that instrumented code needs at runtime:
+ * its bytecode budget, debug level, random seed, deterministic hash codes,
+ * System streams and properties, and its copy of the static fields of
+ * library classes.
+ *
+ * RobotMonitor, ObjectHashCode and System are loaded once for the whole
+ * engine, so that instrumented library classes can be shared between robots
+ * (see LibraryClassLoader); their static methods find the running robot's
+ * context through the current thread. Each player thread enters its
+ * context before it runs any player code.
+ */
+public final class RobotContext {
+
+    /**
+     * The context of each player thread.
+     */
+    private static final ThreadLocal<RobotContext> contexts = new ThreadLocal<>();
+
+    final SandboxedRobotPlayer.Pauser pauser;
+    final SandboxedRobotPlayer.Killer killer;
+
+    int randomSeed;
+    int bytecodeLimit;
+    int bytecodesLeft;
+    boolean shouldDie;
+    int debugLevel;
+
+    /**
+     * The shared classes whose static initializers the robot is running;
+     * see RobotMonitor.initShared.
+     */
+    final Set<Class<?>> sharedInitializers = Collections.newSetFromMap(new IdentityHashMap<>());
+
+    /**
+     * Whether the robot is paused because it ran out of bytecodes, rather
+     * than because it yielded.
+     */
+    boolean outOfBytecodes;
+
+    /**
+     * The last hash code handed out, and the codes of the objects that have
+     * been given one; see ObjectHashCode.
+     */
+    int lastHashCode = -1;
+    final WeakIdentityHashMap<Object, Integer> hashCodes = new WeakIdentityHashMap<>();
+
+    /**
+     * The robot's System.out and System.err until it sets its own, which
+     * prints wherever SandboxedRobotPlayer says; and the rest of the
+     * robot's System.
+     */
+    final PrintStreamWrapper realOut = new PrintStreamWrapper();
+    PrintStream out = realOut;
+    PrintStream err = realOut;
+    InputStream in = new EOFInputStream();
+    Properties props;
+
+    /**
+     * The static fields of shared library classes that each robot has its
+     * own copy of, by class; see LibraryClassLoader.
+     */
+    final Map<Class<?>, Object[]> statics = new IdentityHashMap<>();
+
+    /**
+     * Create a context for a robot player.
+     *
+     * @param pauser pauser to use to pause the player's thread
+     * @param killer killer to use to kill the player's thread
+     * @param seed the random seed; may be set later with setRandomSeed
+     */
+    public RobotContext(SandboxedRobotPlayer.Pauser pauser,
+                        SandboxedRobotPlayer.Killer killer,
+                        int seed) {
+        this.pauser = pauser;
+        this.killer = killer;
+        this.randomSeed = seed;
+    }
+
+    /**
+     * Make this the context of the current thread. Called by the player
+     * thread before it runs any player code.
+     */
+    public void enter() {
+        contexts.set(this);
+    }
+
+    /**
+     * @return the context of the current thread
+     * @throws IllegalStateException if the current thread isn't a player
+     *                               thread
+     */
+    static RobotContext current() {
+        final RobotContext context = contexts.get();
+        if (context == null) {
+            throw new IllegalStateException(
+                    "Instrumented code run outside a robot player: "
+                            + java.lang.Thread.currentThread().getName());
+        }
+        return context;
+    }
+
+    // Methods called from SandboxedRobotPlayer, on the main thread while the
+    // player is paused.
+
+    /**
+     * Set the seed this robot uses for random operations, if it wasn't known
+     * when the context was created. Must be called before the robot first
+     * runs.
+     *
+     * @param seed the new seed
+     */
+    public void setRandomSeed(int seed) {
+        randomSeed = seed;
+    }
+
+    /**
+     * Set the bytecode limit of this robot.
+     *
+     * @param limit the new limit
+     */
+    public void setBytecodeLimit(int limit) {
+        bytecodeLimit = limit;
+    }
+
+    /**
+     * Take a turn with no bytecodes without running the robot's thread, if
+     * that would make no difference. It makes none if the robot is paused
+     * because it ran out of bytecodes: given none, it would just pause
+     * again. A robot that yielded would instead run until the end of its
+     * next basic block, so it has to be stepped.
+     *
+     * @return whether the turn was taken; if not, the robot must be stepped
+     *         with a limit of zero as usual
+     */
+    public boolean skipTurn() {
+        if (!outOfBytecodes || shouldDie) {
+            return false;
+        }
+        // All a step would do: reactivate() leaves bytecodesLeft as it is,
+        // since it's not positive.
+        bytecodeLimit = 0;
+        return true;
+    }
+
+    /**
+     * Set System.out for this robot.
+     *
+     * @param newOut the printstream to replace System.out with
+     */
+    public void setSystemOut(PrintStream newOut) {
+        realOut.wrapped = newOut;
+    }
+
+    /**
+     * Kills the robot.
+     *
+     * More specifically, the next time the thread is activated, it will throw a RobotDeathException.
+     */
+    public void kill() {
+        shouldDie = true;
+    }
+
+    /**
+     * @return the bytecode number that the robot is currently on.
+     *         Note that this can be above bytecodeLimit in some cases.
+     */
+    public int getBytecodeNum() {
+        return bytecodeLimit - bytecodesLeft;
+    }
+
+    /**
+     * @return the bytecodes this robot has left to use.
+     */
+    public int getBytecodesLeft() {
+        return bytecodesLeft;
+    }
+}
@@ -1,86 +1,26 @@
 package battlecode.instrumenter.inject;
 
-import battlecode.instrumenter.SandboxedRobotPlayer;
 import battlecode.server.ErrorReporter;
 
-import java.io.PrintStream;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+
+import static battlecode.instrumenter.bytecode.ClassReferenceUtil.SHARED_INITIALIZER;
 
 /**
  * The class used to count bytecodes and debug levels at player runtime; calls to its methods are injected
  * by the instrumenter.
  *
  * Don't let the fact that this class is "static" fool you. It's static for instrumentation convenience;
- * a new version is loaded every time a new robot player is loaded, and is specific to that robot.
+ * every method acts on the RobotContext of the robot running on the current thread.
  *
  * The specific call the instrumentation uses is "incrementBytecodes".
  *
  * @author adamd
  */
 public final class RobotMonitor {
-    private static int bytecodeLimit;
-
-    private static int randomSeed;
-
-    private static int bytecodesLeft;
-    private static boolean shouldDie;
-    private static int debugLevel;
-
-    private static SandboxedRobotPlayer.Pauser pauser;
-    private static SandboxedRobotPlayer.Killer killer;
-
-    // Methods called from SandboxedRobotPlayer
-
-    /**
-     * A "constructor".
-     * Initializes the monitor.
-     *
-     * Called in the robot thread from SandboxedRobotPlayer.
-     *
-     * @param thePauser pauser to use to pause the thread
-     */
-    @SuppressWarnings("unused")
-    public static void init(SandboxedRobotPlayer.Pauser thePauser,
-                            SandboxedRobotPlayer.Killer theKiller,
-                            int seed) {
-        shouldDie = false;
-        bytecodesLeft = 0;
-        debugLevel = 0;
-
-        randomSeed = seed;
-        pauser = thePauser;
-        killer = theKiller;
-    }
-
-    /**
-     * Set the bytecode limit of this robot.
-     *
-     * @param limit the new limit
-     */
-    @SuppressWarnings("unused")
-    public static void setBytecodeLimit(int limit) {
-        bytecodeLimit = limit;
-    }
 
-    /**
-     * Set System.out for this robot.
-     *
-     * @param out the printstream to replace System.out with
-     */
-    @SuppressWarnings("unused")
-    public static void setSystemOut(PrintStream out) {
-        System.out = out;
-        System.err = out;
-    }
-
-    /**
-     * Kills the robot associated with this monitor.
-     *
-     * More specifically, the next time the thread is activated, it will throw a RobotDeathException.
-     */
-    @SuppressWarnings("unused")
-    public static void killRobot() {
-        shouldDie = true;
-    }
+    private RobotMonitor() {}
 
     /**
      * @return the bytecode number that the active robot is currently on.
@@ -88,7 +28,7 @@ public final class RobotMonitor {
      */
     @SuppressWarnings("unused")
     public static int getBytecodeNum() {
-        return bytecodeLimit - getBytecodesLeft();
+        return RobotContext.current().getBytecodeNum();
     }
 
     /**
@@ -96,7 +36,7 @@ public final class RobotMonitor {
      */
     @SuppressWarnings("unused")
     public static int getBytecodesLeft() {
-        return bytecodesLeft;
+        return RobotContext.current().bytecodesLeft;
     }
 
     // Methods called from RobotPlayer
@@ -112,16 +52,24 @@ public final class RobotMonitor {
      */
     @SuppressWarnings("unused")
     public static void incrementBytecodes(int numBytecodes) {
+        final RobotContext context = RobotContext.current();
+
         // If we should die, then... do that.
-        if (shouldDie) {
-            killer.kill();
+        if (context.shouldDie) {
+            context.killer.kill();
         }
 
-        if (debugLevel == 0) {
-            bytecodesLeft -= numBytecodes;
-
-            while (bytecodesLeft <= 0) {
-                pause();
+        if (context.debugLevel == 0) {
+            context.bytecodesLeft -= numBytecodes;
+
+            // A robot in a shared static initializer runs over its limit
+            // rather than pausing, and pauses once it's out of it.
+            if (context.bytecodesLeft <= 0 && context.sharedInitializers.isEmpty()) {
+                context.outOfBytecodes = true;
+                do {
+                    pause(context);
+                } while (context.bytecodesLeft <= 0);
+                context.outOfBytecodes = false;
             }
         }
     }
@@ -133,7 +81,7 @@ public final class RobotMonitor {
      */
     @SuppressWarnings("unused")
     public static void incrementDebugLevel() {
-        debugLevel++;
+        RobotContext.current().debugLevel++;
     }
 
     /**
@@ -143,14 +91,53 @@ public final class RobotMonitor {
      */
     @SuppressWarnings("unused")
     public static void decrementDebugLevel() {
-        debugLevel--;
-        if (debugLevel < 0) {
+        final RobotContext context = RobotContext.current();
+        context.debugLevel--;
+        if (context.debugLevel < 0) {
             ErrorReporter.report("Debug level below zero, this should be impossible!", true);
-            killRobot();
+            context.kill();
         }
     }
 
 
+    /**
+     * Runs the static initializer of a class shared between robots, for
+     * the first robot to use the class, which is charged for it; see
+     * LibraryClassLoader.
+     *
+     * The robot doesn't pause until it's finished, however many bytecodes
+     * it takes: a teammate could otherwise use the class while it's half
+     * initialized, and start it over. If the initializer throws, the class
+     * is left uninitialized for the next robot to use it.
+     *
+     * THIS METHOD IS CALLED BY CODE THAT LibraryClassLoader GENERATES.
+     *
+     * @param owner the class
+     */
+    @SuppressWarnings("unused")
+    public static void initShared(Class<?> owner) {
+        final RobotContext context = RobotContext.current();
+        if (!context.sharedInitializers.add(owner)) {
+            // The initializer is using its own class
+            return;
+        }
+        try {
+            final Method init = owner.getDeclaredMethod(SHARED_INITIALIZER);
+            init.setAccessible(true);
+            init.invoke(null);
+        } catch (InvocationTargetException e) {
+            // What the JVM throws when a real static initializer fails
+            if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+            throw new ExceptionInInitializerError(e.getCause());
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Can't initialize " + owner.getName(), e);
+        } finally {
+            context.sharedInitializers.remove(owner);
+        }
+    }
+
     /**
      * Used to construct new Random instances.
      *
@@ -159,7 +146,49 @@ public final class RobotMonitor {
      * @return the random seed for this robot
      */
     public static long getRandomSeed() {
-        return randomSeed;
+        return RobotContext.current().randomSeed;
+    }
+
+    /**
+     * Finds the active robot's copy of the static fields of a shared library
+     * class.
+     *
+     * THIS METHOD IS CALLED BY CODE THAT LibraryClassLoader GENERATES.
+     *
+     * @param owner the class
+     * @return the values of the fields, or null if the robot hasn't used
+     *         them yet
+     */
+    public static Object[] getStatics(Class<?> owner) {
+        return RobotContext.current().statics.get(owner);
+    }
+
+    /**
+     * Gives the active robot its own copy of the static fields of a shared
+     * library class, with each field set to its default value.
+     *
+     * THIS METHOD IS CALLED BY CODE THAT LibraryClassLoader GENERATES.
+     *
+     * @param owner the class
+     * @param types the first character of the descriptor of each field
+     * @return the values of the fields
+     */
+    public static Object[] newStatics(Class<?> owner, String types) {
+        final Object[] statics = new Object[types.length()];
+        for (int i = 0; i < statics.length; i++) {
+            switch (types.charAt(i)) {
+                case 'Z': statics[i] = false; break;
+                case 'B': statics[i] = (byte) 0; break;
+                case 'C': statics[i] = (char) 0; break;
+                case 'S': statics[i] = (short) 0; break;
+                case 'I': statics[i] = 0; break;
+                case 'J': statics[i] = 0L; break;
+                case 'F': statics[i] = 0f; break;
+                case 'D': statics[i] = 0d; break;
+            }
+        }
+        RobotContext.current().statics.put(owner, statics);
+        return statics;
     }
 
     /**
@@ -168,26 +197,28 @@ public final class RobotMonitor {
      * Must be called from the robot's main thread.
      */
     public static void pause() {
-        pauser.pause();
+        pause(RobotContext.current());
+    }
 
-        reactivate();
+    private static void pause(RobotContext context) {
+        context.pauser.pause();
+
+        reactivate(context);
     }
 
     /**
      * Restarts a paused robot.
-     *
-     * Must be called from the robot's main thread.
      */
-    public static void reactivate() {
+    private static void reactivate(RobotContext context) {
         // If we should die, then... do that.
-        if (shouldDie) {
-            killer.kill();
+        if (context.shouldDie) {
+            context.killer.kill();
         }
 
-        if (bytecodesLeft < 0) {
-            bytecodesLeft += bytecodeLimit;
+        if (context.bytecodesLeft < 0) {
+            context.bytecodesLeft += context.bytecodeLimit;
         } else {
-            bytecodesLeft = bytecodeLimit;
+            context.bytecodesLeft = context.bytecodeLimit;
         }
     }
 }
@@ -1,8 +1,6 @@
 package battlecode.instrumenter.inject;
 
 import battlecode.instrumenter.RobotDeathException;
-import battlecode.instrumenter.stream.EOFInputStream;
-import battlecode.instrumenter.stream.PrintStreamWrapper;
 import battlecode.server.Config;
 
 import java.io.*;
@@ -17,95 +15,102 @@ import java.util.Properties;
  * The battlecode instrumenter sneakily replaces any references to java.lang.System with references to
  * battlecode.lang.System.
  *
- * Reloaded individually for every robot.
+ * Loaded once for the whole engine; the streams and properties belong to
+ * the running robot's RobotContext. The instrumenter turns reads of
+ * System.out, System.err and System.in into calls of the $get$ methods,
+ * as it does for the static fields of library classes (see
+ * LibraryClassLoader).
  *
  * @author adamd
  */
 @SuppressWarnings("unused")
 public final class System {
     /**
-     * The actual output stream.
+     * Some system properties. Each robot gets a copy of these, along with
+     * the bc.testing properties, the first time it uses them.
      */
-    private static PrintStreamWrapper realOut = new PrintStreamWrapper();
+    private static final Properties initialProps = new Properties();
 
-    /**
-     * A fake System.out.
-     */
-    public static PrintStream out = realOut;
-
-    /**
-     * A fake System.error.
-     */
-    public static PrintStream err = realOut;
+    static {
+        initialProps.setProperty("java.version", "who knows?");
+        initialProps.setProperty("java.vendor", "who knows?");
+        initialProps.setProperty("java.vendor.url", "who knows?");
+        initialProps.setProperty("java.home", "who knows?");
+        initialProps.setProperty("java.class.version", "who knows?");
+        initialProps.setProperty("java.class.path", "who knows?");
+        initialProps.setProperty("os.name", "who knows?");
+        initialProps.setProperty("os.arch", "who knows?");
+        initialProps.setProperty("os.version", "who knows?");
+        initialProps.setProperty("file.separator", "who knows?");
+        initialProps.setProperty("path.separator", "who knows?");
+        initialProps.setProperty("line.separator", "who knows?");
+        initialProps.setProperty("user.name", "who knows?");
+        initialProps.setProperty("user.home", "who knows?");
+        initialProps.setProperty("user.dir", "who knows?");
+    }
 
     /**
-     * A fake System.in.
+     * Prevent construction.
      */
-    public static InputStream in = new EOFInputStream();
+    private System() {
+    }
 
     /**
-     * Some system properties.
+     * @return the running robot's properties
      */
-    private static Properties props = new Properties();
-
-    static {
-        props.setProperty("java.version", "who knows?");
-        props.setProperty("java.vendor", "who knows?");
-        props.setProperty("java.vendor.url", "who knows?");
-        props.setProperty("java.home", "who knows?");
-        props.setProperty("java.class.version", "who knows?");
-        props.setProperty("java.class.path", "who knows?");
-        props.setProperty("os.name", "who knows?");
-        props.setProperty("os.arch", "who knows?");
-        props.setProperty("os.version", "who knows?");
-        props.setProperty("file.separator", "who knows?");
-        props.setProperty("path.separator", "who knows?");
-        props.setProperty("line.separator", "who knows?");
-        props.setProperty("user.name", "who knows?");
-        props.setProperty("user.home", "who knows?");
-        props.setProperty("user.dir", "who knows?");
-
-        Config global = Config.getGlobalConfig();
-
-        // Copy bc.testing stuff
-        for (String key : global.getKeys()) {
-            if (key.startsWith("bc.testing")) {
-                props.put(key, global.get(key));
+    private static Properties props() {
+        final RobotContext context = RobotContext.current();
+        if (context.props == null) {
+            final Properties props = (Properties) initialProps.clone();
+
+            Config global = Config.getGlobalConfig();
+
+            // Copy bc.testing stuff
+            for (String key : global.getKeys()) {
+                if (key.startsWith("bc.testing")) {
+                    props.put(key, global.get(key));
+                }
             }
+            context.props = props;
         }
+        return context.props;
     }
 
+    // Working System methods.
+
     /**
-     * Prevent construction.
+     * A fake System.out.
      */
-    private System() {
+    public static PrintStream $get$out() {
+        return RobotContext.current().out;
     }
 
     /**
-     * Set System.out for this robot.
-     * Used by SandboxedRobotPlayer.
-     *
-     * @param newOut the printstream to replace System.out with
+     * A fake System.err.
      */
-    @SuppressWarnings("unused")
-    public static void setSystemOut(PrintStream newOut) {
-        realOut.wrapped = newOut;
+    public static PrintStream $get$err() {
+        return RobotContext.current().err;
     }
 
-    // Working System methods.
+    /**
+     * A fake System.in.
+     */
+    public static InputStream $get$in() {
+        return RobotContext.current().in;
+    }
 
     // No reason not to let users modify these.
 
     public static void setIn(InputStream newIn) {
-        in = newIn;
+        RobotContext.current().in = newIn;
     }
 
     public static void setOut(PrintStream newOut) {
-        out = newOut;
+        RobotContext.current().out = newOut;
     }
 
     public static void setErr(PrintStream newErr) {
-        err = newErr;
+        RobotContext.current().err = newErr;
     }
 
     public static Console console() {
@@ -131,19 +136,19 @@ public final class System {
     }
 
     public static String getProperty(String key) {
-        return props.getProperty(key);
+        return props().getProperty(key);
     }
 
     public static String getProperty(String key, String def) {
-        return props.getProperty(key, def);
+        return props().getProperty(key, def);
     }
 
     public static String setProperty(String key, String value) {
-        return (String) props.setProperty(key, value);
+        return (String) props().setProperty(key, value);
     }
 
     public static String clearProperty(String key) {
-        return (String) props.remove(key);
+        return (String) props().remove(key);
     }
 
     public static void exit(int status) {
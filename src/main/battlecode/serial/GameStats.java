@@ -2,10 +2,14 @@ package battlecode.serial;
 
 import battlecode.world.DominationFactor;
 
+import java.util.ArrayList;
+import java.util.List;
+
 /**
  * Used to keep track of various statistics in a given
  * battlecode match.  These should be stats that don't change from round
- * to round, but rather are given only at the end of the match.
+ * to round, but rather are given only at the end of the match; per-round
+ * series are collected as the match runs and sent along with the rest.
  */
 public class GameStats implements ServerEvent {
 
@@ -13,8 +17,23 @@ public class GameStats implements ServerEvent {
 
     private DominationFactor dominationFactor = null;
 
+    /**
+     * The number of robots of each team and type at the end of each round.
+     */
+    private final List<int[][]> robotTypeCounts = new ArrayList<>();
+
     public GameStats() {}
 
+    /**
+     * Copy a GameStats. (Note: copies, doesn't alias.)
+     *
+     * @param source the stats to copy
+     */
+    public GameStats(GameStats source) {
+        this.dominationFactor = source.dominationFactor;
+        this.robotTypeCounts.addAll(source.robotTypeCounts);
+    }
+
     public void setDominationFactor(DominationFactor factor) {
         this.dominationFactor = factor;
     }
@@ -23,4 +42,22 @@ public class GameStats implements ServerEvent {
         return this.dominationFactor;
     }
 
+    /**
+     * Record the robot counts at the end of a round.
+     *
+     * @param counts the number of robots, indexed by team ordinal and then
+     *               robot type ordinal
+     */
+    public void addRobotTypeCounts(int[][] counts) {
+        this.robotTypeCounts.add(counts);
+    }
+
+    /**
+     * @return the robot counts at the end of each round, in round order,
+     *         indexed by team ordinal and then robot type ordinal
+     */
+    public List<int[][]> getRobotTypeCounts() {
+        return this.robotTypeCounts;
+    }
+
 }
@@ -17,11 +17,22 @@ public class RoundDelta implements ServerEvent {
 
     private InternalSignal[] internalSignals;
 
+    /**
+     * The world's state hash at the end of the round, or null if it wasn't
+     * recorded.
+     */
+    private Long stateHash;
+
     public RoundDelta() {
     }
 
     public RoundDelta(InternalSignal[] internalSignals) {
+        this(internalSignals, null);
+    }
+
+    public RoundDelta(InternalSignal[] internalSignals, Long stateHash) {
         this.internalSignals = internalSignals;
+        this.stateHash = stateHash;
         foldIndicatorSignals();
     }
 
@@ -33,6 +44,19 @@ public class RoundDelta implements ServerEvent {
         this.internalSignals = internalSignals;
     }
 
+    /**
+     * @return the world's state hash at the end of the round, or null if it
+     *         wasn't recorded
+     * @see battlecode.world.GameWorld#getStateHash()
+     */
+    public Long getStateHash() {
+        return stateHash;
+    }
+
+    public void setStateHash(Long stateHash) {
+        this.stateHash = stateHash;
+    }
+
     private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
         in.defaultReadObject();
         foldIndicatorSignals();
@@ -18,6 +18,7 @@ import java.io.Serializable;
         @Type(value=InjectNotification.class, name="inject"),
         @Type(value=PauseNotification.class, name="pause"),
         @Type(value=ResumeNotification.class, name="resume"),
+        @Type(value=RewindNotification.class, name="rewind"),
         @Type(value=RunNotification.class, name="run"),
         @Type(value=StartNotification.class, name="start"),
 })
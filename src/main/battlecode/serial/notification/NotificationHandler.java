@@ -40,6 +40,13 @@ public interface NotificationHandler {
      */
     void visitInjectNotification(InjectNotification n);
 
+    /**
+     * Processes a rewind notification.
+     *
+     * @param n the notification to process
+     */
+    void visitRewindNotification(RewindNotification n);
+
     /**
      * Processes a game notification.
      *
@@ -0,0 +1,32 @@
+package battlecode.serial.notification;
+
+/**
+ * Represents a "go back to the end of round n" notification. The server
+ * restores the nearest snapshot before that round, runs the rounds after
+ * it again, and pauses.
+ */
+public class RewindNotification implements Notification {
+
+    private static final long serialVersionUID = -3120870571836734251L;
+    private final int round;
+
+    public RewindNotification(int round) {
+        this.round = round;
+    }
+
+    public int getRound() {
+        return round;
+    }
+
+    public void accept(NotificationHandler handler) {
+        handler.visitRewindNotification(this);
+    }
+
+    /**
+     * For use by serializers.
+     */
+    @SuppressWarnings("unused")
+    private RewindNotification() {
+        this(0);
+    }
+}
@@ -133,12 +133,21 @@ public class XStreamSerializerFactory implements SerializerFactory {
 
         public void marshal(Object value, HierarchicalStreamWriter writer,
                             MarshallingContext context) {
-            context.convertAnother(((RoundDelta) value).getInternalSignals());
+            RoundDelta rd = (RoundDelta) value;
+            if (rd.getStateHash() != null) {
+                writer.addAttribute("stateHash",
+                        Long.toHexString(rd.getStateHash()));
+            }
+            context.convertAnother(rd.getInternalSignals());
         }
 
         public Object unmarshal(HierarchicalStreamReader reader,
                                 UnmarshallingContext context) {
             RoundDelta rd = new RoundDelta();
+            String stateHash = reader.getAttribute("stateHash");
+            if (stateHash != null) {
+                rd.setStateHash(Long.parseUnsignedLong(stateHash, 16));
+            }
             rd.setInternalSignals((InternalSignal[]) context.convertAnother
                     (rd, InternalSignal[].class));
             return rd;
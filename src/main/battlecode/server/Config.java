@@ -47,6 +47,12 @@ public class Config {
         defaults.setProperty("bc.engine.upkeep", "true");
         defaults.setProperty("bc.engine.breakpoints", "false");
         defaults.setProperty("bc.engine.debug-methods", "false");
+        defaults.setProperty("bc.engine.full-robot-state", "false");
+        defaults.setProperty("bc.engine.parallel-zombies", "false");
+        defaults.setProperty("bc.engine.state-hash", "false");
+        defaults.setProperty("bc.engine.snapshot-interval", "0");
+        defaults.setProperty("bc.engine.sandbox-pool-size", "0");
+        defaults.setProperty("bc.engine.instrumentation-cache", "");
 
         // TODO clean up
         defaults.setProperty("bc.client.opengl", "false");
@@ -0,0 +1,108 @@
+package battlecode.server;
+
+import java.util.Arrays;
+
+/**
+ * Counters describing how the engine spent its time in a match, as opposed
+ * to what happened in the game. They're printed as debug output at the end
+ * of each match and aren't sent to clients.
+ *
+ * Only the game thread records metrics.
+ */
+public class EngineMetrics {
+
+    /**
+     * The number of times a robot with no bytecodes to spend took its turn
+     * without its player thread being woken up.
+     */
+    private long skippedHandoffs;
+
+    /**
+     * How long each robot player took to spawn, in nanoseconds.
+     */
+    private long[] spawnLatencies = new long[64];
+    private int spawnCount;
+
+    /**
+     * Record a turn taken without waking the robot's player thread.
+     */
+    public void recordSkippedHandoff() {
+        skippedHandoffs++;
+    }
+
+    /**
+     * @return the number of turns taken without waking the robot's player
+     *         thread
+     */
+    public long getSkippedHandoffs() {
+        return skippedHandoffs;
+    }
+
+    /**
+     * Record how long it took to set up the player for a new robot.
+     *
+     * @param nanos the time taken, in nanoseconds
+     */
+    public void recordSpawnLatency(long nanos) {
+        if (spawnCount == spawnLatencies.length) {
+            spawnLatencies = Arrays.copyOf(spawnLatencies, 2 * spawnCount);
+        }
+        spawnLatencies[spawnCount++] = nanos;
+    }
+
+    /**
+     * @return the number of robot players spawned
+     */
+    public int getSpawnCount() {
+        return spawnCount;
+    }
+
+    /**
+     * @param percentile between 0 and 100
+     * @return the spawn latency at that percentile, in nanoseconds, by the
+     *         nearest-rank method; 0 if nothing has spawned
+     */
+    public long getSpawnLatencyPercentile(double percentile) {
+        if (spawnCount == 0) {
+            return 0;
+        }
+        final long[] sorted = Arrays.copyOf(spawnLatencies, spawnCount);
+        Arrays.sort(sorted);
+        return sorted[rank(percentile, spawnCount)];
+    }
+
+    /**
+     * Zero every counter, e.g. at the start of a match.
+     */
+    public void reset() {
+        skippedHandoffs = 0;
+        spawnCount = 0;
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder result = new StringBuilder(String.format(
+                "skipped %d player thread handoffs", skippedHandoffs));
+        if (spawnCount > 0) {
+            final long[] sorted = Arrays.copyOf(spawnLatencies, spawnCount);
+            Arrays.sort(sorted);
+            result.append(String.format(
+                    "\nspawned %d players; latency p50 %.3f ms, p90 %.3f ms,"
+                            + " p99 %.3f ms, max %.3f ms",
+                    spawnCount,
+                    sorted[rank(50, spawnCount)] / 1e6,
+                    sorted[rank(90, spawnCount)] / 1e6,
+                    sorted[rank(99, spawnCount)] / 1e6,
+                    sorted[spawnCount - 1] / 1e6));
+        }
+        return result.toString();
+    }
+
+    /**
+     * @return the index of a percentile in a sorted array of n values
+     */
+    private static int rank(double percentile, int n) {
+        final int rank = (int) Math.ceil(percentile / 100 * n) - 1;
+        return Math.min(Math.max(rank, 0), n - 1);
+    }
+}
@@ -11,6 +11,7 @@ import battlecode.world.DominationFactor;
 import battlecode.world.GameMap;
 import battlecode.world.GameMapIO;
 import battlecode.world.GameWorld;
+import battlecode.world.SnapshotHistory;
 import battlecode.world.control.*;
 import battlecode.world.signal.InternalSignal;
 
@@ -31,6 +32,11 @@ public class Server implements Runnable, NotificationHandler {
      */
     private static final GameInfo POISON = new GameInfo(null, null, null, null, null, null, false) {};
 
+    /**
+     * The value of rewindTo when no rewind has been asked for.
+     */
+    private static final int NO_REWIND = -2;
+
     /**
      * The factories to use to create proxies for new games.
      */
@@ -57,6 +63,11 @@ public class Server implements Runnable, NotificationHandler {
      */
     private int runUntil;
 
+    /**
+     * The round to rewind to before running any more, or NO_REWIND.
+     */
+    private int rewindTo = NO_REWIND;
+
     /**
      * The options provided to the server via config file and command line.
      */
@@ -73,6 +84,16 @@ public class Server implements Runnable, NotificationHandler {
      */
     private GameWorld currentWorld;
 
+    /**
+     * Snapshots of the current world to rewind to, if we're keeping them.
+     */
+    private SnapshotHistory snapshots;
+
+    /**
+     * What the engine has been up to in the current match.
+     */
+    private final EngineMetrics metrics = new EngineMetrics();
+
 
     /**
      * The server's mode affects how notifications are handled, whether or not
@@ -149,6 +170,11 @@ public class Server implements Runnable, NotificationHandler {
         proxyWriter.enqueue(result);
     }
 
+    @Override
+    public void visitRewindNotification(RewindNotification n) {
+        rewindTo = n.getRound();
+    }
+
     @Override
     public void visitGameNotification(GameNotification n) {
         this.gameQueue.add(n.getInfo());
@@ -290,6 +316,12 @@ public class Server implements Runnable, NotificationHandler {
 
         // Create the game world!
         currentWorld = new GameWorld(loadedMap, prov, currentGame.getTeamA(), currentGame.getTeamB(), teamMemory);
+        currentWorld.setFullRobotState(options.getBoolean("bc.engine.full-robot-state"));
+
+        final int snapshotInterval = options.getInt("bc.engine.snapshot-interval");
+        snapshots = snapshotInterval > 0
+                ? new SnapshotHistory(currentWorld, snapshotInterval)
+                : null;
 
 
         // Get started
@@ -310,6 +342,7 @@ public class Server implements Runnable, NotificationHandler {
 
         // Print an
         long startTime = System.currentTimeMillis();
+        metrics.reset();
         say("-------------------- Match Starting --------------------");
         say(String.format("%s vs. %s on %s", currentGame.getTeamA(), currentGame.getTeamB(), mapName));
 
@@ -341,12 +374,17 @@ public class Server implements Runnable, NotificationHandler {
         final int throttleCount = options.getInt("bc.server.throttle-count");
         final boolean doYield = "yield".equals(throttle);
         final boolean doSleep = "sleep".equals(throttle);
+        final boolean recordStateHash = options.getBoolean("bc.engine.state-hash");
 
         // If there are more rounds to be run, run them and
         // and send the round (and optionally stats) bytes to
         // recipients.
         while (currentWorld.isRunning()) {
 
+            if (rewindTo != NO_REWIND) {
+                rewind();
+            }
+
             // If not paused/stopped:
             switch (this.state) {
 
@@ -367,7 +405,15 @@ public class Server implements Runnable, NotificationHandler {
                         break;
                     }
 
-                    proxyWriter.enqueue(new RoundDelta(currentWorld.getAllSignals(true)));
+                    proxyWriter.enqueue(new RoundDelta(
+                            currentWorld.getAllSignals(true),
+                            recordStateHash
+                                    ? Long.valueOf(currentWorld.getStateHash())
+                                    : null));
+
+                    if (snapshots != null) {
+                        snapshots.roundEnded();
+                    }
 
                     if (count++ == throttleCount) {
                         if (doYield)
@@ -397,12 +443,40 @@ public class Server implements Runnable, NotificationHandler {
 
         double timeDiff = (System.currentTimeMillis() - startTime) / 1000.0;
         debug(String.format("match completed in %.4g seconds", timeDiff));
+        debug(metrics.toString());
 
         this.state = State.FINISHED;
+        snapshots = null;
 
         return currentWorld.getWinner();
     }
 
+    /**
+     * Take the current world back to the round a RewindNotification asked
+     * for, and pause there so that signals can be injected. The rounds run
+     * again on the way aren't sent to the proxies; the next round sent
+     * reports every robot in full.
+     */
+    private void rewind() {
+        final int round = rewindTo;
+        rewindTo = NO_REWIND;
+
+        if (snapshots == null) {
+            warn("Can't rewind: bc.engine.snapshot-interval is 0");
+            return;
+        }
+
+        try {
+            snapshots.rewind(round);
+        } catch (IllegalArgumentException e) {
+            warn("Rewind failure: " + e.getMessage());
+            return;
+        }
+
+        this.state = State.PAUSED;
+        proxyWriter.enqueue(new PauseEvent());
+    }
+
     /**
      * @return TODO
      */
@@ -424,15 +498,20 @@ public class Server implements Runnable, NotificationHandler {
 
         teamProvider.registerControlProvider(
                 Team.A,
-                new PlayerControlProvider(game.getTeamA(), game.getTeamAClasses())
+                new PlayerControlProvider(game.getTeamA(), game.getTeamAClasses(), metrics)
         );
         teamProvider.registerControlProvider(
                 Team.B,
-                new PlayerControlProvider(game.getTeamB(), game.getTeamBClasses())
+                new PlayerControlProvider(game.getTeamB(), game.getTeamBClasses(), metrics)
         );
         teamProvider.registerControlProvider(
                 Team.ZOMBIE,
-                new ZombieControlProvider(options.getBoolean("bc.game.disable-zombies"))
+                new ZombieControlProvider(
+                        options.getBoolean("bc.game.disable-zombies"),
+                        options.getBoolean("bc.engine.parallel-zombies")
+                                ? ZombieControlProvider.DecisionMode.PARALLEL
+                                : ZombieControlProvider.DecisionMode.SEQUENTIAL
+                )
         );
         teamProvider.registerControlProvider(
                 Team.NEUTRAL,
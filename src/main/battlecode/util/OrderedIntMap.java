@@ -0,0 +1,372 @@
+package battlecode.util;
+
+import java.util.AbstractCollection;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * A map from ints to objects that remembers insertion order, like a
+ * LinkedHashMap&lt;Integer, V&gt; without the boxing.
+ *
+ * Values live in a dense array in insertion order; an open-addressing hash
+ * table maps each key to its index there. Removing a value leaves a
+ * tombstone (null) in the dense array rather than shifting everything after
+ * it, so indices stay valid until compact() is called. That lets a caller
+ * walk the map by index while values are removed and added:
+ *
+ * <pre>
+ * map.compact();
+ * final int end = map.end();
+ * for (int i = 0; i &lt; end; i++) {
+ *     V value = map.getAt(i);
+ *     if (value == null) continue; // removed since we started
+ *     ...
+ * }
+ * </pre>
+ *
+ * Values added during such a walk land at or after end, and so aren't
+ * visited.
+ *
+ * @param <V> the type of the values
+ */
+public final class OrderedIntMap<V> {
+    /**
+     * Marks a hash slot that has never been used.
+     */
+    private static final int FREE = -1;
+
+    /**
+     * Marks a hash slot whose key has been removed.
+     */
+    private static final int REMOVED = -2;
+
+    /**
+     * The keys in the hash table.
+     */
+    private int[] keys;
+
+    /**
+     * For each hash slot, the index of its value in the dense array, or
+     * FREE or REMOVED.
+     */
+    private int[] indices;
+
+    /**
+     * The number of hash slots that are not FREE.
+     */
+    private int usedSlots;
+
+    /**
+     * The values, in insertion order, with nulls where values were removed.
+     */
+    private Object[] values;
+
+    /**
+     * The key of each entry of values.
+     */
+    private int[] denseKeys;
+
+    /**
+     * The number of entries of values in use, including tombstones.
+     */
+    private int end;
+
+    /**
+     * The number of values in the map.
+     */
+    private int size;
+
+    /**
+     * Lazily created view returned by values().
+     */
+    private Values view;
+
+    /**
+     * Create an empty map.
+     */
+    public OrderedIntMap() {
+        this(16);
+    }
+
+    /**
+     * Create an empty map.
+     *
+     * @param capacity the number of values to make room for up front
+     */
+    public OrderedIntMap(int capacity) {
+        this.values = new Object[Math.max(capacity, 1)];
+        this.denseKeys = new int[values.length];
+        allocateTable(values.length);
+    }
+
+    /**
+     * @return the number of values in the map
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return whether the map is empty
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * @param key a key
+     * @return the value stored under key, or null if there isn't one
+     */
+    @SuppressWarnings("unchecked")
+    public V get(int key) {
+        final int slot = find(key);
+        return slot < 0 ? null : (V) values[indices[slot]];
+    }
+
+    /**
+     * @param key a key
+     * @return whether a value is stored under key
+     */
+    public boolean containsKey(int key) {
+        return find(key) >= 0;
+    }
+
+    /**
+     * Store a value. A new key goes after every other value; replacing the
+     * value of an existing key keeps its position.
+     *
+     * @param key the key
+     * @param value the value; must not be null
+     * @return the previous value stored under key, or null
+     */
+    @SuppressWarnings("unchecked")
+    public V put(int key, V value) {
+        if (value == null) {
+            throw new NullPointerException("OrderedIntMap can't store null");
+        }
+
+        final int existing = find(key);
+        if (existing >= 0) {
+            final V old = (V) values[indices[existing]];
+            values[indices[existing]] = value;
+            return old;
+        }
+
+        if (end == values.length) {
+            // Don't compact here: that would move values under the feet of
+            // anyone walking the map by index.
+            values = Arrays.copyOf(values, 2 * values.length);
+            denseKeys = Arrays.copyOf(denseKeys, values.length);
+        }
+        if (2 * (usedSlots + 1) > keys.length) {
+            rehash(2 * (size + 1));
+        }
+
+        final int slot = insertionSlot(key);
+        if (indices[slot] == FREE) {
+            usedSlots++;
+        }
+        keys[slot] = key;
+        indices[slot] = end;
+        denseKeys[end] = key;
+        values[end++] = value;
+        size++;
+        return null;
+    }
+
+    /**
+     * Remove a value, leaving a tombstone at its index.
+     *
+     * @param key the key to remove
+     * @return the value that was stored under key, or null
+     */
+    @SuppressWarnings("unchecked")
+    public V remove(int key) {
+        final int slot = find(key);
+        if (slot < 0) {
+            return null;
+        }
+        final int index = indices[slot];
+        final V old = (V) values[index];
+        values[index] = null;
+        indices[slot] = REMOVED;
+        size--;
+        return old;
+    }
+
+    /**
+     * Remove every value.
+     */
+    public void clear() {
+        Arrays.fill(values, 0, end, null);
+        end = 0;
+        size = 0;
+        allocateTable(values.length);
+    }
+
+    /**
+     * @return one past the largest index that may hold a value
+     */
+    public int end() {
+        return end;
+    }
+
+    /**
+     * @param index an index between 0 and end()
+     * @return the value at that index, or null if it has been removed
+     */
+    @SuppressWarnings("unchecked")
+    public V getAt(int index) {
+        return (V) values[index];
+    }
+
+    /**
+     * Squeeze out tombstones, so that the values occupy indices 0 to
+     * size() - 1 in insertion order. Invalidates indices.
+     */
+    public void compact() {
+        if (end == size) {
+            return;
+        }
+        int j = 0;
+        for (int i = 0; i < end; i++) {
+            if (values[i] != null) {
+                denseKeys[j] = denseKeys[i];
+                values[j++] = values[i];
+            }
+        }
+        Arrays.fill(values, j, end, null);
+        end = j;
+
+        // The values moved, so rebuild the table to point at them.
+        rehash(values.length);
+    }
+
+    /**
+     * @return a live view of the values in insertion order. Don't add or
+     *         remove values while iterating over it.
+     */
+    public Collection<V> values() {
+        if (view == null) {
+            view = new Values();
+        }
+        return view;
+    }
+
+    /**
+     * @return the values in insertion order
+     */
+    public Object[] toArray() {
+        final Object[] result = new Object[size];
+        int j = 0;
+        for (int i = 0; i < end; i++) {
+            if (values[i] != null) {
+                result[j++] = values[i];
+            }
+        }
+        return result;
+    }
+
+    private void allocateTable(int minValues) {
+        int capacity = 4;
+        while (capacity < 2 * minValues) {
+            capacity <<= 1;
+        }
+        keys = new int[capacity];
+        indices = new int[capacity];
+        Arrays.fill(indices, FREE);
+        usedSlots = 0;
+    }
+
+    /**
+     * Rebuild the hash table from the dense arrays, dropping REMOVED slots.
+     */
+    private void rehash(int minValues) {
+        allocateTable(minValues);
+        for (int i = 0; i < end; i++) {
+            if (values[i] != null) {
+                final int slot = insertionSlot(denseKeys[i]);
+                keys[slot] = denseKeys[i];
+                indices[slot] = i;
+                usedSlots++;
+            }
+        }
+    }
+
+    /**
+     * @return the hash slot holding key, or -1 if it isn't present
+     */
+    private int find(int key) {
+        final int mask = keys.length - 1;
+        for (int slot = hash(key) & mask; ; slot = (slot + 1) & mask) {
+            final int index = indices[slot];
+            if (index == FREE) {
+                return -1;
+            }
+            if (index >= 0 && keys[slot] == key) {
+                return slot;
+            }
+        }
+    }
+
+    /**
+     * @return the first FREE or REMOVED slot for a key known to be absent
+     */
+    private int insertionSlot(int key) {
+        final int mask = keys.length - 1;
+        int slot = hash(key) & mask;
+        while (indices[slot] >= 0) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private static int hash(int key) {
+        final int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    private final class Values extends AbstractCollection<V> {
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        public Iterator<V> iterator() {
+            return new Iterator<V>() {
+                private int next = advance(0);
+
+                private int advance(int i) {
+                    while (i < end && values[i] == null) {
+                        i++;
+                    }
+                    return i;
+                }
+
+                @Override
+                public boolean hasNext() {
+                    return next < end;
+                }
+
+                @Override
+                @SuppressWarnings("unchecked")
+                public V next() {
+                    if (next >= end) {
+                        throw new NoSuchElementException();
+                    }
+                    final V value = (V) values[next];
+                    next = advance(next + 1);
+                    return value;
+                }
+            };
+        }
+
+        @Override
+        public Object[] toArray() {
+            return OrderedIntMap.this.toArray();
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package battlecode.util;
+
+import battlecode.common.GameConstants;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Precomputed shapes of the discs of locations within some radius squared of
+ * a point, so that enumerating them doesn't need square roots or distance
+ * checks.
+ *
+ * A disc is stored as the half-height of each of its columns: the offsets
+ * (dx, dy) within radiusSquared of the origin are exactly those with
+ * |dx| &lt; halfHeights.length and |dy| &lt;= halfHeights[|dx|].
+ *
+ * Discs are built the first time they're asked for and shared afterwards.
+ */
+public final class RadiusStencil {
+    /**
+     * The largest radius squared we keep a disc for; large enough to cover
+     * any map from any location on it.
+     */
+    public static final int MAX_RADIUS_SQUARED =
+            GameConstants.MAP_MAX_WIDTH * GameConstants.MAP_MAX_WIDTH
+            + GameConstants.MAP_MAX_HEIGHT * GameConstants.MAP_MAX_HEIGHT;
+
+    /**
+     * The column half-heights of each disc, indexed by radius squared.
+     */
+    private static final AtomicReferenceArray<int[]> halfHeights =
+            new AtomicReferenceArray<>(MAX_RADIUS_SQUARED + 1);
+
+    /**
+     * The number of offsets in each disc, indexed by radius squared;
+     * 0 if the disc hasn't been built yet.
+     */
+    private static final int[] counts = new int[MAX_RADIUS_SQUARED + 1];
+
+    /**
+     * Receives locations one at a time.
+     */
+    public interface CellVisitor {
+        void visit(int x, int y);
+    }
+
+    /**
+     * Receives runs of locations from forEachColumnClipped.
+     */
+    public interface ColumnVisitor {
+        /**
+         * @param x the x coordinate of the column
+         * @param minY the smallest y coordinate in the run
+         * @param maxY the largest y coordinate in the run; at least minY
+         */
+        void visit(int x, int minY, int maxY);
+    }
+
+    private RadiusStencil() {}
+
+    /**
+     * Get the column half-heights of a disc.
+     * Don't modify the returned array.
+     *
+     * @param radiusSquared the radius squared of the disc; must be between 0
+     *                      and MAX_RADIUS_SQUARED.
+     * @return the half-height of each column, indexed by |dx|.
+     * @throws IllegalArgumentException if radiusSquared is out of range.
+     */
+    public static int[] getHalfHeights(int radiusSquared) {
+        if (radiusSquared < 0 || radiusSquared > MAX_RADIUS_SQUARED) {
+            throw new IllegalArgumentException("No stencil for radiusSquared "
+                    + radiusSquared);
+        }
+
+        int[] result = halfHeights.get(radiusSquared);
+        if (result == null) {
+            result = build(radiusSquared);
+        }
+        return result;
+    }
+
+    /**
+     * @param radiusSquared the radius squared of the disc; must be between 0
+     *                      and MAX_RADIUS_SQUARED.
+     * @return the number of offsets within radiusSquared of the origin.
+     */
+    public static int count(int radiusSquared) {
+        // build() fills in counts before publishing the disc.
+        getHalfHeights(radiusSquared);
+        return counts[radiusSquared];
+    }
+
+    /**
+     * Visit the locations within radiusSquared of (centerX, centerY) that
+     * also lie inside the given rectangle, one column at a time: each
+     * column of the clipped disc is visited as a single run of y
+     * coordinates. Columns that the rectangle clips away entirely are
+     * skipped.
+     *
+     * @param centerX the x coordinate of the center of the disc
+     * @param centerY the y coordinate of the center of the disc
+     * @param radiusSquared the radius squared of the disc; must be between 0
+     *                      and MAX_RADIUS_SQUARED.
+     * @param minX the smallest x coordinate to visit
+     * @param minY the smallest y coordinate to visit
+     * @param maxX the largest x coordinate to visit
+     * @param maxY the largest y coordinate to visit
+     * @param visitor called on each column, in order of increasing x
+     */
+    public static void forEachColumnClipped(int centerX, int centerY,
+                                            int radiusSquared,
+                                            int minX, int minY,
+                                            int maxX, int maxY,
+                                            ColumnVisitor visitor) {
+        final int[] heights = getHalfHeights(radiusSquared);
+        final int radius = heights.length - 1;
+
+        final int x0 = (int) Math.max(minX, (long) centerX - radius);
+        final int x1 = (int) Math.min(maxX, (long) centerX + radius);
+
+        for (int x = x0; x <= x1; x++) {
+            final int h = heights[Math.abs(x - centerX)];
+            final int y0 = (int) Math.max(minY, (long) centerY - h);
+            final int y1 = (int) Math.min(maxY, (long) centerY + h);
+            if (y0 <= y1) {
+                visitor.visit(x, y0, y1);
+            }
+        }
+    }
+
+    private static int[] build(int radiusSquared) {
+        final int radius = (int) Math.sqrt(radiusSquared);
+        final int[] heights = new int[radius + 1];
+        int count = 0;
+        for (int dx = 0; dx <= radius; dx++) {
+            int h = (int) Math.sqrt(radiusSquared - dx * dx);
+            // Guard against rounding in either direction.
+            while (dx * dx + (h + 1) * (h + 1) <= radiusSquared) h++;
+            while (h > 0 && dx * dx + h * h > radiusSquared) h--;
+            heights[dx] = h;
+            count += (dx == 0 ? 1 : 2) * (2 * h + 1);
+        }
+        counts[radiusSquared] = count;
+        halfHeights.set(radiusSquared, heights);
+        return heights;
+    }
+}
@@ -0,0 +1,54 @@
+package battlecode.world;
+
+import java.util.Random;
+
+/**
+ * A Random that can be copied cheaply, including where it is in its
+ * sequence; for snapshots of the world. Gives the same values as a
+ * java.util.Random with the same seed.
+ *
+ * Random keeps its seed to itself, so this keeps its own copy, and
+ * generates values from it with the same linear congruential formula.
+ * Copies don't carry over the second value that nextGaussian() saves
+ * for its next call, which the engine doesn't use.
+ */
+final class CopyableRandom extends Random {
+    private static final long serialVersionUID = 1L;
+
+    private static final long MULTIPLIER = 0x5DEECE66DL;
+    private static final long ADDEND = 0xBL;
+    private static final long MASK = (1L << 48) - 1;
+
+    /**
+     * Set by setSeed, which Random's constructor calls; so it mustn't have
+     * an initializer, which would run afterwards.
+     */
+    private long seed;
+
+    /**
+     * @param seed the initial seed
+     */
+    CopyableRandom(long seed) {
+        super(seed);
+    }
+
+    /**
+     * @param source the Random to copy
+     */
+    CopyableRandom(CopyableRandom source) {
+        super(0);
+        this.seed = source.seed;
+    }
+
+    @Override
+    public synchronized void setSeed(long seed) {
+        super.setSeed(seed);
+        this.seed = (seed ^ MULTIPLIER) & MASK;
+    }
+
+    @Override
+    protected int next(int bits) {
+        seed = (seed * MULTIPLIER + ADDEND) & MASK;
+        return (int) (seed >>> (48 - bits));
+    }
+}
@@ -3,10 +3,12 @@ package battlecode.world;
 import battlecode.common.*;
 import battlecode.server.ErrorReporter;
 import battlecode.server.GameState;
+import battlecode.util.OrderedIntMap;
+import battlecode.util.RadiusStencil;
 import battlecode.util.SquareArray;
-import battlecode.world.signal.AutoSignalHandler;
 import battlecode.world.signal.InternalSignal;
 import battlecode.world.signal.SignalHandler;
+import battlecode.world.signal.SignalVisitor;
 import battlecode.serial.GameStats;
 import battlecode.server.Config;
 import battlecode.world.control.RobotControlProvider;
@@ -18,7 +20,7 @@ import java.util.*;
  * The primary implementation of the GameWorld interface for containing and
  * modifying the game map and the objects on it.
  */
-public class GameWorld implements SignalHandler {
+public class GameWorld implements SignalHandler, SignalVisitor {
     /**
      * The current round we're running.
      */
@@ -36,30 +38,121 @@ public class GameWorld implements SignalHandler {
     protected final List<InternalSignal> injectedInternalSignals;
     protected final long[][] teamMemory;
     protected final long[][] oldTeamMemory;
-    protected final Map<Integer, InternalRobot> gameObjectsByID;
-    protected final IDGenerator idGenerator;
+    protected final OrderedIntMap<InternalRobot> gameObjectsByID;
+    protected IDGenerator idGenerator;
 
     private final GameMap gameMap;
 
     private final RobotControlProvider controlProvider;
 
-    private final GameStats gameStats = new GameStats(); // end-of-game stats
+    private GameStats gameStats = new GameStats(); // end-of-game stats
 
     private double[] teamResources = new double[4];
 
+    /**
+     * A hash of the state of the world, kept up to date as it changes; see
+     * StateHash.
+     */
+    private long stateHash;
+
     private Map<Team, Set<InternalRobot>> baseArchons = new EnumMap<>(Team.class);
-    private final Map<MapLocation, InternalRobot> gameObjectsByLoc = new HashMap<>();
+
+    /**
+     * The robots on the map, indexed by their offset from the map origin.
+     */
+    private final SquareArray.Of<InternalRobot> gameObjectsByLoc;
+
+    /**
+     * Robots that have been placed off the map. This can't happen during
+     * normal play, but spawnRobot doesn't forbid it.
+     */
+    private final Map<MapLocation, InternalRobot> gameObjectsOffMap = new HashMap<>();
+
+    /**
+     * Canonical instances of the locations on the map.
+     */
+    private final MapLocationPool locationPool;
 
     private SquareArray.Double rubble;
     private SquareArray.Double parts;
 
+    /**
+     * For each column of the map, the rows that have parts. Lets part
+     * queries skip the (usually many) empty locations.
+     */
+    private BitSet[] partRows;
+
     private Map<Team, Map<Integer, Integer>> radio = new EnumMap<>(
             Team.class);
 
-    private Map<Team, Map<RobotType, Integer>> robotTypeCount = new EnumMap<>(
-            Team.class);
+    private final int[][] robotTypeCount =
+            new int[Team.values().length][RobotType.values().length];
     private int[] robotCount = new int[4];
-    private Random rand;
+
+    /**
+     * The total part cost of each team's robots, by team ordinal.
+     */
+    private final int[] partValue = new int[4];
+
+    /**
+     * Every archon in the world, in turn order. There are only ever a few,
+     * so per-team archon statistics are computed from this on demand.
+     */
+    private final ArrayList<InternalRobot> archons = new ArrayList<>();
+    private CopyableRandom rand;
+
+    /**
+     * The rng zombies draw their moves from. It's kept here rather than by
+     * the zombies' control provider so that snapshots capture it.
+     */
+    private CopyableRandom zombieRand;
+
+    /**
+     * The zombies each den has yet to spawn, by den ID and then type. Also
+     * kept here rather than by the zombies' control provider, for the same
+     * reason.
+     */
+    private final Map<Integer, Map<RobotType, Integer>> denQueues = new HashMap<>();
+
+    /**
+     * The number of robots spawned so far; used to stamp each robot with its
+     * position in the turn order.
+     */
+    private int spawnCount = 0;
+
+    /**
+     * The health, delays, infection and bytecode counts of every robot in
+     * the world, in turn order.
+     */
+    private final RobotTable robotTable = new RobotTable(64);
+
+    /**
+     * Whether getAllSignals reports every robot or only changed ones.
+     */
+    private boolean fullRobotState = false;
+
+    /**
+     * Broadcasts that have been sent but not yet delivered, in the order they
+     * were sent, by any number of robots; see flushBroadcasts.
+     */
+    private final ArrayList<BroadcastRun> pendingBroadcasts = new ArrayList<>();
+
+    /**
+     * Every location where a player-controlled robot has appeared or
+     * disappeared this round, in order; see playerPresenceChangedWithin.
+     */
+    private final ArrayList<MapLocation> playerPresenceChanges = new ArrayList<>();
+
+    /**
+     * Scratch list for getNearestPlayerControlled.
+     */
+    private final ArrayList<InternalRobot> nearestCandidates = new ArrayList<>();
+
+    /**
+     * Orders robots the same way gameObjectsByID does.
+     */
+    private static final Comparator<InternalRobot> SPAWN_ORDER =
+            (a, b) -> Integer.compare(a.getSpawnOrder(), b.getSpawnOrder());
 
     @SuppressWarnings("unchecked")
     public GameWorld(GameMap gm, RobotControlProvider cp,
@@ -69,7 +162,7 @@ public class GameWorld implements SignalHandler {
         currentRound = -1;
         teamAName = teamA;
         teamBName = teamB;
-        gameObjectsByID = new LinkedHashMap<>();
+        gameObjectsByID = new OrderedIntMap<>();
         currentInternalSignals = new ArrayList<>();
         injectedInternalSignals = new ArrayList<>();
         idGenerator = new IDGenerator(gm.getSeed());
@@ -82,25 +175,30 @@ public class GameWorld implements SignalHandler {
         radio.put(Team.A, new HashMap<>());
         radio.put(Team.B, new HashMap<>());
 
-        robotTypeCount.put(Team.A, new EnumMap<>(
-                RobotType.class));
-        robotTypeCount.put(Team.B, new EnumMap<>(
-                RobotType.class));
-        robotTypeCount.put(Team.NEUTRAL, new EnumMap<>(
-                RobotType.class));
-        robotTypeCount.put(Team.ZOMBIE, new EnumMap<>(
-                RobotType.class));
-
         baseArchons.put(Team.A, new HashSet<>());
         baseArchons.put(Team.B, new HashSet<>());
 
+        for (int t = 0; t < teamResources.length; t++) {
+            stateHash += StateHash.term(StateHash.RESOURCES, t, 0.0);
+        }
+        for (int t = 0; t < teamMemory.length; t++) {
+            for (int i = 0; i < teamMemory[t].length; i++) {
+                stateHash += StateHash.term(StateHash.MEMORY,
+                        memoryKey(t, i), 0L);
+            }
+        }
+
         adjustResources(Team.A, GameConstants.PARTS_INITIAL_AMOUNT);
         adjustResources(Team.B, GameConstants.PARTS_INITIAL_AMOUNT);
 
         this.rubble = new SquareArray.Double(gm.getWidth(), gm.getHeight());
         this.parts = new SquareArray.Double(gm.getWidth(), gm.getHeight());
+        this.partRows = new BitSet[gm.getWidth()];
+        this.gameObjectsByLoc = new SquareArray.Of<>(gm.getWidth(), gm.getHeight());
+        this.locationPool = new MapLocationPool(gm.getOrigin(), gm.getWidth(), gm.getHeight());
 
         for (int i = 0; i < gm.getWidth(); i++) {
+            partRows[i] = new BitSet(gm.getHeight());
             for (int j = 0; j < gm.getHeight(); j++) {
                 this.rubble.set(i, j,
                         gm.initialRubbleAtLocation(
@@ -114,6 +212,13 @@ public class GameWorld implements SignalHandler {
                                 j + gm.getOrigin().y
                         )
                 );
+                if (this.parts.get(i, j) > 0) {
+                    partRows[i].set(j);
+                }
+                stateHash += StateHash.term(StateHash.RUBBLE,
+                        cellKey(i, j), this.rubble.get(i, j));
+                stateHash += StateHash.term(StateHash.PARTS,
+                        cellKey(i, j), this.parts.get(i, j));
             }
         }
 
@@ -131,7 +236,8 @@ public class GameWorld implements SignalHandler {
             );
         }
         
-        rand = new Random(gameMap.getSeed());
+        rand = new CopyableRandom(gameMap.getSeed());
+        zombieRand = new CopyableRandom(gameMap.getSeed());
     }
 
     /**
@@ -153,14 +259,14 @@ public class GameWorld implements SignalHandler {
             this.processBeginningOfRound();
             this.controlProvider.roundStarted();
 
-            // We iterate through the IDs so that we avoid ConcurrentModificationExceptions
-            // of an iterator. Kinda gross, but whatever.
-            final int[] idsToRun = gameObjectsByID.keySet().stream()
-                    .mapToInt(i -> i)
-                    .toArray();
+            // Walk the robots by index: robots that die leave a hole we
+            // skip, and robots spawned this round land past the end and
+            // wait until next round.
+            gameObjectsByID.compact();
+            final int end = gameObjectsByID.end();
 
-            for (final int id : idsToRun) {
-                final InternalRobot robot = gameObjectsByID.get(id);
+            for (int i = 0; i < end; i++) {
+                final InternalRobot robot = gameObjectsByID.getAt(i);
                 if (robot == null) {
                     // Robot might have died earlier in the iteration; skip it
                     continue;
@@ -176,11 +282,12 @@ public class GameWorld implements SignalHandler {
                 // If the robot terminates but the death signal has not yet
                 // been visited:
                 if (this.controlProvider.getTerminated(robot) && gameObjectsByID
-                        .get(id) != null) {
+                        .getAt(i) != null) {
                     robot.suicide();
                 }
             }
 
+            this.flushBroadcasts();
             this.controlProvider.roundEnded();
             this.processEndOfRound();
 
@@ -211,6 +318,7 @@ public class GameWorld implements SignalHandler {
         clearAllSignals();
 
         visitSignal(injectedInternalSignal);
+        flushBroadcasts();
 
         return getAllSignals(false);
 
@@ -228,8 +336,25 @@ public class GameWorld implements SignalHandler {
         return gameMap;
     }
 
+    public MapLocationPool getLocationPool() {
+        return locationPool;
+    }
+
+    /**
+     * @return the table holding the numeric state of every robot
+     */
+    RobotTable getRobotTable() {
+        return robotTable;
+    }
+
     public InternalRobot getObject(MapLocation loc) {
-        return gameObjectsByLoc.get(loc);
+        if (!gameMap.onTheMap(loc)) {
+            return gameObjectsOffMap.isEmpty() ? null : gameObjectsOffMap.get(loc);
+        }
+        return gameObjectsByLoc.get(
+                loc.x - gameMap.getOrigin().x,
+                loc.y - gameMap.getOrigin().y
+        );
     }
 
     public InternalRobot getRobot(MapLocation loc) {
@@ -240,6 +365,56 @@ public class GameWorld implements SignalHandler {
         return gameObjectsByID.values();
     }
 
+    /**
+     * Get the robots that might lie within the given rectangle, in the same
+     * order as allObjects(). Bounds are inclusive map coordinates and are
+     * clipped to the map.
+     *
+     * If the rectangle covers more locations than there are robots, this
+     * returns every robot instead of walking the location index, so callers
+     * must still check each robot's location themselves.
+     *
+     * @param minX the smallest x coordinate to include
+     * @param minY the smallest y coordinate to include
+     * @param maxX the largest x coordinate to include
+     * @param maxY the largest y coordinate to include
+     * @return a superset of the robots inside the rectangle
+     */
+    public Collection<InternalRobot> getRobotsInBounds(int minX, int minY,
+            int maxX, int maxY) {
+        if (!gameObjectsOffMap.isEmpty()) {
+            return gameObjectsByID.values();
+        }
+
+        final int originX = gameMap.getOrigin().x;
+        final int originY = gameMap.getOrigin().y;
+        final int x0 = Math.max(minX, originX) - originX;
+        final int y0 = Math.max(minY, originY) - originY;
+        final int x1 = Math.min(maxX, originX + gameMap.getWidth() - 1) - originX;
+        final int y1 = Math.min(maxY, originY + gameMap.getHeight() - 1) - originY;
+
+        if (x0 > x1 || y0 > y1) {
+            return Collections.emptyList();
+        }
+        if ((long) (x1 - x0 + 1) * (y1 - y0 + 1) >= gameObjectsByID.size()) {
+            return gameObjectsByID.values();
+        }
+
+        final ArrayList<InternalRobot> robots = new ArrayList<>();
+        for (int y = y0; y <= y1; y++) {
+            for (int x = x0; x <= x1; x++) {
+                final InternalRobot robot = gameObjectsByLoc.get(x, y);
+                if (robot != null) {
+                    robots.add(robot);
+                }
+            }
+        }
+        if (robots.size() > 1) {
+            robots.sort(SPAWN_ORDER);
+        }
+        return robots;
+    }
+
     public InternalRobot[] getAllGameObjects() {
         return gameObjectsByID.values().toArray(
                 new InternalRobot[gameObjectsByID.size()]);
@@ -288,6 +463,11 @@ public class GameWorld implements SignalHandler {
     }
 
     public void setTeamMemory(Team t, int index, long state) {
+        final long key = memoryKey(t.ordinal(), index);
+        replaceStateHashTerm(
+                StateHash.term(StateHash.MEMORY, key,
+                        teamMemory[t.ordinal()][index]),
+                StateHash.term(StateHash.MEMORY, key, state));
         teamMemory[t.ordinal()][index] = state;
     }
 
@@ -295,7 +475,39 @@ public class GameWorld implements SignalHandler {
         long n = teamMemory[t.ordinal()][index];
         n &= ~mask;
         n |= (state & mask);
-        teamMemory[t.ordinal()][index] = n;
+        setTeamMemory(t, index, n);
+    }
+
+    /**
+     * A hash of everything about the world that determines how the rest of
+     * the match plays out: robot positions, health and delays, rubble and
+     * parts, team resources and team memory. Two runs of a match have the
+     * same hash at the end of a round iff (barring collisions) they agree
+     * on all of those. Kept up to date as the world changes, so getting it
+     * is free.
+     *
+     * @return the hash of the current state
+     */
+    public long getStateHash() {
+        return stateHash;
+    }
+
+    /**
+     * Replace one piece of state's term in the state hash.
+     *
+     * @param oldTerm the term for the old value, or 0 if it is new
+     * @param newTerm the term for the new value, or 0 if it is gone
+     */
+    void replaceStateHashTerm(long oldTerm, long newTerm) {
+        stateHash += newTerm - oldTerm;
+    }
+
+    private long cellKey(int x, int y) {
+        return (long) y * gameMap.getWidth() + x;
+    }
+
+    private long memoryKey(int team, int index) {
+        return (long) team * teamMemory[0].length + index;
     }
 
     public int getCurrentRound() {
@@ -330,11 +542,11 @@ public class GameWorld implements SignalHandler {
     public boolean canMove(MapLocation loc, RobotType type) {
         return gameMap.onTheMap(loc) && (getRubble(loc) < GameConstants
                 .RUBBLE_OBSTRUCTION_THRESH || type.ignoresRubble) &&
-                gameObjectsByLoc.get(loc) == null;
+                getObject(loc) == null;
     }
     
     public boolean isEmpty(MapLocation loc) {
-        return gameMap.onTheMap(loc) && gameObjectsByLoc.get(loc) == null;
+        return gameMap.onTheMap(loc) && getObject(loc) == null;
     }
 
     protected boolean canAttackSquare(InternalRobot ir, MapLocation loc) {
@@ -347,62 +559,124 @@ public class GameWorld implements SignalHandler {
         return d <= radius;
     }
 
-    // TODO: make a faster implementation of this
     public MapLocation[] getAllMapLocationsWithinRadiusSq(MapLocation center,
             int radiusSquared) {
-        ArrayList<MapLocation> locations = new ArrayList<>();
-
-        int radius = (int) Math.sqrt(radiusSquared);
-        radius = Math.min(radius, Math.max(GameConstants.MAP_MAX_HEIGHT,
-                GameConstants.MAP_MAX_WIDTH));
-
-        int minXPos = center.x - radius;
-        int maxXPos = center.x + radius;
-        int minYPos = center.y - radius;
-        int maxYPos = center.y + radius;
-
-        for (int x = minXPos; x <= maxXPos; x++) {
-            for (int y = minYPos; y <= maxYPos; y++) {
-                MapLocation loc = new MapLocation(x, y);
-                if (gameMap.onTheMap(loc)
-                        && loc.distanceSquaredTo(center) <= radiusSquared)
-                    locations.add(loc);
-            }
-        }
+        final ArrayList<MapLocation> locations = new ArrayList<>();
+        forEachMapLocationWithinRadiusSq(center, radiusSquared,
+                (x, y) -> locations.add(locationPool.get(x, y)));
+        return locations.toArray(new MapLocation[locations.size()]);
+    }
 
+    /**
+     * @param center the center of the search
+     * @param radiusSquared the radius of the search
+     * @return every on-map location within the radius that has parts, in the
+     *         same order as getAllMapLocationsWithinRadiusSq
+     */
+    public MapLocation[] getPartLocationsWithinRadiusSq(MapLocation center,
+            int radiusSquared) {
+        final int originX = gameMap.getOrigin().x;
+        final int originY = gameMap.getOrigin().y;
+        final ArrayList<MapLocation> locations = new ArrayList<>();
+        forEachMapColumnWithinRadiusSq(center, radiusSquared, (x, y0, y1) -> {
+            final BitSet rows = partRows[x - originX];
+            for (int j = rows.nextSetBit(y0 - originY);
+                 j >= 0 && j <= y1 - originY;
+                 j = rows.nextSetBit(j + 1)) {
+                locations.add(locationPool.get(x, j + originY));
+            }
+        });
         return locations.toArray(new MapLocation[locations.size()]);
     }
 
-    // TODO: make a faster implementation of this
+    /**
+     * Visit every on-map location within a radius of center, ordered by x
+     * and then by y. Radii are capped at the largest map dimension, as
+     * though the map were never bigger than that.
+     *
+     * @param center the center of the search
+     * @param radiusSquared the radius of the search
+     * @param visitor called with the coordinates of each location
+     */
+    private void forEachMapLocationWithinRadiusSq(MapLocation center,
+            int radiusSquared, RadiusStencil.CellVisitor visitor) {
+        forEachMapColumnWithinRadiusSq(center, radiusSquared, (x, y0, y1) -> {
+            for (int y = y0; y <= y1; y++) {
+                visitor.visit(x, y);
+            }
+        });
+    }
+
+    /**
+     * Like forEachMapLocationWithinRadiusSq, but visit each column of
+     * locations as one run of y coordinates.
+     *
+     * @param center the center of the search
+     * @param radiusSquared the radius of the search
+     * @param visitor called with each column, in order of increasing x
+     */
+    private void forEachMapColumnWithinRadiusSq(MapLocation center,
+            int radiusSquared, RadiusStencil.ColumnVisitor visitor) {
+        if (radiusSquared < 0) {
+            return;
+        }
+        final int limit = Math.max(GameConstants.MAP_MAX_HEIGHT,
+                GameConstants.MAP_MAX_WIDTH);
+        final MapLocation origin = gameMap.getOrigin();
+
+        RadiusStencil.forEachColumnClipped(
+                center.x, center.y,
+                Math.min(radiusSquared, RadiusStencil.MAX_RADIUS_SQUARED),
+                Math.max(origin.x, center.x - limit),
+                Math.max(origin.y, center.y - limit),
+                Math.min(origin.x + gameMap.getWidth() - 1, center.x + limit),
+                Math.min(origin.y + gameMap.getHeight() - 1, center.y + limit),
+                visitor
+        );
+    }
+
+    /**
+     * Get all robots within a radius of a location, in turn order.
+     * Walks the location index over the disc when it holds fewer locations
+     * than there are robots, and scans all robots otherwise.
+     *
+     * @param center the center of the search
+     * @param radiusSquared the radius of the search
+     * @return the robots within the radius
+     */
     protected InternalRobot[] getAllRobotsWithinRadiusSq(MapLocation center,
             int radiusSquared) {
         if (radiusSquared == 0) {
-            if (getRobot(center) == null) {
+            final InternalRobot robot = getRobot(center);
+            if (robot == null) {
                 return new InternalRobot[0];
             } else {
-                return new InternalRobot[]{ getRobot(center) };
+                return new InternalRobot[]{ robot };
             }
-        } else if (radiusSquared < 16) {
-            MapLocation[] locs = getAllMapLocationsWithinRadiusSq(center,
-                    radiusSquared);
-            ArrayList<InternalRobot> robots = new ArrayList<>();
-            for (MapLocation loc : locs) {
-                InternalRobot res = getRobot(loc);
-                if (res != null) {
-                    robots.add(res);
-                }
-            }
-            return robots.toArray(new InternalRobot[robots.size()]);
         }
 
-        ArrayList<InternalRobot> robots = new ArrayList<>();
-
-        for (InternalRobot o : gameObjectsByID.values()) {
-            if (o == null)
-                continue;
-            if (o.getLocation() != null
-                    && o.getLocation().distanceSquaredTo(center) <= radiusSquared)
-                robots.add(o);
+        final ArrayList<InternalRobot> robots = new ArrayList<>();
+
+        if (gameObjectsOffMap.isEmpty()
+                && radiusSquared <= RadiusStencil.MAX_RADIUS_SQUARED
+                && RadiusStencil.count(radiusSquared) < gameObjectsByID.size()) {
+            final int originX = gameMap.getOrigin().x;
+            final int originY = gameMap.getOrigin().y;
+            forEachMapLocationWithinRadiusSq(center, radiusSquared, (x, y) -> {
+                final InternalRobot robot = gameObjectsByLoc.get(x - originX, y - originY);
+                if (robot != null) {
+                    robots.add(robot);
+                }
+            });
+            if (robots.size() > 1) {
+                robots.sort(SPAWN_ORDER);
+            }
+        } else {
+            for (InternalRobot o : gameObjectsByID.values()) {
+                if (o.getLocation() != null
+                        && o.getLocation().distanceSquaredTo(center) <= radiusSquared)
+                    robots.add(o);
+            }
         }
 
         return robots.toArray(new InternalRobot[robots.size()]);
@@ -416,27 +690,178 @@ public class GameWorld implements SignalHandler {
      *         if there are no player-controlled robots
      */
     public RobotInfo getNearestPlayerControlled(MapLocation loc) {
-        int distSq = Integer.MAX_VALUE;
-        ArrayList<MapLocation> closest = null;
-        for (InternalRobot robot : gameObjectsByID.values()) {
-            if (!robot.getTeam().isPlayer()) continue;
-            
-            MapLocation newLoc = robot.getLocation();
-            int newDistSq = newLoc.distanceSquaredTo(loc);
-            if (newDistSq < distSq) {
-                closest = new ArrayList<MapLocation>();
-                closest.add(newLoc);
-                distSq = newDistSq;
-            } else if (newDistSq == distSq) {
-                closest.add(newLoc);
+        findNearestPlayerControlled(loc, nearestCandidates);
+        return pickNearestPlayerControlled(nearestCandidates);
+    }
+
+    /**
+     * Find the player-controlled robots closest to a location, for
+     * pickNearestPlayerControlled to choose between. It doesn't modify the
+     * world, so it can be called from several threads at once as long as
+     * nothing else is changing the world and each thread has its own
+     * scratch space.
+     *
+     * @param loc the location to search around
+     * @param closest cleared, then receives every player-controlled robot
+     *                at the smallest distance, in turn order
+     */
+    public void findNearestPlayerControlled(MapLocation loc,
+            ArrayList<InternalRobot> closest) {
+        closest.clear();
+        if (getRobotCount(Team.A) + getRobotCount(Team.B) == 0) {
+            return;
+        }
+
+        if (!findNearestPlayerControlledNearby(loc, closest)) {
+            // The ring search gave up; fall back to looking at everyone.
+            closest.clear();
+            int distSq = Integer.MAX_VALUE;
+            for (InternalRobot robot : gameObjectsByID.values()) {
+                if (!robot.getTeam().isPlayer()) continue;
+
+                int newDistSq = robot.getLocation().distanceSquaredTo(loc);
+                if (newDistSq < distSq) {
+                    closest.clear();
+                    closest.add(robot);
+                    distSq = newDistSq;
+                } else if (newDistSq == distSq) {
+                    closest.add(robot);
+                }
             }
+        } else if (closest.size() > 1) {
+            // Ties are broken in turn order, same as the full scan.
+            closest.sort(SPAWN_ORDER);
         }
+    }
 
-        if (closest == null) {
+    /**
+     * Choose between the robots findNearestPlayerControlled found, drawing
+     * once from the world's rng unless there are none. Zombies' turns must
+     * call this in turn order.
+     *
+     * @param closest the robots findNearestPlayerControlled found
+     * @return the info of the chosen robot, or null if there were none
+     */
+    public RobotInfo pickNearestPlayerControlled(List<InternalRobot> closest) {
+        if (closest.isEmpty()) {
             return null;
         }
-        
-        return gameObjectsByLoc.get(closest.get(rand.nextInt(closest.size()))).getRobotInfo();
+        return closest.get(rand.nextInt(closest.size())).getRobotInfo();
+    }
+
+    /**
+     * @return the rng zombies draw their moves from
+     */
+    public Random getZombieRandom() {
+        return zombieRand;
+    }
+
+    /**
+     * @param denID the ID of a zombie den
+     * @return the zombies the den has yet to spawn, by type; starts out
+     *         empty, and is changed in place
+     */
+    public Map<RobotType, Integer> getDenQueue(int denID) {
+        return denQueues.computeIfAbsent(denID,
+                id -> new EnumMap<>(RobotType.class));
+    }
+
+    /**
+     * @return a mark for playerPresenceChangedWithin; only valid until the
+     *         end of the round
+     */
+    public int getPlayerPresenceMark() {
+        return playerPresenceChanges.size();
+    }
+
+    /**
+     * Check whether a player-controlled robot has appeared at or left any
+     * location within some distance of a point since a mark was taken.
+     * If not, findNearestPlayerControlled on that point can't have changed
+     * its answer, as long as the answer was within that distance.
+     *
+     * @param center the point to check around
+     * @param radiusSquared how far from center to look
+     * @param mark a mark from getPlayerPresenceMark, taken this round
+     * @return whether there has been such a change
+     */
+    public boolean playerPresenceChangedWithin(MapLocation center,
+            int radiusSquared, int mark) {
+        for (int i = mark; i < playerPresenceChanges.size(); i++) {
+            if (playerPresenceChanges.get(i).distanceSquaredTo(center)
+                    <= radiusSquared) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void notePlayerPresenceChange(InternalRobot robot,
+            MapLocation loc) {
+        if (loc != null && robot.getTeam().isPlayer()) {
+            playerPresenceChanges.add(loc);
+        }
+    }
+
+    /**
+     * Search the location index in square rings of increasing size around
+     * loc for the closest player-controlled robots. Stops once no unvisited
+     * ring can hold anything closer, or once it would have visited more
+     * locations than there are robots, at which point a full scan is cheaper.
+     *
+     * @param loc the location to search around
+     * @param closest receives every player-controlled robot at the smallest
+     *                distance found, in no particular order
+     * @return whether the search completed; if false, closest is incomplete
+     */
+    private boolean findNearestPlayerControlledNearby(MapLocation loc,
+            ArrayList<InternalRobot> closest) {
+        if (!gameObjectsOffMap.isEmpty()) {
+            return false;
+        }
+
+        final int originX = gameMap.getOrigin().x;
+        final int originY = gameMap.getOrigin().y;
+        final int width = gameMap.getWidth();
+        final int height = gameMap.getHeight();
+        final int cx = loc.x - originX;
+        final int cy = loc.y - originY;
+        final int population = gameObjectsByID.size();
+
+        int distSq = Integer.MAX_VALUE;
+        for (int d = 0; ; d++) {
+            if ((long) d * d > distSq) {
+                return true;
+            }
+            if ((long) (2 * d + 1) * (2 * d + 1) > population) {
+                return false;
+            }
+
+            final int y0 = Math.max(cy - d, 0);
+            final int y1 = Math.min(cy + d, height - 1);
+            for (int y = y0; y <= y1; y++) {
+                // Interior rows only touch the two ends of the ring.
+                final int step = (y == cy - d || y == cy + d) ? 1 : 2 * d;
+                for (int x = cx - d; x <= cx + d; x += step) {
+                    if (x < 0 || x >= width) {
+                        continue;
+                    }
+                    final InternalRobot robot = gameObjectsByLoc.get(x, y);
+                    if (robot == null || !robot.getTeam().isPlayer()) {
+                        continue;
+                    }
+
+                    final int newDistSq = robot.getLocation().distanceSquaredTo(loc);
+                    if (newDistSq < distSq) {
+                        closest.clear();
+                        closest.add(robot);
+                        distSq = newDistSq;
+                    } else if (newDistSq == distSq) {
+                        closest.add(robot);
+                    }
+                }
+            }
+        }
     }
 
     // *********************************
@@ -446,16 +871,159 @@ public class GameWorld implements SignalHandler {
     // should only be called by InternalRobot.setLocation
     public void notifyMovingObject(InternalRobot o, MapLocation oldLoc,
             MapLocation newLoc) {
+        flushBroadcasts();
+        notePlayerPresenceChange(o, oldLoc);
+        notePlayerPresenceChange(o, newLoc);
         if (oldLoc != null) {
-            if (gameObjectsByLoc.get(oldLoc) != o) {
+            if (getObject(oldLoc) != o) {
                 ErrorReporter
                         .report("Internal Error: invalid oldLoc in notifyMovingObject");
                 return;
             }
-            gameObjectsByLoc.remove(oldLoc);
+            setObject(oldLoc, null);
         }
         if (newLoc != null) {
-            gameObjectsByLoc.put(newLoc, o);
+            setObject(newLoc, o);
+        }
+    }
+
+    /**
+     * Store a robot in the location index.
+     *
+     * @param loc the location to store at.
+     * @param o the robot to store, or null to clear the location.
+     */
+    private void setObject(MapLocation loc, InternalRobot o) {
+        if (!gameMap.onTheMap(loc)) {
+            if (o == null) {
+                gameObjectsOffMap.remove(loc);
+            } else {
+                gameObjectsOffMap.put(loc, o);
+            }
+            return;
+        }
+        gameObjectsByLoc.set(
+                loc.x - gameMap.getOrigin().x,
+                loc.y - gameMap.getOrigin().y,
+                o
+        );
+    }
+
+    // *********************************
+    // ****** SNAPSHOTS ****************
+    // *********************************
+
+    /**
+     * Capture the state of the world between rounds, so that restore can
+     * return to it later. Cheap enough to take every few rounds: it copies
+     * the rubble and parts grids, the robot table and the other, small,
+     * pieces of state, and leaves the world untouched.
+     *
+     * @return a snapshot of the world
+     */
+    public synchronized Snapshot snapshot() {
+        flushBroadcasts();
+        return new Snapshot(this);
+    }
+
+    /**
+     * Return the world to the state it was in when a snapshot was taken.
+     * The snapshot is left unchanged, so it can be restored again.
+     *
+     * Every robot in the world is replaced by a new InternalRobot; the
+     * control provider is told that the old ones were killed and the new
+     * ones spawned, so engine-only replays can use any provider that
+     * doesn't keep per-match state of its own. Signals that haven't been
+     * collected yet are discarded, and the next getAllSignals reports every
+     * robot in full.
+     *
+     * @param snapshot a snapshot of this world, taken by snapshot()
+     */
+    public synchronized void restore(Snapshot snapshot) {
+        if (snapshot.world != this) {
+            throw new IllegalArgumentException(
+                    "Snapshot was taken of a different world");
+        }
+
+        pendingBroadcasts.clear();
+        currentInternalSignals.clear();
+        injectedInternalSignals.clear();
+        playerPresenceChanges.clear();
+
+        final Object[] oldRobots = gameObjectsByID.toArray();
+        for (int i = oldRobots.length - 1; i >= 0; i--) {
+            final InternalRobot robot = (InternalRobot) oldRobots[i];
+            setObject(robot.getLocation(), null);
+            robot.detach();
+            controlProvider.robotKilled(robot);
+        }
+        gameObjectsByID.clear();
+        archons.clear();
+
+        currentRound = snapshot.round;
+        running = snapshot.running;
+        winner = snapshot.winner;
+        gameStats = new GameStats(snapshot.gameStats);
+        System.arraycopy(snapshot.teamResources, 0, teamResources, 0,
+                teamResources.length);
+        for (int t = 0; t < teamMemory.length; t++) {
+            System.arraycopy(snapshot.teamMemory[t], 0, teamMemory[t], 0,
+                    teamMemory[t].length);
+        }
+        for (int t = 0; t < oldTeamMemory.length; t++) {
+            System.arraycopy(snapshot.oldTeamMemory[t], 0, oldTeamMemory[t],
+                    0, oldTeamMemory[t].length);
+        }
+        for (Team t : snapshot.radio.keySet()) {
+            radio.put(t, new HashMap<>(snapshot.radio.get(t)));
+        }
+        denQueues.clear();
+        for (Map.Entry<Integer, Map<RobotType, Integer>> queue
+                : snapshot.denQueues.entrySet()) {
+            denQueues.put(queue.getKey(), new EnumMap<>(queue.getValue()));
+        }
+        rubble = new SquareArray.Double(snapshot.rubble);
+        parts = new SquareArray.Double(snapshot.parts);
+        for (int i = 0; i < partRows.length; i++) {
+            partRows[i] = (BitSet) snapshot.partRows[i].clone();
+        }
+        idGenerator = new IDGenerator(snapshot.idGenerator);
+        rand = new CopyableRandom(snapshot.rand);
+        zombieRand = new CopyableRandom(snapshot.zombieRand);
+        spawnCount = snapshot.spawnCount;
+        for (int t = 0; t < robotTypeCount.length; t++) {
+            System.arraycopy(snapshot.robotTypeCount[t], 0,
+                    robotTypeCount[t], 0, robotTypeCount[t].length);
+        }
+        System.arraycopy(snapshot.robotCount, 0, robotCount, 0,
+                robotCount.length);
+        System.arraycopy(snapshot.partValue, 0, partValue, 0,
+                partValue.length);
+
+        final InternalRobot[] robots =
+                new InternalRobot[snapshot.robots.length];
+        for (int i = 0; i < robots.length; i++) {
+            robots[i] = snapshot.robots[i].restore(this);
+            gameObjectsByID.put(robots[i].getID(), robots[i]);
+            setObject(robots[i].getLocation(), robots[i]);
+            if (robots[i].getType() == RobotType.ARCHON) {
+                archons.add(robots[i]);
+            }
+        }
+        robotTable.restoreRows(snapshot.table);
+        for (Team t : snapshot.baseArchons.keySet()) {
+            final Set<InternalRobot> archonSet = new HashSet<>();
+            for (int id : snapshot.baseArchons.get(t)) {
+                archonSet.add(gameObjectsByID.get(id));
+            }
+            baseArchons.put(t, archonSet);
+        }
+
+        // The new robots hashed themselves before their rows were filled in.
+        stateHash = snapshot.stateHash;
+
+        for (InternalRobot robot : robots) {
+            controlProvider.robotSpawned(robot);
         }
     }
 
@@ -477,26 +1045,66 @@ public class GameWorld implements SignalHandler {
 
     // only returns active robots
     public int getRobotTypeCount(Team team, RobotType type) {
-        if (robotTypeCount.get(team).containsKey(type)) {
-            return robotTypeCount.get(team).get(type);
-        } else {
-            return 0;
-        }
+        return robotTypeCount[team.ordinal()][type.ordinal()];
     }
 
     public void incrementRobotTypeCount(Team team, RobotType type) {
-        if (robotTypeCount.get(team).containsKey(type)) {
-            robotTypeCount.get(team).put(type,
-                    robotTypeCount.get(team).get(type) + 1);
-        } else {
-            robotTypeCount.get(team).put(type, 1);
-        }
+        partValue[team.ordinal()] += type.partCost;
+        robotTypeCount[team.ordinal()][type.ordinal()]++;
     }
     
     // decrement from active robots (used during TTM <-> Turret transform)
     public void decrementRobotTypeCount(Team team, RobotType type) {
-        Integer currentCount = getRobotTypeCount(team, type);
-        robotTypeCount.get(team).put(type,currentCount - 1);
+        partValue[team.ordinal()] -= type.partCost;
+        robotTypeCount[team.ordinal()][type.ordinal()]--;
+    }
+
+    /**
+     * @return a copy of every robot type count, indexed by team ordinal and
+     *         then robot type ordinal
+     */
+    public int[][] getRobotTypeCounts() {
+        final int[][] counts = new int[robotTypeCount.length][];
+        for (int t = 0; t < counts.length; t++) {
+            counts[t] = robotTypeCount[t].clone();
+        }
+        return counts;
+    }
+
+    /**
+     * @param team a team
+     * @return the total part cost of the team's robots
+     */
+    public int getPartValue(Team team) {
+        return partValue[team.ordinal()];
+    }
+
+    /**
+     * @param team a team
+     * @return the total health of the team's archons
+     */
+    public double getArchonHealth(Team team) {
+        double health = 0.0;
+        for (InternalRobot archon : archons) {
+            if (archon.getTeam() == team) {
+                health += archon.getHealthLevel();
+            }
+        }
+        return health;
+    }
+
+    /**
+     * @param team a team
+     * @return the highest ID of the team's archons, or 0 if it has none
+     */
+    public int getHighestArchonID(Team team) {
+        int highest = 0;
+        for (InternalRobot archon : archons) {
+            if (archon.getTeam() == team) {
+                highest = Math.max(highest, archon.getID());
+            }
+        }
+        return highest;
     }
 
     // *********************************
@@ -513,8 +1121,17 @@ public class GameWorld implements SignalHandler {
     }
     
     public void alterRubble(MapLocation loc, double amount) {
-        rubble.set(loc.x - gameMap.getOrigin().x, loc.y - gameMap.getOrigin().y,
-                Math.max(0.0, amount));
+        if (!gameMap.onTheMap(loc)) {
+            return;
+        }
+        final double oldRubble = getRubble(loc);
+        final int x = loc.x - gameMap.getOrigin().x;
+        final int y = loc.y - gameMap.getOrigin().y;
+        rubble.set(x, y, Math.max(0.0, amount));
+        replaceStateHashTerm(
+                StateHash.term(StateHash.RUBBLE, cellKey(x, y), oldRubble),
+                StateHash.term(StateHash.RUBBLE, cellKey(x, y),
+                        rubble.get(x, y)));
     }
 
     // *********************************
@@ -533,13 +1150,25 @@ public class GameWorld implements SignalHandler {
     public double takeParts(MapLocation loc) { // Remove parts from location
         double prevVal = getParts(loc);
 
-        parts.set(loc.x - gameMap.getOrigin().x, loc.y - gameMap.getOrigin().y,
-                0.0);
+        if (prevVal > 0) {
+            final int x = loc.x - gameMap.getOrigin().x;
+            final int y = loc.y - gameMap.getOrigin().y;
+            parts.set(x, y, 0.0);
+            partRows[x].clear(y);
+            replaceStateHashTerm(
+                    StateHash.term(StateHash.PARTS, cellKey(x, y), prevVal),
+                    StateHash.term(StateHash.PARTS, cellKey(x, y), 0.0));
+        }
         return prevVal;
     }
 
     protected void adjustResources(Team t, double amount) {
+        final double old = teamResources[t.ordinal()];
         teamResources[t.ordinal()] += amount;
+        replaceStateHashTerm(
+                StateHash.term(StateHash.RESOURCES, t.ordinal(), old),
+                StateHash.term(StateHash.RESOURCES, t.ordinal(),
+                        teamResources[t.ordinal()]));
     }
 
     public double resources(Team t) {
@@ -581,6 +1210,7 @@ public class GameWorld implements SignalHandler {
 
     public void processBeginningOfRound() {
         currentRound++;
+        playerPresenceChanges.clear();
 
         // process all gameobjects
         for (InternalRobot gameObject : gameObjectsByID.values()) {
@@ -618,13 +1248,18 @@ public class GameWorld implements SignalHandler {
             gameObject.processEndOfRound();
         }
 
+        gameStats.addRobotTypeCounts(getRobotTypeCounts());
+
+        // Close up the rows of the robots that died this round.
+        robotTable.compact();
+
         // free parts
-        teamResources[Team.A.ordinal()] += Math.max(0.0, GameConstants
+        adjustResources(Team.A, Math.max(0.0, GameConstants
                 .ARCHON_PART_INCOME - GameConstants.PART_INCOME_UNIT_PENALTY
-                * getRobotCount(Team.A));
-        teamResources[Team.B.ordinal()] += Math.max(0.0, GameConstants
+                * getRobotCount(Team.A)));
+        adjustResources(Team.B, Math.max(0.0, GameConstants
                 .ARCHON_PART_INCOME - GameConstants.PART_INCOME_UNIT_PENALTY
-                * getRobotCount(Team.B));
+                * getRobotCount(Team.B)));
 
         // Add signals for team resources
         for (final Team team : Team.values()) {
@@ -638,31 +1273,20 @@ public class GameWorld implements SignalHandler {
                             - getRobotTypeCount(Team.B, RobotType.ARCHON),
                     DominationFactor.PWNED))) {
                 // tiebreak by total Archon health
+                // (summed in turn order, as the difference, so that equal
+                // totals come out exactly equal)
                 double archonDiff = 0.0;
-                double partsDiff = resources(Team.A) - resources(Team.B);
-                int highestAArchonID = 0;
-                int highestBArchonID = 0;
-                InternalRobot[] objs = getAllGameObjects();
-                for (InternalRobot obj : objs) {
-                    if (obj == null) continue;
-
-                    if (obj.getTeam() == Team.A) {
-                        partsDiff += obj.getType().partCost;
-                    } else if (obj.getTeam() == Team.B) {
-                        partsDiff -= obj.getType().partCost;
-                    }
-                    if (obj.getType() == RobotType.ARCHON) {
-                        if (obj.getTeam() == Team.A) {
-                            archonDiff += obj.getHealthLevel();
-                            highestAArchonID = Math.max(highestAArchonID,
-                                    obj.getID());
-                        } else if (obj.getTeam() == Team.B) {
-                            archonDiff -= obj.getHealthLevel();
-                            highestBArchonID = Math.max(highestBArchonID,
-                                    obj.getID());
-                        }
+                for (InternalRobot archon : archons) {
+                    if (archon.getTeam() == Team.A) {
+                        archonDiff += archon.getHealthLevel();
+                    } else if (archon.getTeam() == Team.B) {
+                        archonDiff -= archon.getHealthLevel();
                     }
                 }
+                double partsDiff = resources(Team.A) - resources(Team.B)
+                        + (getPartValue(Team.A) - getPartValue(Team.B));
+                int highestAArchonID = getHighestArchonID(Team.A);
+                int highestBArchonID = getHighestArchonID(Team.B);
 
                 // total part cost of units + part stockpile
                 if (!(setWinnerIfNonzero(archonDiff, DominationFactor.OWNED))
@@ -684,33 +1308,104 @@ public class GameWorld implements SignalHandler {
         }
     }
 
-    public InternalSignal[] getAllSignals(boolean includeBytecodesUsedSignal) {
-        ArrayList<InternalRobot> allRobots = new ArrayList<>();
-        for (InternalRobot obj : gameObjectsByID.values()) {
-            if (obj == null)
-                continue;
-            allRobots.add(obj);
+    /**
+     * Choose what the per-robot signals from getAllSignals cover.
+     *
+     * By default, BytecodesUsed, RobotDelay and Infection signals only
+     * include robots whose values changed since they were last reported,
+     * so their size follows how busy the robots are rather than how many
+     * there are. With full robot state, they include every robot every
+     * time, for clients that can't keep track of values between rounds.
+     *
+     * @param fullRobotState whether to report every robot every round
+     */
+    public void setFullRobotState(boolean fullRobotState) {
+        this.fullRobotState = fullRobotState;
+    }
+
+    /**
+     * @param flag one of the RobotTable.DIRTY_ flags
+     * @return the rows of the robot table to report for that kind of state
+     */
+    private int[] reportedSlots(int flag) {
+        if (!fullRobotState) {
+            return robotTable.dirtySlots(flag);
+        }
+        final int[] slots = new int[robotTable.size()];
+        for (int i = 0; i < slots.length; i++) {
+            slots[i] = i;
+        }
+        return slots;
+    }
+
+    private static int[] gather(int[] column, int[] slots) {
+        final int[] result = new int[slots.length];
+        for (int i = 0; i < slots.length; i++) {
+            result[i] = column[slots[i]];
         }
+        return result;
+    }
+
+    private static double[] gather(double[] column, int[] slots) {
+        final double[] result = new double[slots.length];
+        for (int i = 0; i < slots.length; i++) {
+            result[i] = column[slots[i]];
+        }
+        return result;
+    }
 
-        InternalRobot[] robots = allRobots.toArray(new InternalRobot[allRobots.size()]);
+    public InternalSignal[] getAllSignals(boolean includeBytecodesUsedSignal) {
+        // Read the per-robot signals straight out of the robot table;
+        // its rows are in the same order as gameObjectsByID.
+        final RobotTable table = robotTable;
+        int reported = RobotTable.DIRTY_DELAYS | RobotTable.DIRTY_INFECTION
+                | RobotTable.DIRTY_HEALTH | RobotTable.DIRTY_NEW;
 
         if (includeBytecodesUsedSignal) {
-            currentInternalSignals.add(new BytecodesUsedSignal(robots));
+            reported |= RobotTable.DIRTY_BYTECODES;
+            final int[] slots = reportedSlots(RobotTable.DIRTY_BYTECODES);
+            if (fullRobotState || slots.length > 0) {
+                currentInternalSignals.add(new BytecodesUsedSignal(
+                        gather(table.ids, slots),
+                        gather(table.bytecodesUsed, slots)));
+            }
         }
-        currentInternalSignals.add(new RobotDelaySignal(robots));
-        currentInternalSignals.add(new InfectionSignal(robots));
 
-        HealthChangeSignal healthChange = new HealthChangeSignal(robots);
+        int[] slots = reportedSlots(RobotTable.DIRTY_DELAYS);
+        if (fullRobotState || slots.length > 0) {
+            currentInternalSignals.add(new RobotDelaySignal(
+                    gather(table.ids, slots),
+                    gather(table.coreDelay, slots),
+                    gather(table.weaponDelay, slots)));
+        }
 
-        // Reset health levels.
-        for (final InternalRobot robot : robots) {
-            robot.clearHealthChanged();
+        slots = reportedSlots(RobotTable.DIRTY_INFECTION);
+        if (fullRobotState || slots.length > 0) {
+            currentInternalSignals.add(new InfectionSignal(
+                    gather(table.ids, slots),
+                    gather(table.zombieInfectedTurns, slots),
+                    gather(table.viperInfectedTurns, slots)));
         }
 
-        if (healthChange.getRobotIDs().length > 0) {
-            currentInternalSignals.add(healthChange);
+        // Health is always sent as a delta, plus the health of robots in
+        // their first few rounds, changed or not.
+        slots = table.dirtySlots(RobotTable.DIRTY_HEALTH | RobotTable.DIRTY_NEW);
+        int changed = 0;
+        for (int slot : slots) {
+            if ((table.dirty[slot] & RobotTable.DIRTY_HEALTH) != 0
+                    || table.roundsAlive[slot] <= RobotTable.NEW_ROUNDS) {
+                slots[changed++] = slot;
+            }
+        }
+        slots = Arrays.copyOf(slots, changed);
+        if (slots.length > 0) {
+            currentInternalSignals.add(new HealthChangeSignal(
+                    gather(table.ids, slots),
+                    gather(table.healthLevel, slots)));
         }
 
+        table.clearDirty(reported);
+
         return currentInternalSignals.toArray(new InternalSignal[currentInternalSignals.size()]);
     }
 
@@ -718,13 +1413,11 @@ public class GameWorld implements SignalHandler {
     // SIGNAL HANDLER METHODS
     // ******************************
 
-    SignalHandler signalHandler = new AutoSignalHandler(this);
-
     public void visitSignal(InternalSignal s) {
-        signalHandler.visitSignal(s);
+        s.accept(this);
     }
 
-    @SuppressWarnings("unused")
+    @Override
     public void visitActivationSignal(ActivationSignal s) {
         InternalRobot activator = getObjectByID(s.getRobotID());
         MapLocation targetLoc = s.getLoc();
@@ -742,7 +1435,7 @@ public class GameWorld implements SignalHandler {
         );
     }
 
-    @SuppressWarnings("unused")
+    @Override
     public void visitAttackSignal(AttackSignal s) {
         InternalRobot attacker = getObjectByID(s.getRobotID());
 
@@ -797,19 +1490,153 @@ public class GameWorld implements SignalHandler {
         addSignal(s);
     }
 
-    @SuppressWarnings("unused")
+    /**
+     * Pending broadcasts sent one after another by one robot from one place.
+     */
+    private static final class BroadcastRun {
+        final InternalRobot sender;
+        final MapLocation location;
+        final ArrayList<BroadcastSignal> signals = new ArrayList<>();
+
+        /**
+         * The largest radius of any of the signals.
+         */
+        int radiusSquared;
+
+        BroadcastRun(InternalRobot sender, MapLocation location) {
+            this.sender = sender;
+            this.location = location;
+        }
+
+        void add(BroadcastSignal s) {
+            if (signals.isEmpty() || s.getRadius() > radiusSquared) {
+                radiusSquared = s.getRadius();
+            }
+            signals.add(s);
+        }
+
+        /**
+         * Give a robot the signals that reach it, in the order they were
+         * sent.
+         */
+        void deliver(InternalRobot receiver) {
+            final int distSq = receiver.getLocation().distanceSquaredTo(location);
+            if (distSq > radiusSquared) {
+                return;
+            }
+            for (BroadcastSignal s : signals) {
+                if (distSq <= s.getRadius()) {
+                    receiver.receiveSignal(s.getSignal());
+                }
+            }
+        }
+    }
+
+    /**
+     * Deliver every pending broadcast.
+     *
+     * Broadcasts are held back so that the robots sending signals in a
+     * stretch of turns, from one robot or from many, only pay for one
+     * search for receivers between them. They must be delivered before
+     * anything that could change who receives them, or before anyone could
+     * observe that they haven't arrived yet: i.e. before any robot moves,
+     * spawns or dies, before a signal queue is read, and at the end of every
+     * round. Each receiver then gets exactly the signals, in exactly the
+     * order, that immediate delivery would have given it.
+     *
+     * When the senders are close together, one walk over the box around all
+     * of their discs finds every receiver. When they're spread out, and that
+     * box would hold more locations than their discs' boxes together, each
+     * sender's disc is searched on its own instead, in the order they sent.
+     */
+    public void flushBroadcasts() {
+        if (pendingBroadcasts.isEmpty()) {
+            return;
+        }
+
+        final MapLocation origin = gameMap.getOrigin();
+        final int mapMaxX = origin.x + gameMap.getWidth() - 1;
+        final int mapMaxY = origin.y + gameMap.getHeight() - 1;
+        int minX = Integer.MAX_VALUE;
+        int minY = Integer.MAX_VALUE;
+        int maxX = Integer.MIN_VALUE;
+        int maxY = Integer.MIN_VALUE;
+        long separateArea = 0;
+        for (BroadcastRun run : pendingBroadcasts) {
+            final int reach = (int) Math.sqrt(Math.max(run.radiusSquared, 0));
+            final int x0 = Math.max(origin.x, run.location.x - reach);
+            final int y0 = Math.max(origin.y, run.location.y - reach);
+            final int x1 = Math.min(mapMaxX, run.location.x + reach);
+            final int y1 = Math.min(mapMaxY, run.location.y + reach);
+            separateArea += (long) (x1 - x0 + 1) * (y1 - y0 + 1);
+            minX = Math.min(minX, x0);
+            minY = Math.min(minY, y0);
+            maxX = Math.max(maxX, x1);
+            maxY = Math.max(maxY, y1);
+        }
+        final long unionArea = (long) (maxX - minX + 1) * (maxY - minY + 1);
+
+        if (pendingBroadcasts.size() == 1 || !gameObjectsOffMap.isEmpty()
+                || unionArea > separateArea) {
+            for (BroadcastRun run : pendingBroadcasts) {
+                for (InternalRobot receiver : getAllRobotsWithinRadiusSq(
+                        run.location, run.radiusSquared)) {
+                    if (receiver != run.sender) {
+                        run.deliver(receiver);
+                    }
+                }
+            }
+        } else {
+            final ArrayList<InternalRobot> receivers = new ArrayList<>();
+            if (unionArea < gameObjectsByID.size()) {
+                for (int x = minX; x <= maxX; x++) {
+                    for (int y = minY; y <= maxY; y++) {
+                        final InternalRobot robot = gameObjectsByLoc.get(
+                                x - origin.x, y - origin.y);
+                        if (robot != null) {
+                            receivers.add(robot);
+                        }
+                    }
+                }
+            } else {
+                for (InternalRobot o : gameObjectsByID.values()) {
+                    final MapLocation loc = o.getLocation();
+                    if (loc != null && loc.x >= minX && loc.x <= maxX
+                            && loc.y >= minY && loc.y <= maxY) {
+                        receivers.add(o);
+                    }
+                }
+            }
+
+            // Receivers' queues are independent, so only the order of each
+            // one's signals matters.
+            for (InternalRobot receiver : receivers) {
+                for (BroadcastRun run : pendingBroadcasts) {
+                    if (receiver != run.sender) {
+                        run.deliver(receiver);
+                    }
+                }
+            }
+        }
+
+        pendingBroadcasts.clear();
+    }
+
+    @Override
     public void visitBroadcastSignal(BroadcastSignal s) {
         int robotID = s.getRobotID();
         InternalRobot robot = getObjectByID(robotID);
         MapLocation location = robot.getLocation();
         int radius = s.getRadius();
-        Signal mess = s.getSignal();
-        InternalRobot[] receiving = getAllRobotsWithinRadiusSq(location,
-                radius);
-        for (int i = 0; i < receiving.length; i++) {
-            if (robot != receiving[i]) {
-                receiving[i].receiveSignal(mess);
-            }
+
+        final BroadcastRun last = pendingBroadcasts.isEmpty() ? null
+                : pendingBroadcasts.get(pendingBroadcasts.size() - 1);
+        if (last != null && last.sender == robot && last.location.equals(location)) {
+            last.add(s);
+        } else {
+            final BroadcastRun run = new BroadcastRun(robot, location);
+            run.add(s);
+            pendingBroadcasts.add(run);
         }
 
         // delay costs
@@ -823,7 +1650,7 @@ public class GameWorld implements SignalHandler {
         addSignal(s);
     }
 
-    @SuppressWarnings("unused")
+    @Override
     public void visitBuildSignal(BuildSignal s) {
         int parentID = s.getParentID();
         MapLocation loc = s.getLoc();
@@ -841,7 +1668,7 @@ public class GameWorld implements SignalHandler {
                 Optional.of(parent));
     }
 
-    @SuppressWarnings("unused")
+    @Override
     public void visitClearRubbleSignal(ClearRubbleSignal s) {
         MapLocation loc = s.getLoc();
         double currentRubble = getRubble(loc);
@@ -853,7 +1680,7 @@ public class GameWorld implements SignalHandler {
         addSignal(new RubbleChangeSignal(loc, getRubble(loc)));
     }
 
-    @SuppressWarnings("unused")
+    @Override
     public void visitControlBitsSignal(ControlBitsSignal s) {
         InternalRobot r = getObjectByID(s.getRobotID());
         r.setControlBits(s.getControlBits());
@@ -861,8 +1688,10 @@ public class GameWorld implements SignalHandler {
         addSignal(s);
     }
 
-    @SuppressWarnings("unused")
+    @Override
     public void visitDeathSignal(DeathSignal s) {
+        flushBroadcasts();
+
         if (!running) {
             // All robots emit death signals after the game
             // ends. We still want the client to draw
@@ -882,7 +1711,7 @@ public class GameWorld implements SignalHandler {
         }
 
         MapLocation loc = obj.getLocation();
-        if (gameObjectsByLoc.get(loc) != obj) {
+        if (getObject(loc) != obj) {
             throw new RuntimeException("Object location out of sync: "+obj);
         }
 
@@ -918,7 +1747,12 @@ public class GameWorld implements SignalHandler {
 
         controlProvider.robotKilled(obj);
         gameObjectsByID.remove(obj.getID());
-        gameObjectsByLoc.remove(loc);
+        if (obj.getType() == RobotType.ARCHON) {
+            archons.remove(obj);
+        }
+        notePlayerPresenceChange(obj, loc);
+        obj.detach();
+        setObject(loc, null);
 
         // if it was an infected robot, create a Zombie in its place.
         if (obj.isInfected() && s.getCause() != DeathSignal.RobotDeathCause
@@ -938,27 +1772,27 @@ public class GameWorld implements SignalHandler {
         addSignal(s);
     }
 
-    @SuppressWarnings("unused")
+    @Override
     public void visitIndicatorDotSignal(IndicatorDotSignal s) {
         addSignal(s);
     }
 
-    @SuppressWarnings("unused")
+    @Override
     public void visitIndicatorLineSignal(IndicatorLineSignal s) {
         addSignal(s);
     }
 
-    @SuppressWarnings("unused")
+    @Override
     public void visitIndicatorStringSignal(IndicatorStringSignal s) {
         addSignal(s);
     }
 
-    @SuppressWarnings("unused")
+    @Override
     public void visitMatchObservationSignal(MatchObservationSignal s) {
         addSignal(s);
     }
 
-    @SuppressWarnings("unused")
+    @Override
     public void visitMovementSignal(MovementSignal s) {
         InternalRobot r = getObjectByID(s.getRobotID());
         r.setLocation(s.getNewLoc());
@@ -972,7 +1806,7 @@ public class GameWorld implements SignalHandler {
         addSignal(s);
     }
 
-    @SuppressWarnings("unused")
+    @Override
     public void visitMovementOverrideSignal(MovementOverrideSignal s) {
         InternalRobot r = getObjectByID(s.getRobotID());
         r.setLocation(s.getNewLoc());
@@ -980,7 +1814,8 @@ public class GameWorld implements SignalHandler {
         addSignal(s);
     }
 
-    @SuppressWarnings({"unchecked", "unused"})
+    @Override
+    @SuppressWarnings("unchecked")
     public void visitSpawnSignal(SpawnSignal s) {
         // This robot has no id.
         // We need to assign it an id and spawn that.
@@ -998,6 +1833,8 @@ public class GameWorld implements SignalHandler {
             return;
         }
 
+        flushBroadcasts();
+
         InternalRobot parent;
         int parentID = s.getParentID();
 
@@ -1015,6 +1852,7 @@ public class GameWorld implements SignalHandler {
                         s.getLoc(),
                         s.getTeam(),
                         s.getDelay(),
+                        spawnCount++,
                         Optional.ofNullable(parent)
                 );
 
@@ -1022,9 +1860,13 @@ public class GameWorld implements SignalHandler {
         incrementRobotCount(s.getTeam());
 
         gameObjectsByID.put(s.getRobotID(), robot);
+        if (s.getType() == RobotType.ARCHON) {
+            archons.add(robot);
+        }
+        notePlayerPresenceChange(robot, s.getLoc());
 
         if (s.getLoc() != null) {
-            gameObjectsByLoc.put(s.getLoc(), robot);
+            setObject(s.getLoc(), robot);
 
             // If you are an archon, pick up parts on that location.
             if (s.getType() == RobotType.ARCHON && s.getTeam().isPlayer()) {
@@ -1044,8 +1886,115 @@ public class GameWorld implements SignalHandler {
         controlProvider.robotSpawned(robot);
     }
 
-    @SuppressWarnings("unused")
+    @Override
     public void visitTypeChangeSignal(TypeChangeSignal s) {
         addSignal(s);
     }
+
+    /**
+     * The state of a GameWorld between rounds; see snapshot and restore.
+     * Immutable once taken.
+     */
+    public static final class Snapshot {
+        private final GameWorld world;
+        private final int round;
+        private final boolean running;
+        private final Team winner;
+        private final GameStats gameStats;
+        private final double[] teamResources;
+        private final long[][] teamMemory;
+        private final long[][] oldTeamMemory;
+        private final Map<Team, Map<Integer, Integer>> radio;
+
+        /**
+         * The IDs of each team's base archons.
+         */
+        private final Map<Team, int[]> baseArchons;
+        private final SquareArray.Double rubble;
+        private final SquareArray.Double parts;
+        private final BitSet[] partRows;
+        private final IDGenerator idGenerator;
+        private final CopyableRandom rand;
+        private final CopyableRandom zombieRand;
+        private final Map<Integer, Map<RobotType, Integer>> denQueues;
+        private final int spawnCount;
+        private final int[][] robotTypeCount;
+        private final int[] robotCount;
+        private final int[] partValue;
+        private final long stateHash;
+
+        /**
+         * The robots, in turn order, and their table rows, in the same
+         * order.
+         */
+        private final InternalRobot.Saved[] robots;
+        private final RobotTable table;
+
+        private Snapshot(GameWorld world) {
+            this.world = world;
+            this.round = world.currentRound;
+            this.running = world.running;
+            this.winner = world.winner;
+            this.gameStats = new GameStats(world.gameStats);
+            this.teamResources = world.teamResources.clone();
+            this.teamMemory = new long[world.teamMemory.length][];
+            for (int t = 0; t < teamMemory.length; t++) {
+                teamMemory[t] = world.teamMemory[t].clone();
+            }
+            this.oldTeamMemory = new long[world.oldTeamMemory.length][];
+            for (int t = 0; t < oldTeamMemory.length; t++) {
+                oldTeamMemory[t] = world.oldTeamMemory[t].clone();
+            }
+            this.radio = new EnumMap<>(Team.class);
+            for (Team t : world.radio.keySet()) {
+                radio.put(t, new HashMap<>(world.radio.get(t)));
+            }
+            this.baseArchons = new EnumMap<>(Team.class);
+            for (Team t : world.baseArchons.keySet()) {
+                baseArchons.put(t, world.baseArchons.get(t).stream()
+                        .mapToInt(InternalRobot::getID).toArray());
+            }
+            this.rubble = new SquareArray.Double(world.rubble);
+            this.parts = new SquareArray.Double(world.parts);
+            this.partRows = new BitSet[world.partRows.length];
+            for (int i = 0; i < partRows.length; i++) {
+                partRows[i] = (BitSet) world.partRows[i].clone();
+            }
+            this.idGenerator = new IDGenerator(world.idGenerator);
+            this.rand = new CopyableRandom(world.rand);
+            this.zombieRand = new CopyableRandom(world.zombieRand);
+            this.denQueues = new HashMap<>();
+            for (Map.Entry<Integer, Map<RobotType, Integer>> queue
+                    : world.denQueues.entrySet()) {
+                denQueues.put(queue.getKey(), new EnumMap<>(queue.getValue()));
+            }
+            this.spawnCount = world.spawnCount;
+            this.robotTypeCount = world.getRobotTypeCounts();
+            this.robotCount = world.robotCount.clone();
+            this.partValue = world.partValue.clone();
+            this.stateHash = world.stateHash;
+
+            world.gameObjectsByID.compact();
+            this.robots = new InternalRobot.Saved[world.gameObjectsByID.size()];
+            for (int i = 0; i < robots.length; i++) {
+                robots[i] = world.gameObjectsByID.getAt(i).save();
+            }
+            this.table = world.robotTable.copy();
+        }
+
+        /**
+         * @return the last round that had been run when the snapshot was
+         *         taken
+         */
+        public int getRound() {
+            return round;
+        }
+
+        /**
+         * @return the world's state hash when the snapshot was taken
+         */
+        public long getStateHash() {
+            return stateHash;
+        }
+    }
 }
@@ -1,7 +1,5 @@
 package battlecode.world;
 
-import java.util.Random;
-
 /**
  * Class that generates a sequence of unique pseudorandom
  * positive integer IDs for robots.
@@ -23,7 +21,7 @@ public class IDGenerator {
     /**
      * The random generator used to shuffle blocks.
      */
-    private final Random random;
+    private final CopyableRandom random;
 
     /**
      * Where we are in the current block.
@@ -41,7 +39,7 @@ public class IDGenerator {
      * @param seed the random seed to use.
      */
     public IDGenerator(int seed) {
-        this.random = new Random(seed);
+        this.random = new CopyableRandom(seed);
         this.reservedIDs = new int[ID_BLOCK_SIZE];
 
         this.nextIDBlock = 0;
@@ -49,6 +47,19 @@ public class IDGenerator {
         allocateNextBlock();
     }
 
+    /**
+     * Create a generator that will produce the same IDs as another from
+     * here on.
+     *
+     * @param source the generator to copy
+     */
+    public IDGenerator(IDGenerator source) {
+        this.random = new CopyableRandom(source.random);
+        this.reservedIDs = source.reservedIDs.clone();
+        this.cursor = source.cursor;
+        this.nextIDBlock = source.nextIDBlock;
+    }
+
     /**
      * @return a new ID
      */
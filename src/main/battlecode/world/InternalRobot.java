@@ -5,7 +5,6 @@ import battlecode.world.signal.DeathSignal;
 import battlecode.world.signal.InternalSignal;
 import battlecode.world.signal.TypeChangeSignal;
 
-import java.util.ArrayList;
 import java.util.Optional;
 
 /**
@@ -16,33 +15,34 @@ import java.util.Optional;
 public class InternalRobot {
     private RobotType type;
     private final int ID;
+    private final int spawnOrder;
     private Team team;
     private MapLocation location;
     private final GameWorld gameWorld;
     private final RobotControllerImpl controller;
-    private double maxHealth;
-    private double healthLevel;
-    private double attackPower;
-    private double coreDelay;
-    private double weaponDelay;
-    private int zombieInfectedTurns;
-    private int viperInfectedTurns;
     private long controlBits;
-    private int currentBytecodeLimit;
-    private int bytecodesUsed;
-    private int prevBytecodesUsed;
-    private boolean healthChanged;    
-    private ArrayList<Signal> signalqueue;
-    private int roundsAlive;
+    private final SignalQueue signalqueue;
     private int buildDelay;
     private int repairCount;
     private int basicSignalCount;
     private int messageSignalCount;
 
+    /**
+     * The table holding the rest of this robot's state, and our row in it.
+     * Health, delays, infection and bytecode counts live in the world's
+     * RobotTable while we're alive, and in a table of our own afterwards.
+     */
+    private RobotTable table;
+    private int slot;
+
     /**
      * Used to avoid recreating the same RobotInfo object over and over.
+     * It's up to date as long as our version in the robot table is still
+     * cachedRobotInfoVersion; every sensor of this robot shares it until
+     * then.
      */
     private RobotInfo cachedRobotInfo;
+    private int cachedRobotInfoVersion;
 
     /**
      * Create a new internal representation of a robot
@@ -52,43 +52,40 @@ public class InternalRobot {
      * @param loc the location of the robot
      * @param team the team of the robot
      * @param buildDelay the build
+     * @param spawnOrder the number of robots spawned before this one
      * @param parent the parent of the robot, if one exists
      */
     @SuppressWarnings("unchecked")
     public InternalRobot(GameWorld gw, int id, RobotType type, MapLocation loc, Team team,
-            int buildDelay, Optional<InternalRobot> parent) {
+            int buildDelay, int spawnOrder, Optional<InternalRobot> parent) {
 
         this.ID = id;
+        this.spawnOrder = spawnOrder;
         this.team = team;
         this.gameWorld = gw;
-        this.location = loc;
+        this.location = gw.getLocationPool().intern(loc);
         this.type = type;
         this.buildDelay = buildDelay;
+        this.table = gw.getRobotTable();
+        this.slot = table.add(this, id);
 
-        this.maxHealth = type.maxHealth(gw.getCurrentRound(), gameWorld.getGameMap().isArmageddon());
-        this.healthLevel = maxHealth;
-        this.attackPower = type.attackPower(gw.getCurrentRound(), gameWorld.getGameMap().isArmageddon());
+        table.maxHealth[slot] = type.maxHealth(gw.getCurrentRound(), gameWorld.getGameMap().isArmageddon());
+        table.healthLevel[slot] = table.maxHealth[slot];
+        table.attackPower[slot] = type.attackPower(gw.getCurrentRound(), gameWorld.getGameMap().isArmageddon());
 
-        this.coreDelay = 0.0;
-        this.weaponDelay = 0.0;
-        this.zombieInfectedTurns = 0;
-        this.viperInfectedTurns = 0;
         this.repairCount = 0;
         this.basicSignalCount = 0;
         this.messageSignalCount = 0;
 
         this.controlBits = 0;
 
-        this.currentBytecodeLimit = type.bytecodeLimit;
-        this.bytecodesUsed = 0;
-        this.prevBytecodesUsed = 0;
-        this.healthChanged = true;
+        table.currentBytecodeLimit[slot] = type.bytecodeLimit;
+        table.markDirty(slot, RobotTable.DIRTY_ALL | RobotTable.DIRTY_NEW);
         
-        this.signalqueue = new ArrayList<Signal>();
-
-        this.roundsAlive = 0;
+        this.signalqueue = new SignalQueue(GameConstants.SIGNAL_QUEUE_MAX_SIZE);
 
         this.controller = new RobotControllerImpl(gameWorld, this);
+        rehash();
     }
 
     @Override
@@ -107,24 +104,18 @@ public class InternalRobot {
     // *********************************
 
     public RobotInfo getRobotInfo() {
+        final int version = table.version[slot];
         if (this.cachedRobotInfo != null
-                && this.cachedRobotInfo.ID == ID
-                && this.cachedRobotInfo.team == team
-                && this.cachedRobotInfo.type == getType()
-                && this.cachedRobotInfo.location.equals(location)
-                && this.cachedRobotInfo.coreDelay == coreDelay
-                && this.cachedRobotInfo.weaponDelay == weaponDelay
-                && this.cachedRobotInfo.attackPower == attackPower
-                && this.cachedRobotInfo.health == healthLevel
-                && this.cachedRobotInfo.maxHealth == maxHealth
-                && this.cachedRobotInfo.zombieInfectedTurns == zombieInfectedTurns
-                && this.cachedRobotInfo.viperInfectedTurns == viperInfectedTurns) {
+                && this.cachedRobotInfoVersion == version) {
             return this.cachedRobotInfo;
         }
+        this.cachedRobotInfoVersion = version;
         return this.cachedRobotInfo = new RobotInfo(
                 ID, team, getType(), location,
-                coreDelay, weaponDelay, attackPower, healthLevel,
-                maxHealth, zombieInfectedTurns, viperInfectedTurns
+                table.coreDelay[slot], table.weaponDelay[slot],
+                table.attackPower[slot], table.healthLevel[slot],
+                table.maxHealth[slot], table.zombieInfectedTurns[slot],
+                table.viperInfectedTurns[slot]
         );
     }
 
@@ -133,13 +124,21 @@ public class InternalRobot {
     }
 
     public int getRoundsAlive() {
-        return roundsAlive;
+        return table.roundsAlive[slot];
     }
 
     public int getID() {
         return ID;
     }
 
+    /**
+     * @return the number of robots spawned before this one; robots take
+     *         their turns in increasing spawn order.
+     */
+    public int getSpawnOrder() {
+        return spawnOrder;
+    }
+
     public Team getTeam() {
         return team;
     }
@@ -165,11 +164,113 @@ public class InternalRobot {
     }
     
     public double getMaxHealth() {
-        return maxHealth;
+        return table.maxHealth[slot];
     }
 
     public double getAttackPower() {
-        return attackPower;
+        return table.attackPower[slot];
+    }
+
+    /**
+     * Called by RobotTable when rows before ours are removed.
+     *
+     * @param slot our new row in the table
+     */
+    void setSlot(int slot) {
+        this.slot = slot;
+    }
+
+    /**
+     * @return our row in our table
+     */
+    int getSlot() {
+        return slot;
+    }
+
+    /**
+     * The state of a robot that isn't kept in its RobotTable row, as saved
+     * in a GameWorld.Snapshot.
+     */
+    static final class Saved {
+        private final int id;
+        private final int spawnOrder;
+        private final RobotType type;
+        private final Team team;
+        private final MapLocation location;
+        private final int buildDelay;
+        private final long controlBits;
+        private final int repairCount;
+        private final int basicSignalCount;
+        private final int messageSignalCount;
+        private final Signal[] signals;
+
+        private Saved(InternalRobot robot) {
+            this.id = robot.ID;
+            this.spawnOrder = robot.spawnOrder;
+            this.type = robot.type;
+            this.team = robot.team;
+            this.location = robot.location;
+            this.buildDelay = robot.buildDelay;
+            this.controlBits = robot.controlBits;
+            this.repairCount = robot.repairCount;
+            this.basicSignalCount = robot.basicSignalCount;
+            this.messageSignalCount = robot.messageSignalCount;
+            this.signals = robot.signalqueue.toArray();
+        }
+
+        /**
+         * Create a robot in the given state. Its table row is added but
+         * must be filled in by the caller.
+         *
+         * @param gw the world to create the robot in
+         * @return the new robot
+         */
+        InternalRobot restore(GameWorld gw) {
+            final InternalRobot robot = new InternalRobot(gw, id, type,
+                    location, team, buildDelay, spawnOrder, Optional.empty());
+            robot.controlBits = controlBits;
+            robot.repairCount = repairCount;
+            robot.basicSignalCount = basicSignalCount;
+            robot.messageSignalCount = messageSignalCount;
+            for (Signal signal : signals) {
+                robot.signalqueue.add(signal);
+            }
+            return robot;
+        }
+
+        int getID() {
+            return id;
+        }
+    }
+
+    /**
+     * @return the state of this robot that isn't in its table row
+     */
+    Saved save() {
+        return new Saved(this);
+    }
+
+    /**
+     * Move our state out of the world's table into one of our own; called
+     * by GameWorld when we're removed from the world.
+     */
+    void detach() {
+        gameWorld.replaceStateHashTerm(table.hashTerm[slot], 0);
+        table = table.remove(slot);
+        slot = 0;
+    }
+
+    /**
+     * Bring this robot's term in the world's state hash up to date. Dead
+     * robots are no longer part of the hash.
+     */
+    private void rehash() {
+        if (table != gameWorld.getRobotTable()) {
+            return;
+        }
+        final long term = StateHash.robotTerm(this);
+        gameWorld.replaceStateHashTerm(table.hashTerm[slot], term);
+        table.hashTerm[slot] = term;
     }
 
     // *********************************
@@ -177,7 +278,7 @@ public class InternalRobot {
     // *********************************
 
     public boolean isActive() {
-        return !getType().isBuildable() || roundsAlive >= buildDelay;
+        return !getType().isBuildable() || table.roundsAlive[slot] >= buildDelay;
     }
 
     public boolean canExecuteCode() {
@@ -187,15 +288,18 @@ public class InternalRobot {
     }
 
     public void setBytecodesUsed(int numBytecodes) {
-        bytecodesUsed = numBytecodes;
+        if (table.bytecodesUsed[slot] != numBytecodes) {
+            table.markDirty(slot, RobotTable.DIRTY_BYTECODES);
+        }
+        table.bytecodesUsed[slot] = numBytecodes;
     }
 
     public int getBytecodesUsed() {
-        return bytecodesUsed;
+        return table.bytecodesUsed[slot];
     }
 
     public int getBytecodeLimit() {
-        return canExecuteCode() ? this.currentBytecodeLimit : 0;
+        return canExecuteCode() ? table.currentBytecodeLimit[slot] : 0;
     }
 
     public void setControlBits(long l) {
@@ -206,12 +310,8 @@ public class InternalRobot {
         return controlBits;
     }
 
-    public void clearHealthChanged() {
-        healthChanged = false;
-    }
-
     public boolean healthChanged() {
-        return healthChanged;
+        return (table.dirty[slot] & RobotTable.DIRTY_HEALTH) != 0;
     }
 
     public boolean canSense(MapLocation target) {
@@ -226,32 +326,36 @@ public class InternalRobot {
     // *********************************
 
     public int getZombieInfectedTurns() {
-        return zombieInfectedTurns;
+        return table.zombieInfectedTurns[slot];
     }
     
     public int getViperInfectedTurns() {
-        return viperInfectedTurns;
+        return table.viperInfectedTurns[slot];
     }
     
     public boolean isInfected() {
-        return (zombieInfectedTurns > 0 || viperInfectedTurns > 0);
+        return (table.zombieInfectedTurns[slot] > 0 || table.viperInfectedTurns[slot] > 0);
     }
 
     public void setInfected(InternalRobot attacker) {
         if (attacker.getType() == RobotType.VIPER) {
-            viperInfectedTurns = attacker.getType().infectTurns;
+            table.viperInfectedTurns[slot] = attacker.getType().infectTurns;
+            table.markDirty(slot, RobotTable.DIRTY_INFECTION);
         } else if (attacker.getType().isZombie) {
-            zombieInfectedTurns = attacker.getType().infectTurns;
+            table.zombieInfectedTurns[slot] = attacker.getType().infectTurns;
+            table.markDirty(slot, RobotTable.DIRTY_INFECTION);
         }
     }
 
     public void processBeingInfected() { // TODO: Call this somewhere where it runs for each robot every turn
-        if (viperInfectedTurns > 0) {
+        if (table.viperInfectedTurns[slot] > 0) {
             takeDamage(GameConstants.VIPER_INFECTION_DAMAGE);
-            viperInfectedTurns--;
+            table.viperInfectedTurns[slot]--;
+            table.markDirty(slot, RobotTable.DIRTY_INFECTION);
         }
-        if (zombieInfectedTurns > 0) {
-            zombieInfectedTurns--;
+        if (table.zombieInfectedTurns[slot] > 0) {
+            table.zombieInfectedTurns[slot]--;
+            table.markDirty(slot, RobotTable.DIRTY_INFECTION);
         }
     }
 
@@ -260,7 +364,7 @@ public class InternalRobot {
     // *********************************
 
     public double getHealthLevel() {
-        return healthLevel;
+        return table.healthLevel[slot];
     }
 
     public void takeDamage(double baseAmount) {
@@ -276,13 +380,14 @@ public class InternalRobot {
     }
 
     public void changeHealthLevel(double amount, RobotType source) {
-        healthChanged = true;
-        healthLevel += amount;
-        if (healthLevel > maxHealth) {
-            healthLevel = maxHealth;
+        table.markDirty(slot, RobotTable.DIRTY_HEALTH);
+        table.healthLevel[slot] += amount;
+        if (table.healthLevel[slot] > table.maxHealth[slot]) {
+            table.healthLevel[slot] = table.maxHealth[slot];
         }
+        rehash();
 
-        if (healthLevel <= 0) {
+        if (table.healthLevel[slot] <= 0) {
             if (source == RobotType.TURRET) {
                 gameWorld.visitDeathSignal(new DeathSignal(ID,
                         DeathSignal.RobotDeathCause.TURRET));
@@ -297,42 +402,67 @@ public class InternalRobot {
     // *********************************
 
     public double getCoreDelay() {
-        return coreDelay;
+        return table.coreDelay[slot];
     }
 
     public double getWeaponDelay() {
-        return weaponDelay;
+        return table.weaponDelay[slot];
     }
 
     public void addCoreDelay(double time) {
-        coreDelay += time;
+        if (time != 0) {
+            table.coreDelay[slot] += time;
+            table.markDirty(slot, RobotTable.DIRTY_DELAYS);
+            rehash();
+        }
     }
 
     public void addWeaponDelay(double time) {
-        weaponDelay += time;
+        if (time != 0) {
+            table.weaponDelay[slot] += time;
+            table.markDirty(slot, RobotTable.DIRTY_DELAYS);
+            rehash();
+        }
     }
 
     public void setCoreDelayUpTo(double delay) {
-        coreDelay = Math.max(coreDelay, delay);
+        if (delay > table.coreDelay[slot]) {
+            table.coreDelay[slot] = delay;
+            table.markDirty(slot, RobotTable.DIRTY_DELAYS);
+            rehash();
+        }
     }
 
     public void setWeaponDelayUpTo(double delay) {
-        weaponDelay = Math.max(weaponDelay, delay);
+        if (delay > table.weaponDelay[slot]) {
+            table.weaponDelay[slot] = delay;
+            table.markDirty(slot, RobotTable.DIRTY_DELAYS);
+            rehash();
+        }
     }
 
     public void decrementDelays() {
+        final double oldWeaponDelay = table.weaponDelay[slot];
+        final double oldCoreDelay = table.coreDelay[slot];
+
         // Formula following the "Explanation of Delays" section of game specs
         // (Use previous bytecodes because current bytecode = 0)
-        double amountToDecrement = 1.0 - (0.3 * Math.pow(Math.max(0.0,8000-this.currentBytecodeLimit+this.prevBytecodesUsed)/8000.0,1.5));
+        double amountToDecrement = 1.0 - (0.3 * Math.pow(Math.max(0.0,8000-table.currentBytecodeLimit[slot]+table.prevBytecodesUsed[slot])/8000.0,1.5));
         
-        weaponDelay-=amountToDecrement;
-        coreDelay-=amountToDecrement;
+        table.weaponDelay[slot]-=amountToDecrement;
+        table.coreDelay[slot]-=amountToDecrement;
 
-        if (weaponDelay < 0.0) {
-            weaponDelay = 0.0;
+        if (table.weaponDelay[slot] < 0.0) {
+            table.weaponDelay[slot] = 0.0;
+        }
+        if (table.coreDelay[slot] < 0.0) {
+            table.coreDelay[slot] = 0.0;
         }
-        if (coreDelay < 0.0) {
-            coreDelay = 0.0;
+
+        if (table.weaponDelay[slot] != oldWeaponDelay
+                || table.coreDelay[slot] != oldCoreDelay) {
+            table.markDirty(slot, RobotTable.DIRTY_DELAYS);
+            rehash();
         }
     }
 
@@ -342,25 +472,16 @@ public class InternalRobot {
 
     public void receiveSignal(Signal mess) {
         signalqueue.add(mess);
-        if(signalqueue.size() > GameConstants.SIGNAL_QUEUE_MAX_SIZE) {
-            signalqueue.remove(0);
-        }
     }
 
     public Signal retrieveNextSignal() {
-        if (signalqueue.size() == 0) {
-            return null;
-        }
-        return signalqueue.remove(0);
+        gameWorld.flushBroadcasts();
+        return signalqueue.poll();
     }
 
     public Signal[] retrieveAllSignals() {
-        int numMessages = signalqueue.size();
-        Signal[] queue = new Signal[numMessages];
-        for (int i = 0; i < numMessages; i++) {
-            queue[i] = signalqueue.remove(0);
-        }
-        return queue;
+        gameWorld.flushBroadcasts();
+        return signalqueue.drain();
     }
     
     public void incrementBasicSignalCount() {
@@ -392,8 +513,11 @@ public class InternalRobot {
     }
 
     public void setLocation(MapLocation loc) {
+        loc = gameWorld.getLocationPool().intern(loc);
         gameWorld.notifyMovingObject(this, location, loc);
         location = loc;
+        table.version[slot]++;
+        rehash();
     }
 
     public void suicide() {
@@ -404,8 +528,11 @@ public class InternalRobot {
         gameWorld.decrementRobotTypeCount(getTeam(), getType());
         gameWorld.incrementRobotTypeCount(getTeam(), newType);
         type = newType;
-        coreDelay += GameConstants.TURRET_TRANSFORM_DELAY;
-        weaponDelay += GameConstants.TURRET_TRANSFORM_DELAY;
+        table.version[slot]++;
+        table.coreDelay[slot] += GameConstants.TURRET_TRANSFORM_DELAY;
+        table.weaponDelay[slot] += GameConstants.TURRET_TRANSFORM_DELAY;
+        table.markDirty(slot, RobotTable.DIRTY_DELAYS);
+        rehash();
 
         gameWorld.visitSignal(new TypeChangeSignal(ID, newType));
     }
@@ -437,12 +564,12 @@ public class InternalRobot {
         basicSignalCount = 0;
         messageSignalCount = 0;
 
-        this.currentBytecodeLimit = getType().bytecodeLimit;
+        table.currentBytecodeLimit[slot] = getType().bytecodeLimit;
     }
 
     public void processEndOfTurn() {
-        this.prevBytecodesUsed = this.bytecodesUsed;
-        roundsAlive++;
+        table.prevBytecodesUsed[slot] = table.bytecodesUsed[slot];
+        table.roundsAlive[slot]++;
         
         processBeingInfected();
         
@@ -0,0 +1,94 @@
+package battlecode.world;
+
+import battlecode.common.Direction;
+import battlecode.common.MapLocation;
+
+/**
+ * Holds one canonical MapLocation for every location on a map, plus a small
+ * margin around it, so that the engine doesn't allocate a fresh object every
+ * time it steps, enumerates or stores a location. Two pooled locations are
+ * equal exactly when they are the same object.
+ *
+ * Locations outside the pooled area are created as usual. The pool is
+ * filled up front and never changes, so handing pooled locations to player
+ * code doesn't leak anything between robots.
+ */
+public final class MapLocationPool {
+    /**
+     * How far past each edge of the map locations are pooled; enough to
+     * cover stepping off the map in any direction.
+     */
+    public static final int MARGIN = 1;
+
+    /**
+     * The smallest pooled coordinates.
+     */
+    private final int minX, minY;
+
+    /**
+     * The width and height of the pooled area.
+     */
+    private final int width, height;
+
+    /**
+     * The pooled locations, row by row.
+     */
+    private final MapLocation[] pool;
+
+    /**
+     * Create a pool covering a map.
+     *
+     * @param origin the origin of the map
+     * @param mapWidth the width of the map
+     * @param mapHeight the height of the map
+     */
+    public MapLocationPool(MapLocation origin, int mapWidth, int mapHeight) {
+        this.minX = origin.x - MARGIN;
+        this.minY = origin.y - MARGIN;
+        this.width = mapWidth + 2 * MARGIN;
+        this.height = mapHeight + 2 * MARGIN;
+        this.pool = new MapLocation[width * height];
+
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                pool[x + width * y] = new MapLocation(minX + x, minY + y);
+            }
+        }
+    }
+
+    /**
+     * @param x the x coordinate
+     * @param y the y coordinate
+     * @return the pooled location at (x, y), or a new one if it isn't pooled
+     */
+    public MapLocation get(int x, int y) {
+        if (x < minX || y < minY || x >= minX + width || y >= minY + height) {
+            return new MapLocation(x, y);
+        }
+        return pool[(x - minX) + width * (y - minY)];
+    }
+
+    /**
+     * @param loc a location, or null
+     * @return the pooled location equal to loc, or loc itself if it isn't
+     *         pooled
+     */
+    public MapLocation intern(MapLocation loc) {
+        if (loc == null || loc.x < minX || loc.y < minY
+                || loc.x >= minX + width || loc.y >= minY + height) {
+            return loc;
+        }
+        return pool[(loc.x - minX) + width * (loc.y - minY)];
+    }
+
+    /**
+     * Pooled equivalent of MapLocation.add(Direction).
+     *
+     * @param loc the location to start from
+     * @param direction the direction to step in
+     * @return the location one step from loc in the given direction
+     */
+    public MapLocation add(MapLocation loc, Direction direction) {
+        return get(loc.x + direction.dx, loc.y + direction.dy);
+    }
+}
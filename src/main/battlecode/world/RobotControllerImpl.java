@@ -52,6 +52,14 @@ public final class RobotControllerImpl implements RobotController {
         return robot;
     }
 
+    /**
+     * @param dir the direction to step in
+     * @return the location adjacent to this robot in the given direction
+     */
+    private MapLocation adjacentLocation(Direction dir) {
+        return gameWorld.getLocationPool().add(getLocation(), dir);
+    }
+
     /**
      * Throw a null pointer exception if an object is null.
      *
@@ -248,20 +256,13 @@ public final class RobotControllerImpl implements RobotController {
 
     @Override
     public MapLocation[] sensePartLocations(int radiussquared) {
-        ArrayList<MapLocation> returnVals = new ArrayList<MapLocation>();
         int fetchRadius;
         if (radiussquared < 0) {
             fetchRadius = robot.getType().sensorRadiusSquared;
         } else {
             fetchRadius = Math.min(radiussquared, robot.getType().sensorRadiusSquared);
         }
-        MapLocation[] nearbyLocs = MapLocation.getAllMapLocationsWithinRadiusSq(robot.getLocation(), fetchRadius);
-        for (MapLocation loc : nearbyLocs) {
-            if (gameWorld.getParts(loc) > 0) {
-                returnVals.add(loc);
-            }
-        }
-        return returnVals.toArray(new MapLocation[returnVals.size()]);
+        return gameWorld.getPartLocationsWithinRadiusSq(robot.getLocation(), fetchRadius);
     }
 
     @Override
@@ -316,6 +317,59 @@ public final class RobotControllerImpl implements RobotController {
         }
     }
 
+    /**
+     * Get the robots that might be both within radiusSquared of center and
+     * within this robot's sensor range, in turn order. This is a superset of
+     * the robots that satisfy both conditions, so callers must still check
+     * each one.
+     *
+     * @param center the center of the query
+     * @param radiusSquared the radius of the query; negative for unbounded
+     * @return the candidate robots
+     */
+    private Collection<InternalRobot> getSensingCandidates(
+            final MapLocation center, final int radiusSquared) {
+        final MapLocation myLoc = robot.getLocation();
+        final int sensorRadiusSquared = robot.getType().sensorRadiusSquared;
+
+        return gameWorld.getRobotsInBounds(
+                Math.max(lowerBound(center.x, radiusSquared),
+                        lowerBound(myLoc.x, sensorRadiusSquared)),
+                Math.max(lowerBound(center.y, radiusSquared),
+                        lowerBound(myLoc.y, sensorRadiusSquared)),
+                Math.min(upperBound(center.x, radiusSquared),
+                        upperBound(myLoc.x, sensorRadiusSquared)),
+                Math.min(upperBound(center.y, radiusSquared),
+                        upperBound(myLoc.y, sensorRadiusSquared))
+        );
+    }
+
+    /**
+     * @param c a coordinate
+     * @param radiusSquared a radius; negative for unbounded
+     * @return the smallest coordinate within the radius of c
+     */
+    private static int lowerBound(int c, int radiusSquared) {
+        if (radiusSquared < 0) {
+            return Integer.MIN_VALUE;
+        }
+        return (int) Math.max(Integer.MIN_VALUE,
+                (long) c - (int) Math.sqrt(radiusSquared));
+    }
+
+    /**
+     * @param c a coordinate
+     * @param radiusSquared a radius; negative for unbounded
+     * @return the largest coordinate within the radius of c
+     */
+    private static int upperBound(int c, int radiusSquared) {
+        if (radiusSquared < 0) {
+            return Integer.MAX_VALUE;
+        }
+        return (int) Math.min(Integer.MAX_VALUE,
+                (long) c + (int) Math.sqrt(radiusSquared));
+    }
+
     // Note: A radius^2 < 0 will return all visible robots on the map;
     // A null team will return robots of any team.
     @Override
@@ -323,7 +377,8 @@ public final class RobotControllerImpl implements RobotController {
             final int radiusSquared, final Team team) {
         assertNotNull(center);
 
-        final Collection<InternalRobot> allRobots = gameWorld.allObjects();
+        final Collection<InternalRobot> allRobots = getSensingCandidates(
+                center, radiusSquared);
         final List<RobotInfo> robots = new ArrayList<>();
 
         final boolean useRadius = radiusSquared >= 0;
@@ -372,7 +427,8 @@ public final class RobotControllerImpl implements RobotController {
     public RobotInfo[] senseHostileRobots(MapLocation center, int radiusSquared) {
         assertNotNull(center);
 
-        final Collection<InternalRobot> allRobots = gameWorld.allObjects();
+        final Collection<InternalRobot> allRobots = getSensingCandidates(
+                center, radiusSquared);
         final List<RobotInfo> robots = new ArrayList<>();
 
         final boolean useRadius = radiusSquared >= 0;
@@ -447,7 +503,7 @@ public final class RobotControllerImpl implements RobotController {
                     + "the direction OMNI.");
         }
 
-        MapLocation target = getLocation().add(dir);
+        MapLocation target = adjacentLocation(dir);
 
         // Ignore off map locations.
         if (!gameWorld.getGameMap().onTheMap(target)) {
@@ -509,7 +565,7 @@ public final class RobotControllerImpl implements RobotController {
         assertNotNull(dir);
 
         return robot.getType().canMove() && isValidMovementDirection(dir)
-                && isPathableInternal(robot.getType(), getLocation().add(dir));
+                && isPathableInternal(robot.getType(), adjacentLocation(dir));
     }
 
     @Override
@@ -523,16 +579,17 @@ public final class RobotControllerImpl implements RobotController {
             throw new IllegalArgumentException(
                     "You cannot move in the direction NONE, OMNI or in a null direction.");
         }
-        assertIsPathable(robot.getType(), getLocation().add(d));
+        final MapLocation target = adjacentLocation(d);
+        assertIsPathable(robot.getType(), target);
 
         double factor1 = (d.isDiagonal() ? GameConstants.DIAGONAL_DELAY_MULTIPLIER
                 : 1.0); //
         double factor2 = 1.0;
-        double factor3 = (!getType().ignoresRubble && gameWorld.getRubble(getLocation().add(d))
+        double factor3 = (!getType().ignoresRubble && gameWorld.getRubble(target)
                 >= GameConstants.RUBBLE_SLOW_THRESH) ? 2.0 : 1.0;
 
         robot.activateCoreAction(new MovementSignal(robot.getID(),
-                getLocation().add(d), (int) (robot.getType().movementDelay * factor1 * factor3)),
+                target, (int) (robot.getType().movementDelay * factor1 * factor3)),
                 robot.getType().cooldownDelay * factor2 * factor3,
                 robot.getType().movementDelay * factor1 * factor3);
     }
@@ -658,7 +715,7 @@ public final class RobotControllerImpl implements RobotController {
     public boolean canBuild(Direction dir, RobotType type) {
         assertNotNull(dir);
         assertNotNull(type);
-        MapLocation loc = getLocation().add(dir);
+        MapLocation loc = adjacentLocation(dir);
         if (robot.getType() == RobotType.ZOMBIEDEN) {
             return gameWorld.isEmpty(loc);
         } else {
@@ -698,7 +755,7 @@ public final class RobotControllerImpl implements RobotController {
         double cost = type.partCost;
         assertHaveResource(cost);
 
-        MapLocation loc = getLocation().add(dir);
+        MapLocation loc = adjacentLocation(dir);
         if (robot.getType() != RobotType.ZOMBIEDEN) {
             assertIsPathable(type, loc);
         }
@@ -0,0 +1,368 @@
+package battlecode.world;
+
+import java.util.Arrays;
+
+/**
+ * The numeric state of every living robot, stored column by column so that
+ * per-round passes over all robots walk a few flat arrays instead of chasing
+ * one object per robot. InternalRobot is a view onto one row (slot) of a
+ * table.
+ *
+ * Rows are kept in the order robots were added, which is also the order they
+ * take their turns in. Removing a robot only leaves a hole in its row, so
+ * that a round in which many robots die doesn't shift the table over and
+ * over; compact() closes the holes in one pass, which GameWorld does once a
+ * round, and which happens anyway before anything that needs every row to
+ * be in use. A removed robot keeps its last state in a one-row table of its
+ * own, so it can still be inspected after it dies.
+ */
+final class RobotTable {
+    /**
+     * Flags for the kinds of state clients are told about each round; a
+     * row is dirty in a kind if it changed since it was last reported.
+     */
+    static final int DIRTY_BYTECODES = 1;
+    static final int DIRTY_DELAYS = 2;
+    static final int DIRTY_INFECTION = 4;
+    static final int DIRTY_HEALTH = 8;
+    static final int DIRTY_ALL = 15;
+
+    /**
+     * Set on the rows of new robots, whose health clients are sent every
+     * time whether it changed or not; clearDirty leaves it set until the
+     * robot has been alive for more than NEW_ROUNDS rounds.
+     */
+    static final int DIRTY_NEW = 16;
+    static final int NEW_ROUNDS = 2;
+
+    /**
+     * The robot viewing each row; null in rows that have been removed.
+     */
+    InternalRobot[] robots;
+
+    // The columns, indexed by slot; see InternalRobot for their meanings.
+    int[] ids;
+    double[] healthLevel;
+    double[] maxHealth;
+    double[] attackPower;
+    double[] coreDelay;
+    double[] weaponDelay;
+    int[] zombieInfectedTurns;
+    int[] viperInfectedTurns;
+    int[] currentBytecodeLimit;
+    int[] bytecodesUsed;
+    int[] prevBytecodesUsed;
+    int[] roundsAlive;
+    byte[] dirty;
+
+    /**
+     * Bumped whenever anything a RobotInfo shows about the robot changes,
+     * so cached RobotInfos can be checked with one comparison.
+     */
+    int[] version;
+
+    /**
+     * The term each row contributes to the world's state hash.
+     */
+    long[] hashTerm;
+
+    /**
+     * The number of rows, including removed ones not yet compacted away.
+     */
+    private int size;
+
+    /**
+     * The number of removed rows below size.
+     */
+    private int holes;
+
+    /**
+     * The robots with any dirty flag set, each listed once, in the order
+     * they first became dirty. May include robots that have since been
+     * removed.
+     */
+    private InternalRobot[] dirtyRobots = new InternalRobot[16];
+    private int dirtyCount;
+
+    /**
+     * Create an empty table.
+     *
+     * @param capacity the number of rows to make room for up front
+     */
+    RobotTable(int capacity) {
+        capacity = Math.max(capacity, 1);
+        robots = new InternalRobot[capacity];
+        ids = new int[capacity];
+        healthLevel = new double[capacity];
+        maxHealth = new double[capacity];
+        attackPower = new double[capacity];
+        coreDelay = new double[capacity];
+        weaponDelay = new double[capacity];
+        zombieInfectedTurns = new int[capacity];
+        viperInfectedTurns = new int[capacity];
+        currentBytecodeLimit = new int[capacity];
+        bytecodesUsed = new int[capacity];
+        prevBytecodesUsed = new int[capacity];
+        roundsAlive = new int[capacity];
+        dirty = new byte[capacity];
+        version = new int[capacity];
+        hashTerm = new long[capacity];
+    }
+
+    /**
+     * @return the number of robots in the table, which are in rows 0 to
+     *         size() - 1 once this returns
+     */
+    int size() {
+        compact();
+        return size;
+    }
+
+    /**
+     * @param slot a row of the table
+     * @return the robot viewing that row
+     */
+    InternalRobot get(int slot) {
+        return robots[slot];
+    }
+
+    /**
+     * Add a zeroed row at the end of the table.
+     *
+     * @param robot the robot that will view the row
+     * @param id the ID of the robot
+     * @return the new row
+     */
+    int add(InternalRobot robot, int id) {
+        if (size == robots.length) {
+            grow(2 * size);
+        }
+        final int slot = size++;
+        // The row may have belonged to a removed robot.
+        clearRow(slot);
+        robots[slot] = robot;
+        ids[slot] = id;
+        return slot;
+    }
+
+    /**
+     * Remove a row, moving its contents into a one-row table of its own.
+     * The row is left as a hole until the table is compacted.
+     *
+     * @param slot the row to remove
+     * @return the table now holding the removed row, at slot 0
+     */
+    RobotTable remove(int slot) {
+        final RobotTable detached = new RobotTable(1);
+        copyRow(this, slot, detached, 0, 1);
+        detached.size = 1;
+
+        robots[slot] = null;
+        holes++;
+        // Holes at the end can go right away.
+        while (size > 0 && robots[size - 1] == null) {
+            size--;
+            holes--;
+        }
+        return detached;
+    }
+
+    /**
+     * Close up the holes left by removed rows, keeping the remaining rows
+     * in order. Takes time proportional to the number of rows after the
+     * first hole, however many holes there are.
+     */
+    void compact() {
+        if (holes == 0) {
+            return;
+        }
+        int to = 0;
+        while (robots[to] != null) {
+            to++;
+        }
+        int from = to;
+        while (from < size) {
+            // Move the next run of rows in use down in one go.
+            while (from < size && robots[from] == null) {
+                from++;
+            }
+            int end = from;
+            while (end < size && robots[end] != null) {
+                end++;
+            }
+            copyRow(this, from, this, to, end - from);
+            for (int i = to; i < to + end - from; i++) {
+                robots[i].setSlot(i);
+            }
+            to += end - from;
+            from = end;
+        }
+        Arrays.fill(robots, to, size, null);
+        size = to;
+        holes = 0;
+    }
+
+    /**
+     * @return a copy of the table's rows, for a snapshot of the world. The
+     *         copy's robots column still names this table's robots.
+     */
+    RobotTable copy() {
+        compact();
+        final RobotTable copy = new RobotTable(size);
+        copyRow(this, 0, copy, 0, size);
+        copy.size = size;
+        return copy;
+    }
+
+    /**
+     * Overwrite the contents of this table's rows with those of a copy made
+     * by copy(). This table must already have the same number of rows,
+     * viewed by the robots that should own them; every row is marked dirty
+     * in every kind, and new robots as new.
+     *
+     * @param source the copy to take the rows from
+     */
+    void restoreRows(RobotTable source) {
+        compact();
+        final InternalRobot[] viewers = Arrays.copyOf(robots, size);
+        copyRow(source, 0, this, 0, size);
+        System.arraycopy(viewers, 0, robots, 0, size);
+        Arrays.fill(dirty, 0, size, (byte) 0);
+        for (int slot = 0; slot < size; slot++) {
+            markDirty(slot, roundsAlive[slot] <= NEW_ROUNDS
+                    ? DIRTY_ALL | DIRTY_NEW : DIRTY_ALL);
+        }
+    }
+
+    /**
+     * Mark a row as changed.
+     *
+     * @param slot the row
+     * @param flags the DIRTY_ flags to set
+     */
+    void markDirty(int slot, int flags) {
+        if (dirty[slot] == 0) {
+            if (dirtyCount == dirtyRobots.length) {
+                dirtyRobots = Arrays.copyOf(dirtyRobots, 2 * dirtyCount);
+            }
+            dirtyRobots[dirtyCount++] = robots[slot];
+        }
+        dirty[slot] |= flags;
+        if ((flags & ~DIRTY_BYTECODES) != 0) {
+            version[slot]++;
+        }
+    }
+
+    /**
+     * Find the rows that are dirty in some kind, in row order, which is
+     * turn order even before the table is compacted. Takes time
+     * proportional to the number of dirty rows, not the size of the table.
+     *
+     * @param flag DIRTY_ flags; rows dirty in any of them are found
+     * @return the dirty rows
+     */
+    int[] dirtySlots(int flag) {
+        int[] slots = new int[dirtyCount];
+        int n = 0;
+        for (int i = 0; i < dirtyCount; i++) {
+            final int slot = slotOf(dirtyRobots[i]);
+            if (slot >= 0 && (dirty[slot] & flag) != 0) {
+                slots[n++] = slot;
+            }
+        }
+        slots = Arrays.copyOf(slots, n);
+        Arrays.sort(slots);
+        return slots;
+    }
+
+    /**
+     * Clear some dirty flags on every row. DIRTY_NEW stays set on robots
+     * that are still new.
+     *
+     * @param flags the DIRTY_ flags to clear
+     */
+    void clearDirty(int flags) {
+        int kept = 0;
+        for (int i = 0; i < dirtyCount; i++) {
+            final InternalRobot robot = dirtyRobots[i];
+            final int slot = slotOf(robot);
+            if (slot < 0) {
+                continue;
+            }
+            if (roundsAlive[slot] <= NEW_ROUNDS) {
+                dirty[slot] &= ~(flags & ~DIRTY_NEW);
+            } else {
+                dirty[slot] &= ~flags;
+            }
+            if (dirty[slot] != 0) {
+                dirtyRobots[kept++] = robot;
+            }
+        }
+        Arrays.fill(dirtyRobots, kept, dirtyCount, null);
+        dirtyCount = kept;
+    }
+
+    /**
+     * @return the row of a robot in this table, or -1 if it has been removed
+     */
+    private int slotOf(InternalRobot robot) {
+        final int slot = robot.getSlot();
+        return slot < size && robots[slot] == robot ? slot : -1;
+    }
+
+    private void grow(int capacity) {
+        robots = Arrays.copyOf(robots, capacity);
+        ids = Arrays.copyOf(ids, capacity);
+        healthLevel = Arrays.copyOf(healthLevel, capacity);
+        maxHealth = Arrays.copyOf(maxHealth, capacity);
+        attackPower = Arrays.copyOf(attackPower, capacity);
+        coreDelay = Arrays.copyOf(coreDelay, capacity);
+        weaponDelay = Arrays.copyOf(weaponDelay, capacity);
+        zombieInfectedTurns = Arrays.copyOf(zombieInfectedTurns, capacity);
+        viperInfectedTurns = Arrays.copyOf(viperInfectedTurns, capacity);
+        currentBytecodeLimit = Arrays.copyOf(currentBytecodeLimit, capacity);
+        bytecodesUsed = Arrays.copyOf(bytecodesUsed, capacity);
+        prevBytecodesUsed = Arrays.copyOf(prevBytecodesUsed, capacity);
+        roundsAlive = Arrays.copyOf(roundsAlive, capacity);
+        dirty = Arrays.copyOf(dirty, capacity);
+        version = Arrays.copyOf(version, capacity);
+        hashTerm = Arrays.copyOf(hashTerm, capacity);
+    }
+
+    private void clearRow(int slot) {
+        healthLevel[slot] = 0;
+        maxHealth[slot] = 0;
+        attackPower[slot] = 0;
+        coreDelay[slot] = 0;
+        weaponDelay[slot] = 0;
+        zombieInfectedTurns[slot] = 0;
+        viperInfectedTurns[slot] = 0;
+        currentBytecodeLimit[slot] = 0;
+        bytecodesUsed[slot] = 0;
+        prevBytecodesUsed[slot] = 0;
+        roundsAlive[slot] = 0;
+        dirty[slot] = 0;
+        version[slot] = 0;
+        hashTerm[slot] = 0;
+    }
+
+    private static void copyRow(RobotTable src, int srcSlot,
+                                RobotTable dst, int dstSlot, int length) {
+        System.arraycopy(src.robots, srcSlot, dst.robots, dstSlot, length);
+        System.arraycopy(src.ids, srcSlot, dst.ids, dstSlot, length);
+        System.arraycopy(src.healthLevel, srcSlot, dst.healthLevel, dstSlot, length);
+        System.arraycopy(src.maxHealth, srcSlot, dst.maxHealth, dstSlot, length);
+        System.arraycopy(src.attackPower, srcSlot, dst.attackPower, dstSlot, length);
+        System.arraycopy(src.coreDelay, srcSlot, dst.coreDelay, dstSlot, length);
+        System.arraycopy(src.weaponDelay, srcSlot, dst.weaponDelay, dstSlot, length);
+        System.arraycopy(src.zombieInfectedTurns, srcSlot, dst.zombieInfectedTurns, dstSlot, length);
+        System.arraycopy(src.viperInfectedTurns, srcSlot, dst.viperInfectedTurns, dstSlot, length);
+        System.arraycopy(src.currentBytecodeLimit, srcSlot, dst.currentBytecodeLimit, dstSlot, length);
+        System.arraycopy(src.bytecodesUsed, srcSlot, dst.bytecodesUsed, dstSlot, length);
+        System.arraycopy(src.prevBytecodesUsed, srcSlot, dst.prevBytecodesUsed, dstSlot, length);
+        System.arraycopy(src.roundsAlive, srcSlot, dst.roundsAlive, dstSlot, length);
+        System.arraycopy(src.dirty, srcSlot, dst.dirty, dstSlot, length);
+        System.arraycopy(src.version, srcSlot, dst.version, dstSlot, length);
+        System.arraycopy(src.hashTerm, srcSlot, dst.hashTerm, dstSlot, length);
+    }
+}
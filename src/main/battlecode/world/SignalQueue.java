@@ -0,0 +1,121 @@
+package battlecode.world;
+
+import battlecode.common.Signal;
+
+import java.util.Arrays;
+
+/**
+ * A fixed-capacity first-in first-out queue of the signals a robot has
+ * received. When the queue is full, adding a signal evicts the oldest one.
+ *
+ * Backed by a circular buffer, so adding, evicting and removing are all
+ * constant time. The buffer isn't allocated until the first signal arrives,
+ * since many robots never receive any.
+ */
+final class SignalQueue {
+    /**
+     * The most signals the queue will hold.
+     */
+    private final int capacity;
+
+    /**
+     * The circular buffer; null until something is added.
+     */
+    private Signal[] buffer;
+
+    /**
+     * The index in buffer of the oldest signal.
+     */
+    private int head;
+
+    /**
+     * The number of signals in the queue.
+     */
+    private int size;
+
+    /**
+     * Create an empty queue.
+     *
+     * @param capacity the most signals the queue will hold
+     */
+    SignalQueue(int capacity) {
+        this.capacity = capacity;
+    }
+
+    /**
+     * @return the number of signals in the queue
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Add a signal to the end of the queue, evicting the oldest signal if
+     * the queue is full.
+     *
+     * @param signal the signal to add
+     */
+    void add(Signal signal) {
+        if (buffer == null) {
+            buffer = new Signal[capacity];
+        }
+        if (size == capacity) {
+            buffer[head] = signal;
+            head = (head + 1) % capacity;
+        } else {
+            buffer[(head + size) % capacity] = signal;
+            size++;
+        }
+    }
+
+    /**
+     * Remove and return the oldest signal in the queue.
+     *
+     * @return the oldest signal, or null if the queue is empty
+     */
+    Signal poll() {
+        if (size == 0) {
+            return null;
+        }
+        final Signal signal = buffer[head];
+        buffer[head] = null;
+        head = (head + 1) % capacity;
+        size--;
+        return signal;
+    }
+
+    /**
+     * @return the signals in the queue, oldest first, leaving them there
+     */
+    Signal[] toArray() {
+        final Signal[] result = new Signal[size];
+        for (int i = 0; i < size; i++) {
+            result[i] = buffer[(head + i) % capacity];
+        }
+        return result;
+    }
+
+    /**
+     * Remove every signal from the queue.
+     *
+     * @return the signals that were in the queue, oldest first
+     */
+    Signal[] drain() {
+        final Signal[] result = new Signal[size];
+        if (size == 0) {
+            return result;
+        }
+
+        final int firstPart = Math.min(size, capacity - head);
+        System.arraycopy(buffer, head, result, 0, firstPart);
+        System.arraycopy(buffer, 0, result, firstPart, size - firstPart);
+
+        // Don't hold on to signals the robot has already read.
+        Arrays.fill(buffer, head, head + firstPart, null);
+        Arrays.fill(buffer, 0, size - firstPart, null);
+
+        head = 0;
+        size = 0;
+        return result;
+    }
+}
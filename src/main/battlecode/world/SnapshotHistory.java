@@ -0,0 +1,96 @@
+package battlecode.world;
+
+import java.util.ArrayList;
+
+/**
+ * Snapshots of a GameWorld, taken every few rounds as it runs, so that it
+ * can be taken back to any earlier round by restoring the nearest snapshot
+ * before it and running the rounds in between again.
+ *
+ * Replayed rounds reproduce the original ones exactly only if the world's
+ * control provider keeps no per-match state of its own; see
+ * GameWorld.restore.
+ */
+public final class SnapshotHistory {
+    /**
+     * The world we're taking snapshots of.
+     */
+    private final GameWorld world;
+
+    /**
+     * The number of rounds between snapshots.
+     */
+    private final int interval;
+
+    /**
+     * The snapshots taken so far, in round order. The first is of the
+     * world before its first round.
+     */
+    private final ArrayList<GameWorld.Snapshot> snapshots = new ArrayList<>();
+
+    /**
+     * Start keeping snapshots of a world, beginning with one of its state
+     * now.
+     *
+     * @param world the world to take snapshots of
+     * @param interval the number of rounds between snapshots
+     */
+    public SnapshotHistory(GameWorld world, int interval) {
+        if (interval <= 0) {
+            throw new IllegalArgumentException(
+                    "Snapshot interval must be positive: " + interval);
+        }
+
+        this.world = world;
+        this.interval = interval;
+        this.snapshots.add(world.snapshot());
+    }
+
+    /**
+     * Take a snapshot if one is due. Call after each round.
+     */
+    public void roundEnded() {
+        if ((world.getCurrentRound() + 1) % interval == 0) {
+            snapshots.add(world.snapshot());
+        }
+    }
+
+    /**
+     * @param round a round
+     * @return the latest snapshot taken at or before the end of that round
+     */
+    public GameWorld.Snapshot nearest(int round) {
+        for (int i = snapshots.size() - 1; i > 0; i--) {
+            if (snapshots.get(i).getRound() <= round) {
+                return snapshots.get(i);
+            }
+        }
+        return snapshots.get(0);
+    }
+
+    /**
+     * Take the world back to the end of an earlier round: restore the
+     * nearest snapshot before it, then run the rounds after the snapshot
+     * again. Snapshots of later rounds are discarded, since the world may
+     * be changed (e.g. by injected signals) before it gets to them again.
+     *
+     * @param round the round to go back to; -1 for before the first round
+     */
+    public void rewind(int round) {
+        if (round < -1 || round > world.getCurrentRound()) {
+            throw new IllegalArgumentException("Can't rewind to round "
+                    + round + " from round " + world.getCurrentRound());
+        }
+
+        final GameWorld.Snapshot snapshot = nearest(round);
+        while (snapshots.get(snapshots.size() - 1) != snapshot) {
+            snapshots.remove(snapshots.size() - 1);
+        }
+
+        world.restore(snapshot);
+        while (world.getCurrentRound() < round) {
+            world.runRound();
+            roundEnded();
+        }
+    }
+}
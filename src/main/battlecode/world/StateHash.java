@@ -0,0 +1,67 @@
+package battlecode.world;
+
+/**
+ * Hashing for GameWorld's running state hash.
+ *
+ * The state hash is the sum (mod 2^64) of one term for each piece of state:
+ * each robot, each rubble and parts cell, each team's resources and each
+ * word of team memory. When a piece of state changes, its old term is
+ * subtracted and its new one added, so the hash is kept up to date in
+ * constant time per change and depends only on the current state, not on
+ * the order in which it came about. Terms depend only on the values
+ * involved, never on object identity, so the same match hashes the same on
+ * any JVM.
+ */
+final class StateHash {
+    // Kinds of state, so that equal values in different places differ.
+    static final long ROBOT = 0x524F424F54L;
+    static final long RUBBLE = 0x5255424C45L;
+    static final long PARTS = 0x5041525453L;
+    static final long RESOURCES = 0x5245534FL;
+    static final long MEMORY = 0x4D454D4FL;
+
+    private StateHash() {}
+
+    /**
+     * @param kind one of the kinds of state above
+     * @param key which piece of state of that kind, e.g. a cell index
+     * @param value the bits of its value
+     * @return the term the state contributes to the hash
+     */
+    static long term(long kind, long key, long value) {
+        return mix(mix(kind * 0x9E3779B97F4A7C15L + key) ^ value);
+    }
+
+    /**
+     * @param kind one of the kinds of state above
+     * @param key which piece of state of that kind, e.g. a cell index
+     * @param value its value
+     * @return the term the state contributes to the hash
+     */
+    static long term(long kind, long key, double value) {
+        return term(kind, key, Double.doubleToLongBits(value));
+    }
+
+    /**
+     * @return the term a robot contributes to the hash
+     */
+    static long robotTerm(InternalRobot robot) {
+        long h = mix(ROBOT * 0x9E3779B97F4A7C15L + robot.getID());
+        h = mix(h ^ (((long) robot.getTeam().ordinal() << 8)
+                | robot.getType().ordinal()));
+        h = mix(h ^ (((long) robot.getLocation().x << 32)
+                | (robot.getLocation().y & 0xFFFFFFFFL)));
+        h = mix(h ^ Double.doubleToLongBits(robot.getHealthLevel()));
+        h = mix(h ^ Double.doubleToLongBits(robot.getCoreDelay()));
+        return mix(h ^ Double.doubleToLongBits(robot.getWeaponDelay()));
+    }
+
+    /**
+     * The SplitMix64 finalizer: a cheap bijective mix with good avalanche.
+     */
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -2,8 +2,10 @@ package battlecode.world.control;
 
 import battlecode.instrumenter.IndividualClassLoader;
 import battlecode.instrumenter.InstrumentationException;
+import battlecode.instrumenter.SandboxPool;
 import battlecode.instrumenter.SandboxedRobotPlayer;
 import battlecode.server.Config;
+import battlecode.server.EngineMetrics;
 import battlecode.server.ErrorReporter;
 import battlecode.world.GameWorld;
 import battlecode.world.InternalRobot;
@@ -47,6 +49,22 @@ public class PlayerControlProvider implements RobotControlProvider {
      */
     private String teamName;
 
+    /**
+     * Where we record what we've been up to.
+     */
+    private final EngineMetrics metrics;
+
+    /**
+     * How many sandboxes to keep ready for new robots; 0 to create each
+     * robot's sandbox when it spawns.
+     */
+    private final int poolSize;
+
+    /**
+     * The sandboxes ready for new robots this match, if we keep any.
+     */
+    private SandboxPool pool;
+
     /**
      * Create a new PlayerControlProvider.
      *
@@ -55,7 +73,22 @@ public class PlayerControlProvider implements RobotControlProvider {
      *                null to load from the system classpath
      */
     public PlayerControlProvider(String teamName, URL teamURL) {
+        this(teamName, teamURL, new EngineMetrics());
+    }
+
+    /**
+     * Create a new PlayerControlProvider.
+     *
+     * @param teamName the name / package of the team we're loading
+     * @param teamURL the url of the classes for the team;
+     *                null to load from the system classpath
+     * @param metrics the engine metrics to record into
+     */
+    public PlayerControlProvider(String teamName, URL teamURL,
+                                 EngineMetrics metrics) {
         this.teamName = teamName;
+        this.metrics = metrics;
+        this.poolSize = Config.getGlobalConfig().getInt("bc.engine.sandbox-pool-size");
         this.sandboxes = new HashMap<>(); // GameWorld maintains order for us
 
         if (teamURL == null) {
@@ -68,6 +101,11 @@ public class PlayerControlProvider implements RobotControlProvider {
     @Override
     public void matchStarted(GameWorld gameWorld) {
         this.gameWorld = gameWorld;
+
+        if (poolSize > 0) {
+            this.pool = new SandboxPool(teamName, sharedCache, poolSize);
+            this.pool.refill();
+        }
     }
 
     @Override
@@ -79,18 +117,30 @@ public class PlayerControlProvider implements RobotControlProvider {
         }
         this.sandboxes.clear();
         this.gameWorld = null;
+
+        if (this.pool != null) {
+            this.pool.close();
+            this.pool = null;
+        }
     }
 
     @Override
     public void robotSpawned(InternalRobot robot) {
+        final long start = System.nanoTime();
         try {
-            final SandboxedRobotPlayer player = new SandboxedRobotPlayer(
-                    teamName,
-                    robot.getController(),
-                    gameWorld.getMapSeed(),
-                    sharedCache
-            );
+            SandboxedRobotPlayer player = pool != null ? pool.take() : null;
+            if (player != null) {
+                player.bind(robot.getController(), gameWorld.getMapSeed());
+            } else {
+                player = new SandboxedRobotPlayer(
+                        teamName,
+                        robot.getController(),
+                        gameWorld.getMapSeed(),
+                        sharedCache
+                );
+            }
             this.sandboxes.put(robot.getID(), player);
+            metrics.recordSpawnLatency(System.nanoTime() - start);
         } catch (InstrumentationException e) {
             ErrorReporter.report("Error while loading player "+teamName+": "+e.getMessage(), false);
             robot.suicide();
@@ -119,7 +169,11 @@ public class PlayerControlProvider implements RobotControlProvider {
     public void roundStarted() {}
 
     @Override
-    public void roundEnded() {}
+    public void roundEnded() {
+        if (this.pool != null) {
+            this.pool.refill();
+        }
+    }
 
     @Override
     public void runRobot(InternalRobot robot) {
@@ -128,7 +182,17 @@ public class PlayerControlProvider implements RobotControlProvider {
         final SandboxedRobotPlayer player = this.sandboxes.get(robot.getID());
 
         if (player != null) {
-            player.setBytecodeLimit(robot.getBytecodeLimit());
+            final int limit = robot.getBytecodeLimit();
+
+            // A robot with no bytecodes, e.g. one that's still being built,
+            // usually just pauses again as soon as it's woken up; if so,
+            // don't bother waking it.
+            if (limit == 0 && player.skipStep()) {
+                metrics.recordSkippedHandoff();
+                return;
+            }
+
+            player.setBytecodeLimit(limit);
             player.step();
         }
     }
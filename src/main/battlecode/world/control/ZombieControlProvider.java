@@ -9,6 +9,9 @@ import battlecode.world.InternalRobot;
 import battlecode.common.ZombieSpawnSchedule;
 
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
 
 /**
  * The control provider for zombies. Doesn't use instrumentation or anything,
@@ -22,6 +25,45 @@ import java.util.*;
  */
 public class ZombieControlProvider implements RobotControlProvider {
 
+    /**
+     * How zombies make their decisions.
+     */
+    public enum DecisionMode {
+        /**
+         * Zombies decide one at a time, in turn order, drawing random
+         * numbers from rngs shared by all zombies.
+         */
+        SEQUENTIAL,
+
+        /**
+         * Like SEQUENTIAL, but each zombie's search for the closest
+         * player-controlled robots is done in parallel at the start of the
+         * round. On its turn, a zombie uses what it found unless it has
+         * moved or a player-controlled robot has appeared or disappeared
+         * close enough to change it, in which case it searches again.
+         * Ties are still broken on its turn, from the shared rng, so the
+         * result is identical to SEQUENTIAL.
+         */
+        PARALLEL
+    }
+
+    /**
+     * The result of a zombie's target search: the closest player-controlled
+     * robots to where it was.
+     */
+    private static final class Plan {
+        final MapLocation location;
+        final ArrayList<InternalRobot> closest;
+        final int closestDistSq;
+
+        Plan(MapLocation location, ArrayList<InternalRobot> closest) {
+            this.location = location;
+            this.closest = closest;
+            this.closestDistSq = closest.isEmpty() ? Integer.MAX_VALUE
+                    : closest.get(0).getLocation().distanceSquaredTo(location);
+        }
+    }
+
     /**
      * The directions a zombie cares about.
      */
@@ -51,29 +93,36 @@ public class ZombieControlProvider implements RobotControlProvider {
      */
     private GameWorld world;
 
+    private boolean disableSpawning;
+
+    private final DecisionMode mode;
+
     /**
-     * The queues of zombies to spawn for each den.
+     * In PARALLEL mode, the pool target searches run on.
      */
-    private final Map<Integer, Map<RobotType, Integer>> denQueues;
+    private ForkJoinPool pool;
 
     /**
-     * An rng based on the world seed.
+     * In PARALLEL mode, the plans made at the start of this round, by
+     * zombie ID, and the world's player presence mark when they were made.
      */
-    private Random random;
-
-    private boolean disableSpawning;
+    private final Map<Integer, Plan> plans = new HashMap<>();
+    private int plansMark;
 
     /**
      * Create a ZombieControlProvider.
      */
     public ZombieControlProvider() {
-        this.disableSpawning = false;
-        this.denQueues = new HashMap<>();
+        this(false);
     }
 
     public ZombieControlProvider(boolean disableSpawning) {
+        this(disableSpawning, DecisionMode.SEQUENTIAL);
+    }
+
+    public ZombieControlProvider(boolean disableSpawning, DecisionMode mode) {
         this.disableSpawning = disableSpawning;
-        this.denQueues = new HashMap<>();
+        this.mode = mode;
     }
 
     @Override
@@ -81,7 +130,9 @@ public class ZombieControlProvider implements RobotControlProvider {
         assert this.world == null;
 
         this.world = world;
-        this.random = new Random(world.getMapSeed());
+        if (mode == DecisionMode.PARALLEL) {
+            this.pool = new ForkJoinPool();
+        }
     }
 
     @Override
@@ -89,27 +140,59 @@ public class ZombieControlProvider implements RobotControlProvider {
         assert this.world != null;
 
         this.world = null;
-        this.random = null;
-        this.denQueues.clear();
+        this.plans.clear();
+        if (pool != null) {
+            pool.shutdown();
+            pool = null;
+        }
     }
 
     @Override
-    public void roundStarted() {}
+    public void roundStarted() {
+        if (mode != DecisionMode.PARALLEL) {
+            return;
+        }
+
+        final List<InternalRobot> zombies = new ArrayList<>();
+        for (InternalRobot robot : world.allObjects()) {
+            if (robot.getType().isZombie && robot.getType() != RobotType.ZOMBIEDEN) {
+                zombies.add(robot);
+            }
+        }
+
+        // Nothing changes the world while the searches run.
+        plansMark = world.getPlayerPresenceMark();
+        final List<Plan> made;
+        try {
+            made = pool.submit(() -> zombies.parallelStream()
+                    .map(this::plan)
+                    .collect(Collectors.toList())
+            ).get();
+        } catch (InterruptedException | ExecutionException e) {
+            // Zombies will just plan on their own turns.
+            ErrorReporter.report(e, true);
+            return;
+        }
+        for (int i = 0; i < zombies.size(); i++) {
+            plans.put(zombies.get(i).getID(), made.get(i));
+        }
+    }
 
     @Override
-    public void roundEnded() {}
+    public void roundEnded() {
+        plans.clear();
+    }
 
     @Override
     public void robotSpawned(InternalRobot robot) {
         if (robot.getType() == RobotType.ZOMBIEDEN) {
-            // Create the spawn queue for this robot
-            final Map<RobotType, Integer> spawnQueue = new HashMap<>();
+            // The world keeps the spawn queue for this robot; a den that's
+            // been restored from a snapshot already has one.
+            final Map<RobotType, Integer> spawnQueue = world.getDenQueue(robot.getID());
             // Initialize all zombie types in the queue to 0
             for (RobotType type : ZOMBIE_TYPES) {
-                spawnQueue.put(type, 0);
+                spawnQueue.putIfAbsent(type, 0);
             }
-            // Store it in denQueues
-            denQueues.put(robot.getID(), spawnQueue);
         }
     }
 
@@ -123,7 +206,20 @@ public class ZombieControlProvider implements RobotControlProvider {
                 processZombieDen(robot);
             }
         } else if (robot.getType().isZombie) {
-            processZombie(robot);
+            if (mode == DecisionMode.SEQUENTIAL) {
+                processZombie(robot,
+                        world.getNearestPlayerControlled(robot.getLocation()));
+            } else {
+                Plan plan = plans.remove(robot.getID());
+                if (plan == null
+                        || !plan.location.equals(robot.getLocation())
+                        || world.playerPresenceChangedWithin(plan.location,
+                                plan.closestDistSq, plansMark)) {
+                    plan = plan(robot);
+                }
+                processZombie(robot,
+                        world.pickNearestPlayerControlled(plan.closest));
+            }
         } else {
             // We're somehow controlling a non-zombie robot.
             // ...
@@ -141,7 +237,7 @@ public class ZombieControlProvider implements RobotControlProvider {
         assert den.getType() == RobotType.ZOMBIEDEN;
 
         final RobotController rc = den.getController();
-        final Map<RobotType, Integer> spawnQueue = denQueues.get(rc.getID());
+        final Map<RobotType, Integer> spawnQueue = world.getDenQueue(rc.getID());
 
         final ZombieSpawnSchedule zSchedule = world.getGameMap().getZombieSpawnSchedule(den.getLocation());
 
@@ -164,7 +260,8 @@ public class ZombieControlProvider implements RobotControlProvider {
         if (next != null) {
             // There are still things in queue, so attack all locations
             for (int dirOffset = 0; dirOffset < DIRECTIONS.length; dirOffset++) {
-                final InternalRobot block = world.getObject(rc.getLocation().add(DIRECTIONS[dirOffset]));
+                final InternalRobot block = world.getObject(
+                        world.getLocationPool().add(rc.getLocation(), DIRECTIONS[dirOffset]));
                 if (block != null && block.getTeam() != Team.ZOMBIE) {
                     block.takeDamage(GameConstants.DEN_SPAWN_PROXIMITY_DAMAGE);
                 }
@@ -217,12 +314,31 @@ public class ZombieControlProvider implements RobotControlProvider {
         }
     }
 
-    private void processZombie(InternalRobot zombie) {
+    /**
+     * Search for the player-controlled robots closest to a zombie, from
+     * where it is now. Only reads the world.
+     *
+     * @param zombie the zombie
+     * @return what the zombie found
+     */
+    private Plan plan(InternalRobot zombie) {
+        final MapLocation location = zombie.getLocation();
+        final ArrayList<InternalRobot> closest = new ArrayList<>();
+        world.findNearestPlayerControlled(location, closest);
+        return new Plan(location, closest);
+    }
+
+    /**
+     * Run the logic for a zombie.
+     *
+     * @param zombie the zombie
+     * @param closestRobot the player-controlled robot closest to the zombie
+     */
+    private void processZombie(InternalRobot zombie, RobotInfo closestRobot) {
         assert zombie.getType().isZombie;
 
         final RobotController rc = zombie.getController();
-
-        RobotInfo closestRobot = world.getNearestPlayerControlled(rc.getLocation());
+        final Random random = world.getZombieRandom();
 
         try {
             if (closestRobot != null && rc.canAttackLocation(closestRobot.location)) {
@@ -280,7 +396,7 @@ public class ZombieControlProvider implements RobotControlProvider {
             }
 
             // Try to clear rubble instead
-            final MapLocation preferredTarget = rc.getLocation().add(preferredDirection);
+            final MapLocation preferredTarget = world.getLocationPool().add(rc.getLocation(), preferredDirection);
             if (!rc.isLocationOccupied(preferredTarget) && rc.onTheMap(preferredTarget)
                     && rc.senseRubble(preferredTarget) >= GameConstants.RUBBLE_OBSTRUCTION_THRESH) {
                 rc.clearRubble(preferredDirection);
@@ -47,4 +47,9 @@ public class ActivationSignal implements InternalSignal {
     private ActivationSignal() {
         this(0, null);
     }
+
+    @Override
+    public void accept(SignalVisitor visitor) {
+        visitor.visitActivationSignal(this);
+    }
 }
@@ -57,4 +57,9 @@ public final class AttackSignal implements InternalSignal {
     public MapLocation getTargetLoc() {
         return targetLoc;
     }
+
+    @Override
+    public void accept(SignalVisitor visitor) {
+        visitor.visitAttackSignal(this);
+    }
 }
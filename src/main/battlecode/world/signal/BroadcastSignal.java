@@ -74,4 +74,9 @@ public class BroadcastSignal implements InternalSignal {
     private BroadcastSignal() {
         this(0, null, 0);
     }
+
+    @Override
+    public void accept(SignalVisitor visitor) {
+        visitor.visitBroadcastSignal(this);
+    }
 }
@@ -73,4 +73,9 @@ public class BuildSignal implements InternalSignal {
     private BuildSignal() {
         this(0, null, null, null, 0);
     }
+
+    @Override
+    public void accept(SignalVisitor visitor) {
+        visitor.visitBuildSignal(this);
+    }
 }
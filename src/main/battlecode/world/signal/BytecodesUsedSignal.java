@@ -64,4 +64,9 @@ public class BytecodesUsedSignal implements InternalSignal {
         this.robotIDs = null;
         this.numBytecodes = null;
     }
+
+    @Override
+    public void accept(SignalVisitor visitor) {
+        visitor.visitBytecodesUsedSignal(this);
+    }
 }
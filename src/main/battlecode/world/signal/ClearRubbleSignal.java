@@ -70,4 +70,9 @@ public class ClearRubbleSignal implements InternalSignal {
     private ClearRubbleSignal() {
         this(0, null, 0);
     }
+
+    @Override
+    public void accept(SignalVisitor visitor) {
+        visitor.visitClearRubbleSignal(this);
+    }
 }
@@ -31,4 +31,9 @@ public class ControlBitsSignal implements InternalSignal {
     private ControlBitsSignal() {
         this(0, 0L);
     }
+
+    @Override
+    public void accept(SignalVisitor visitor) {
+        visitor.visitControlBitsSignal(this);
+    }
 }
@@ -90,4 +90,9 @@ public class DeathSignal implements InternalSignal {
     private DeathSignal() {
         this(0);
     }
+
+    @Override
+    public void accept(SignalVisitor visitor) {
+        visitor.visitDeathSignal(this);
+    }
 }
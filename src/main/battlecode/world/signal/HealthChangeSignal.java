@@ -70,4 +70,10 @@ public class HealthChangeSignal implements InternalSignal {
     private HealthChangeSignal() {
         this.robotIDs = null;
         this.health = null;
-    }}
+    }
+
+    @Override
+    public void accept(SignalVisitor visitor) {
+        visitor.visitHealthChangeSignal(this);
+    }
+}
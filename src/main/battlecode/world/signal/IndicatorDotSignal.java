@@ -29,4 +29,9 @@ public class IndicatorDotSignal implements InternalSignal {
     private IndicatorDotSignal() {
         this(0, null, null, 0, 0, 0);
     }
+
+    @Override
+    public void accept(SignalVisitor visitor) {
+        visitor.visitIndicatorDotSignal(this);
+    }
 }
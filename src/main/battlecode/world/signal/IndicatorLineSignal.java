@@ -31,4 +31,9 @@ public class IndicatorLineSignal implements InternalSignal {
     private IndicatorLineSignal() {
         this(0, null, null, null, 0, 0, 0);
     }
+
+    @Override
+    public void accept(SignalVisitor visitor) {
+        visitor.visitIndicatorLineSignal(this);
+    }
 }
@@ -71,4 +71,9 @@ public class IndicatorStringSignal implements InternalSignal {
     private IndicatorStringSignal() {
         this(0, 0, null);
     }
+
+    @Override
+    public void accept(SignalVisitor visitor) {
+        visitor.visitIndicatorStringSignal(this);
+    }
 }
@@ -70,4 +70,9 @@ public class InfectionSignal implements InternalSignal {
         this.viperInfectedTurns = null;
 
     }
+
+    @Override
+    public void accept(SignalVisitor visitor) {
+        visitor.visitInfectionSignal(this);
+    }
 }
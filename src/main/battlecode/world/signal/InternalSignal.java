@@ -35,4 +35,11 @@ import java.io.Serializable;
         @Type(value = TeamResourceSignal.class, name="teamResource"),
         @Type(value = TypeChangeSignal.class, name="typeChange"),
 })
-public interface InternalSignal extends Serializable {}
+public interface InternalSignal extends Serializable {
+    /**
+     * Pass this signal to the visitor method for its type.
+     *
+     * @param visitor the visitor to call
+     */
+    void accept(SignalVisitor visitor);
+}
@@ -55,4 +55,9 @@ public class MatchObservationSignal implements InternalSignal {
     private MatchObservationSignal() {
         this(0, null);
     }
+
+    @Override
+    public void accept(SignalVisitor visitor) {
+        visitor.visitMatchObservationSignal(this);
+    }
 }
@@ -58,4 +58,9 @@ public class MovementOverrideSignal implements InternalSignal {
     private MovementOverrideSignal() {
         this(0, null);
     }
+
+    @Override
+    public void accept(SignalVisitor visitor) {
+        visitor.visitMovementOverrideSignal(this);
+    }
 }
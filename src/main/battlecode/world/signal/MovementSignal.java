@@ -70,4 +70,9 @@ public class MovementSignal implements InternalSignal {
     private MovementSignal() {
         this(0, null, 0);
     }
+
+    @Override
+    public void accept(SignalVisitor visitor) {
+        visitor.visitMovementSignal(this);
+    }
 }
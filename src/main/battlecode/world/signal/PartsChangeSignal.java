@@ -41,4 +41,9 @@ public class PartsChangeSignal implements InternalSignal {
     private PartsChangeSignal() {
         this(null, 0);
     }
+
+    @Override
+    public void accept(SignalVisitor visitor) {
+        visitor.visitPartsChangeSignal(this);
+    }
 }
@@ -68,4 +68,9 @@ public class RobotDelaySignal implements InternalSignal {
         this.weaponDelays = null;
 
     }
+
+    @Override
+    public void accept(SignalVisitor visitor) {
+        visitor.visitRobotDelaySignal(this);
+    }
 }
@@ -41,4 +41,9 @@ public class RubbleChangeSignal implements InternalSignal {
     private RubbleChangeSignal() {
         this(null, 0);
     }
+
+    @Override
+    public void accept(SignalVisitor visitor) {
+        visitor.visitRubbleChangeSignal(this);
+    }
 }
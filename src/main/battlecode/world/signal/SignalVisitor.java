@@ -0,0 +1,53 @@
+package battlecode.world.signal;
+
+/**
+ * Receives signals by type, through InternalSignal.accept.
+ *
+ * Every method does nothing by default, so implementors only need to
+ * override the signals they care about.
+ */
+public interface SignalVisitor {
+    default void visitActivationSignal(ActivationSignal s) {}
+
+    default void visitAttackSignal(AttackSignal s) {}
+
+    default void visitBroadcastSignal(BroadcastSignal s) {}
+
+    default void visitBuildSignal(BuildSignal s) {}
+
+    default void visitBytecodesUsedSignal(BytecodesUsedSignal s) {}
+
+    default void visitClearRubbleSignal(ClearRubbleSignal s) {}
+
+    default void visitControlBitsSignal(ControlBitsSignal s) {}
+
+    default void visitDeathSignal(DeathSignal s) {}
+
+    default void visitHealthChangeSignal(HealthChangeSignal s) {}
+
+    default void visitIndicatorDotSignal(IndicatorDotSignal s) {}
+
+    default void visitIndicatorLineSignal(IndicatorLineSignal s) {}
+
+    default void visitIndicatorStringSignal(IndicatorStringSignal s) {}
+
+    default void visitInfectionSignal(InfectionSignal s) {}
+
+    default void visitMatchObservationSignal(MatchObservationSignal s) {}
+
+    default void visitMovementOverrideSignal(MovementOverrideSignal s) {}
+
+    default void visitMovementSignal(MovementSignal s) {}
+
+    default void visitPartsChangeSignal(PartsChangeSignal s) {}
+
+    default void visitRobotDelaySignal(RobotDelaySignal s) {}
+
+    default void visitRubbleChangeSignal(RubbleChangeSignal s) {}
+
+    default void visitSpawnSignal(SpawnSignal s) {}
+
+    default void visitTeamResourceSignal(TeamResourceSignal s) {}
+
+    default void visitTypeChangeSignal(TypeChangeSignal s) {}
+}
@@ -100,4 +100,9 @@ public class SpawnSignal implements InternalSignal {
     private SpawnSignal() {
         this(0, 0, null, null, null, 0);
     }
+
+    @Override
+    public void accept(SignalVisitor visitor) {
+        visitor.visitSpawnSignal(this);
+    }
 }
@@ -30,4 +30,9 @@ public class TeamResourceSignal implements InternalSignal {
     private TeamResourceSignal() {
         this(null, 0);
     }
+
+    @Override
+    public void accept(SignalVisitor visitor) {
+        visitor.visitTeamResourceSignal(this);
+    }
 }
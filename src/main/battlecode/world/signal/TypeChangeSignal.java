@@ -45,4 +45,9 @@ public class TypeChangeSignal implements InternalSignal {
     private TypeChangeSignal() {
         this(0, null);
     }
+
+    @Override
+    public void accept(SignalVisitor visitor) {
+        visitor.visitTypeChangeSignal(this);
+    }
 }
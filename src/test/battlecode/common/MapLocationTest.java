@@ -2,6 +2,10 @@ package battlecode.common;
 
 import org.junit.Test;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
 import static org.junit.Assert.*;
 
 public class MapLocationTest {
@@ -76,6 +80,25 @@ public class MapLocationTest {
         testGetMapLocationsHelper(center, 25, 69 + 4 + 8);
     }
 
+    @Test
+    public void testGetAllMapLocationsMatchesBruteForce() {
+        MapLocation center = new MapLocation(7, -3);
+        for (int radiusSquared = 0; radiusSquared <= 100; radiusSquared++) {
+            // The order the method has always used: by x, then by y.
+            List<MapLocation> expected = new ArrayList<>();
+            for (int x = center.x - 10; x <= center.x + 10; x++) {
+                for (int y = center.y - 10; y <= center.y + 10; y++) {
+                    MapLocation loc = new MapLocation(x, y);
+                    if (loc.distanceSquaredTo(center) <= radiusSquared) {
+                        expected.add(loc);
+                    }
+                }
+            }
+            assertEquals(expected, Arrays.asList(
+                    MapLocation.getAllMapLocationsWithinRadiusSq(center, radiusSquared)));
+        }
+    }
+
     @Test(expected=IllegalArgumentException.class)
     public void testCantGetMapLocationsLargeRadiusSq() {
         final MapLocation center = new MapLocation(-500, 200);
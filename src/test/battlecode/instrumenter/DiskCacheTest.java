@@ -0,0 +1,148 @@
+package battlecode.instrumenter;
+
+import battlecode.server.Config;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for DiskCache.
+ */
+public class DiskCacheTest {
+    private Path directory;
+    private DiskCache cache;
+
+    @Before
+    public void createCache() throws IOException {
+        directory = Files.createTempDirectory("battlecode-test");
+        cache = new DiskCache(directory, null, getClass().getClassLoader());
+    }
+
+    @After
+    public void deleteCache() throws IOException {
+        FileUtils.deleteDirectory(directory.toFile());
+    }
+
+    @Test
+    public void testStoresClasses() throws IOException {
+        final byte[] original = classBytes("instrumentertest/Nothing.class");
+        final String key = cache.key("instrumented.java.util.Foo", "instrumentertest", false, false, original);
+
+        assertNull(cache.get(key));
+        cache.put(key, original);
+        assertArrayEquals(original, cache.get(key));
+
+        // Someone else stores it too.
+        cache.put(key, original);
+        assertArrayEquals(original, cache.get(key));
+        assertEquals(1, entries().size());
+    }
+
+    @Test
+    public void testIgnoresDamagedEntries() throws IOException {
+        final byte[] original = classBytes("instrumentertest/Nothing.class");
+        final String key = cache.key("instrumented.java.util.Foo", "instrumentertest", false, false, original);
+        cache.put(key, original);
+
+        final Path entry = entries().get(0);
+        final byte[] damaged = Files.readAllBytes(entry);
+        damaged[damaged.length - 1] ^= 1;
+        Files.write(entry, damaged);
+        assertNull(cache.get(key));
+
+        Files.write(entry, new byte[] {1, 2, 3});
+        assertNull(cache.get(key));
+    }
+
+    @Test
+    public void testKeyCoversInstrumentationOptions() throws IOException {
+        final byte[] original = classBytes("instrumentertest/Nothing.class");
+        final String key = cache.key("instrumentertest.Nothing", "instrumentertest", true, false, original);
+
+        assertEquals(key, cache.key("instrumentertest/Nothing", "instrumentertest", true, false, original));
+        assertNotEquals(key, cache.key("instrumentertest.Nothing", "instrumentertest", true, true, original));
+        assertNotEquals(key, cache.key("instrumentertest.Nothing", "instrumentertest", false, false, original));
+        assertNotEquals(key, cache.key("instrumentertest.Outer", "instrumentertest", true, false, original));
+        assertNotEquals(key, cache.key("instrumentertest.Nothing", "instrumentertest", true, false,
+                classBytes("instrumentertest/Outer.class")));
+
+        // Library classes too depend on the team.
+        assertNotEquals(cache.key("instrumented.java.util.Foo", "instrumentertest", false, false, original),
+                cache.key("instrumented.java.util.Foo", "testplayerclock", false, false, original));
+    }
+
+    @Test
+    public void testKeyCoversWholeTeam() throws IOException {
+        final Path classes = Files.createTempDirectory("battlecode-test");
+        try {
+            final byte[] original = classBytes("instrumentertest/Nothing.class");
+            Files.createDirectories(classes.resolve("team"));
+            Files.write(classes.resolve("team/A.class"), original);
+            Files.write(classes.resolve("team/B.class"), original);
+
+            final String key = new DiskCache(directory, classes.toUri().toURL(), null)
+                    .key("team.A", "team", true, false, original);
+            assertEquals(key, new DiskCache(directory, classes.toUri().toURL(), null)
+                    .key("team.A", "team", true, false, original));
+
+            // A's superclass, say, changed.
+            Files.write(classes.resolve("team/B.class"), classBytes("instrumentertest/Outer.class"));
+            assertNotEquals(key, new DiskCache(directory, classes.toUri().toURL(), null)
+                    .key("team.A", "team", true, false, original));
+
+            // Teams that can't be found aren't cached.
+            assertNull(cache.key("team.A", "team", true, false, original));
+        } finally {
+            FileUtils.deleteDirectory(classes.toFile());
+        }
+    }
+
+    @Test
+    public void testIndividualClassLoaderUsesCache() throws Exception {
+        Config.getGlobalConfig().set("bc.engine.instrumentation-cache", directory.toString());
+        try {
+            new IndividualClassLoader("instrumentertest", new IndividualClassLoader.Cache())
+                    .loadClass("instrumentertest.Nothing");
+            final List<Object> stored = fileKeys();
+            assertFalse(stored.isEmpty());
+
+            // Another process finds them there, and doesn't write them again.
+            new IndividualClassLoader("instrumentertest", new IndividualClassLoader.Cache())
+                    .loadClass("instrumentertest.Nothing");
+            assertEquals(stored, fileKeys());
+        } finally {
+            Config.getGlobalConfig().set("bc.engine.instrumentation-cache", "");
+        }
+    }
+
+    private byte[] classBytes(String resource) throws IOException {
+        return IOUtils.toByteArray(getClass().getClassLoader().getResourceAsStream(resource));
+    }
+
+    private List<Object> fileKeys() throws IOException {
+        final List<Object> keys = new ArrayList<>();
+        for (Path entry : entries()) {
+            keys.add(Files.readAttributes(entry, BasicFileAttributes.class).fileKey());
+        }
+        return keys;
+    }
+
+    private List<Path> entries() throws IOException {
+        try (Stream<Path> walk = Files.walk(directory)) {
+            return walk.filter(Files::isRegularFile).sorted().collect(Collectors.toList());
+        }
+    }
+}
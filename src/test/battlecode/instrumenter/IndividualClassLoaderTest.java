@@ -1,5 +1,7 @@
 package battlecode.instrumenter;
 
+import battlecode.instrumenter.bytecode.ClassReferenceUtil;
+import battlecode.instrumenter.inject.RobotContext;
 import battlecode.server.Config;
 import org.apache.commons.io.IOUtils;
 import org.junit.Before;
@@ -9,6 +11,7 @@ import static org.junit.Assert.*;
 
 import java.io.File;
 import java.io.FileOutputStream;
+import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.net.URL;
 import java.nio.file.Files;
@@ -26,6 +29,8 @@ public class IndividualClassLoaderTest {
     private IndividualClassLoader.Cache sharedCache;
     private IndividualClassLoader l1;
     private IndividualClassLoader l2;
+    private RobotContext ctx1;
+    private RobotContext ctx2;
 
     @Before
     public void resetIndividualClassLoader() throws Exception {
@@ -33,32 +38,18 @@ public class IndividualClassLoaderTest {
         l1 = new IndividualClassLoader("instrumentertest", sharedCache);
         l2 = new IndividualClassLoader("instrumentertest", sharedCache);
 
-        // Set up noop RobotMonitors.
+        // Set up noop robot contexts; code loaded by either loader runs in
+        // whichever is entered.
 
         SandboxedRobotPlayer.Pauser pauser = () -> {};
         SandboxedRobotPlayer.Killer killer = () -> {};
 
-        final Class<?> monitor1 = l1
-                .loadClass("battlecode.instrumenter.inject.RobotMonitor");
-        monitor1.getMethod("init",
-                SandboxedRobotPlayer.Pauser.class,
-                SandboxedRobotPlayer.Killer.class,
-                int.class)
-                .invoke(null, pauser, killer, 0);
-        monitor1.getMethod("setBytecodeLimit", int.class)
-                .invoke(null, Integer.MAX_VALUE);
-
-
-        final Class<?> monitor2 = l2
-                .loadClass("battlecode.instrumenter.inject.RobotMonitor");
-        monitor2.getMethod("init",
-                SandboxedRobotPlayer.Pauser.class,
-                SandboxedRobotPlayer.Killer.class,
-                int.class)
-                .invoke(null, pauser, killer, 0);
-        monitor2.getMethod("setBytecodeLimit", int.class)
-                .invoke(null, Integer.MAX_VALUE);
+        ctx1 = new RobotContext(pauser, killer, 0);
+        ctx1.setBytecodeLimit(Integer.MAX_VALUE);
+        ctx2 = new RobotContext(pauser, killer, 0);
+        ctx2.setBytecodeLimit(Integer.MAX_VALUE);
 
+        ctx1.enter();
     }
 
     // Should always give the same result for loadClass(string)
@@ -152,6 +143,10 @@ public class IndividualClassLoaderTest {
                 getHashCodeNotOverrides1.invoke(notOverrides1a));
         assertEquals(getHashCodeNotOverrides1.invoke(notOverrides1b),
                 getHashCodeNotOverrides1.invoke(notOverrides1b));
+        final Object hashCode1a = getHashCodeNotOverrides1.invoke(notOverrides1a);
+        final Object hashCode1b = getHashCodeNotOverrides1.invoke(notOverrides1b);
+
+        ctx2.enter();
 
         final Class<?> notOverridesClass2 = l2.loadClass("instrumentertest.DoesntOverrideHashCode");
         final Method getHashCodeNotOverrides2 = notOverridesClass2.getMethod("getHashCode");
@@ -165,10 +160,148 @@ public class IndividualClassLoaderTest {
 
         // hashCode should be deterministic across loaders (assuming it is called
         // in the same order.)
-        assertEquals(getHashCodeNotOverrides1.invoke(notOverrides1a),
-                getHashCodeNotOverrides2.invoke(notOverrides2a));
-        assertEquals(getHashCodeNotOverrides1.invoke(notOverrides1b),
-                getHashCodeNotOverrides2.invoke(notOverrides2b));
+        assertEquals(hashCode1a, getHashCodeNotOverrides2.invoke(notOverrides2a));
+        assertEquals(hashCode1b, getHashCodeNotOverrides2.invoke(notOverrides2b));
+    }
+
+    // Library classes should be shared between a team's robots; player
+    // classes shouldn't be.
+    @Test
+    public void testSharesLibraryClasses() throws Exception {
+        assertSame(
+                l1.loadClass("instrumented.java.util.ArrayList"),
+                l2.loadClass("instrumented.java.util.ArrayList")
+        );
+        assertSame(
+                l1.loadClass("instrumented.java.util.Random"),
+                l2.loadClass("instrumented.java.util.Random")
+        );
+        assertNotSame(
+                l1.loadClass("instrumentertest.Nothing"),
+                l2.loadClass("instrumentertest.Nothing")
+        );
+
+        final IndividualClassLoader otherTeam = new IndividualClassLoader("othertest", sharedCache);
+        assertNotSame(
+                l1.loadClass("instrumented.java.util.ArrayList"),
+                otherTeam.loadClass("instrumented.java.util.ArrayList")
+        );
+    }
+
+    // Each robot should have its own copy of the static state of shared
+    // library classes.
+    @Test
+    public void testLibraryStaticsArePerRobot() throws Exception {
+        final Class<?> statics1 = l1.loadClass("instrumentertest.UsesLibraryStatics");
+        final Object random = statics1.getMethod("random").invoke(null);
+        final Object shuffle = statics1.getMethod("shuffle").invoke(null);
+        assertNotEquals(random, statics1.getMethod("random").invoke(null));
+        assertNotEquals(shuffle, statics1.getMethod("shuffle").invoke(null));
+
+        ctx2.enter();
+        final Class<?> statics2 = l2.loadClass("instrumentertest.UsesLibraryStatics");
+        assertEquals(random, statics2.getMethod("random").invoke(null));
+        assertEquals(shuffle, statics2.getMethod("shuffle").invoke(null));
+    }
+
+    // Shared library classes should still count each robot's bytecodes
+    // separately.
+    @Test
+    public void testSharedClassesCountBytecodesPerRobot() throws Exception {
+        ctx1.setBytecodeLimit(10000);
+        ctx2.setBytecodeLimit(10000);
+
+        // The first bytecodes each robot runs start its first turn
+        final Class<?> list = l1.loadClass("instrumented.java.util.ArrayList");
+        list.newInstance();
+        final int before1 = ctx1.getBytecodeNum();
+        list.newInstance();
+        final int used1 = ctx1.getBytecodeNum() - before1;
+        assertTrue(used1 > 0);
+
+        ctx2.enter();
+        l2.loadClass("instrumented.java.util.ArrayList").newInstance();
+        final int before2 = ctx2.getBytecodeNum();
+        l2.loadClass("instrumented.java.util.ArrayList").newInstance();
+        assertEquals(used1, ctx2.getBytecodeNum() - before2);
+        assertEquals(used1, ctx1.getBytecodeNum() - before1);
+    }
+
+    // The first robot to use a shared class pays for its static
+    // initializer.
+    @Test
+    public void testSharedInitializerIsCharged() throws Exception {
+        ctx1.setBytecodeLimit(10000);
+        ctx2.setBytecodeLimit(10000);
+
+        final Method roundingMode1 = l1.loadClass("instrumentertest.UsesLibraryStatics").getMethod("roundingMode");
+        roundingMode1.invoke(null);
+        final int before1 = ctx1.getBytecodeNum();
+        assertTrue((Boolean) roundingMode1.invoke(null));
+        final int used1 = ctx1.getBytecodeNum() - before1;
+
+        ctx2.enter();
+        final Method roundingMode2 = l2.loadClass("instrumentertest.UsesLibraryStatics").getMethod("roundingMode");
+        roundingMode2.invoke(null);
+        assertTrue(before1 > used1);
+        assertEquals(used1, ctx2.getBytecodeNum());
+    }
+
+    @Test
+    public void testFailedSharedInitializerIsRetried() throws Exception {
+        // Kill a robot at each of its basic blocks in turn, until one gets
+        // to the end. Some die in the middle of RoundingMode's static
+        // initializer, which mustn't stop their teammates using it.
+        final Method roundingMode = l1.loadClass("instrumentertest.UsesLibraryStatics").getMethod("roundingMode");
+        boolean diedInInitializer = false;
+        for (int blocks = 1; ; blocks++) {
+            final int[] blocksLeft = {blocks};
+            final RobotContext dying = new RobotContext(() -> {}, () -> {
+                if (--blocksLeft[0] <= 0) {
+                    throw new RobotDeathException();
+                }
+            }, 0);
+            dying.setBytecodeLimit(Integer.MAX_VALUE);
+            dying.kill();
+            dying.enter();
+            try {
+                assertTrue((Boolean) roundingMode.invoke(null));
+                break;
+            } catch (InvocationTargetException e) {
+                assertTrue(e.getCause() instanceof RobotDeathException);
+                for (StackTraceElement frame : e.getCause().getStackTrace()) {
+                    diedInInitializer |= frame.getMethodName().equals(ClassReferenceUtil.SHARED_INITIALIZER);
+                }
+            }
+        }
+        assertTrue(diedInInitializer);
+
+        ctx2.enter();
+        assertTrue((Boolean) l2.loadClass("instrumentertest.UsesLibraryStatics").getMethod("roundingMode").invoke(null));
+    }
+
+    @Test
+    public void testRobotsCantCommunicateThroughLibraryClasses() throws Exception {
+        assertEquals(receiveAfter(false), receiveAfter(true));
+    }
+
+    /**
+     * @return what a robot sees in LibraryChannel after its teammate sends
+     *         it a bit
+     */
+    private static String receiveAfter(boolean bit) throws Exception {
+        final IndividualClassLoader.Cache cache = new IndividualClassLoader.Cache();
+        final RobotContext sender = new RobotContext(() -> {}, () -> {}, 0);
+        sender.setBytecodeLimit(Integer.MAX_VALUE);
+        final RobotContext receiver = new RobotContext(() -> {}, () -> {}, 0);
+        receiver.setBytecodeLimit(Integer.MAX_VALUE);
+
+        sender.enter();
+        new IndividualClassLoader("instrumentertest", cache).loadClass("instrumentertest.LibraryChannel")
+                .getMethod("send", boolean.class).invoke(null, bit);
+        receiver.enter();
+        return (String) new IndividualClassLoader("instrumentertest", cache).loadClass("instrumentertest.LibraryChannel")
+                .getMethod("receive").invoke(null);
     }
 
     @Test
@@ -0,0 +1,75 @@
+package battlecode.instrumenter;
+
+import battlecode.common.MapLocation;
+import battlecode.common.RobotController;
+import battlecode.common.RobotType;
+import battlecode.common.Team;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests for SandboxPool.
+ */
+public class SandboxPoolTest {
+
+    /**
+     * Wait for the pool to have a sandbox ready, and take it.
+     */
+    private static SandboxedRobotPlayer awaitSandbox(SandboxPool pool) throws InterruptedException {
+        SandboxedRobotPlayer sandbox;
+        while ((sandbox = pool.take()) == null) {
+            Thread.sleep(1);
+        }
+        return sandbox;
+    }
+
+    @Test(timeout=10000)
+    public void testPooledSandboxRunsPlayer() throws Exception {
+        RobotController rc = mock(RobotController.class);
+        when(rc.getTeam()).thenReturn(Team.A);
+        when(rc.getType()).thenReturn(RobotType.ARCHON);
+        when(rc.getID()).thenReturn(0);
+        when(rc.getLocation()).thenReturn(new MapLocation(0, 0));
+
+        SandboxPool pool = new SandboxPool("testplayerclock", new IndividualClassLoader.Cache(), 2);
+        pool.refill();
+
+        SandboxedRobotPlayer player = awaitSandbox(pool);
+        assertFalse(player.isBound());
+        player.bind(rc, 0);
+        player.setBytecodeLimit(10000);
+
+        player.step();
+        verify(rc).broadcastSignal(1);
+        player.step();
+        verify(rc).broadcastSignal(2);
+
+        // The pool fills back up
+        pool.refill();
+        SandboxedRobotPlayer other = awaitSandbox(pool);
+        assertFalse(other.isBound());
+
+        pool.close();
+        player.terminate();
+        other.terminate();
+        assertTrue(player.getTerminated());
+        assertTrue(other.getTerminated());
+    }
+
+    @Test(timeout=10000)
+    public void testCloseTerminatesUnboundSandboxes() throws Exception {
+        SandboxPool pool = new SandboxPool("testplayerclock", new IndividualClassLoader.Cache(), 3);
+        pool.refill();
+
+        SandboxedRobotPlayer taken = awaitSandbox(pool);
+        pool.close();
+
+        assertNull(pool.take());
+
+        // Sandboxes that were never bound can still be terminated
+        taken.terminate();
+        assertTrue(taken.getTerminated());
+    }
+}
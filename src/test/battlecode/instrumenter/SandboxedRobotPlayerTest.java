@@ -104,6 +104,39 @@ public class SandboxedRobotPlayerTest {
 
     }
 
+    @Test
+    public void testSkipStep() throws Exception {
+        SandboxedRobotPlayer stepped = new SandboxedRobotPlayer("testplayerloopforever", rc, 0, cache);
+        SandboxedRobotPlayer skipped = new SandboxedRobotPlayer("testplayerloopforever", rc, 0, cache);
+
+        // Neither has run yet, so a step would run its first basic block
+        assertFalse(skipped.skipStep());
+
+        stepped.setBytecodeLimit(100);
+        stepped.step();
+        skipped.setBytecodeLimit(100);
+        skipped.step();
+
+        // Both are now out of bytecodes; a zero-bytecode step can be skipped
+        stepped.setBytecodeLimit(0);
+        stepped.step();
+        assertTrue(skipped.skipStep());
+        assertEquals(stepped.getBytecodesUsed(), skipped.getBytecodesUsed());
+
+        stepped.setBytecodeLimit(100);
+        stepped.step();
+        skipped.setBytecodeLimit(100);
+        skipped.step();
+        assertEquals(stepped.getBytecodesUsed(), skipped.getBytecodesUsed());
+        assertFalse(skipped.getTerminated());
+
+        // A player that yielded would run on, so it can't be skipped
+        SandboxedRobotPlayer yielded = new SandboxedRobotPlayer("testplayerclock", rc, 0, cache);
+        yielded.setBytecodeLimit(10000);
+        yielded.step();
+        assertFalse(yielded.skipStep());
+    }
+
     @Test
     public void testBytecodeCountsCorrect() throws Exception {
         SandboxedRobotPlayer player = new SandboxedRobotPlayer("testplayerclock", rc, 0, cache);
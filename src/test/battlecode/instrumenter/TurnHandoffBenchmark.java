@@ -0,0 +1,98 @@
+package battlecode.instrumenter;
+
+/**
+ * Measures how long it takes to pass control from the engine thread to a
+ * player thread and back, with the monitor wait/notify scheme that
+ * SandboxedRobotPlayer used to use and with TurnHandoff.
+ *
+ * Not a unit test; run it by hand:
+ * <pre>
+ * java -cp build/classes:build/tests battlecode.instrumenter.TurnHandoffBenchmark [turns]
+ * </pre>
+ */
+public class TurnHandoffBenchmark {
+    public static void main(String[] args) throws InterruptedException {
+        final int turns = args.length > 0 ? Integer.parseInt(args[0]) : 200000;
+
+        // Warm up both, then measure each a few times.
+        monitorTurns(turns / 10);
+        handoffTurns(turns / 10);
+        for (int trial = 0; trial < 3; trial++) {
+            report("wait/notify", turns, monitorTurns(turns));
+            report("TurnHandoff", turns, handoffTurns(turns));
+        }
+    }
+
+    private static void report(String name, int turns, long nanos) {
+        System.out.printf("%-12s %8.2f us per turn (%d turns)%n",
+                name, nanos / 1000.0 / turns, turns);
+    }
+
+    /**
+     * @return the time taken for turns round trips with wait and notifyAll
+     *         on a shared monitor
+     */
+    private static long monitorTurns(int turns) throws InterruptedException {
+        final Object notifier = new Object();
+        final Thread player = new Thread(() -> {
+            try {
+                synchronized (notifier) {
+                    notifier.notifyAll();
+                    notifier.wait();
+                    for (int i = 0; i < turns; i++) {
+                        notifier.notifyAll();
+                        notifier.wait();
+                    }
+                    notifier.notifyAll();
+                }
+            } catch (InterruptedException e) {
+                throw new RuntimeException(e);
+            }
+        });
+
+        synchronized (notifier) {
+            player.start();
+            notifier.wait();
+        }
+        final long start = System.nanoTime();
+        for (int i = 0; i < turns; i++) {
+            synchronized (notifier) {
+                notifier.notifyAll();
+                notifier.wait();
+            }
+        }
+        final long elapsed = System.nanoTime() - start;
+        synchronized (notifier) {
+            notifier.notifyAll();
+        }
+        player.join();
+        return elapsed;
+    }
+
+    /**
+     * @return the time taken for turns round trips with a TurnHandoff
+     */
+    private static long handoffTurns(int turns) throws InterruptedException {
+        final TurnHandoff handoff = new TurnHandoff();
+        final Thread player = new Thread(() -> {
+            try {
+                for (int i = 0; i < turns; i++) {
+                    handoff.yieldToEngine();
+                }
+            } catch (InterruptedException e) {
+                throw new RuntimeException(e);
+            } finally {
+                handoff.finish();
+            }
+        });
+
+        handoff.start(player);
+        final long start = System.nanoTime();
+        for (int i = 0; i < turns; i++) {
+            handoff.runPlayer();
+        }
+        final long elapsed = System.nanoTime() - start;
+        player.join();
+        return elapsed;
+    }
+}
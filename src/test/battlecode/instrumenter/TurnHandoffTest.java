@@ -0,0 +1,69 @@
+package battlecode.instrumenter;
+
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+public class TurnHandoffTest {
+    @Test(timeout = 10000)
+    public void testAlternates() throws InterruptedException {
+        final TurnHandoff handoff = new TurnHandoff();
+        // Unsynchronized on purpose: the handoff must order the accesses.
+        final int[] counter = new int[1];
+        final AtomicBoolean overlapped = new AtomicBoolean();
+
+        final Thread player = new Thread(() -> {
+            try {
+                for (int i = 0; i < 10000; i++) {
+                    if (counter[0] != 2 * i) {
+                        overlapped.set(true);
+                    }
+                    counter[0]++;
+                    handoff.yieldToEngine();
+                }
+            } catch (InterruptedException e) {
+                overlapped.set(true);
+            } finally {
+                handoff.finish();
+            }
+        });
+
+        handoff.start(player);
+        for (int i = 0; i < 10000; i++) {
+            assertEquals(2 * i + 1, counter[0]);
+            counter[0]++;
+            handoff.runPlayer();
+        }
+        player.join();
+
+        assertEquals(20000, counter[0]);
+        assertFalse(overlapped.get());
+    }
+
+    @Test(timeout = 10000)
+    public void testInterruptedPlayer() throws InterruptedException {
+        final TurnHandoff handoff = new TurnHandoff();
+        final AtomicBoolean interrupted = new AtomicBoolean();
+
+        final Thread player = new Thread(() -> {
+            try {
+                handoff.yieldToEngine();
+                Thread.currentThread().interrupt();
+                handoff.yieldToEngine();
+            } catch (InterruptedException e) {
+                interrupted.set(true);
+            } finally {
+                handoff.finish();
+            }
+        });
+
+        handoff.start(player);
+        handoff.runPlayer();
+        player.join();
+
+        assertEquals(true, interrupted.get());
+    }
+}
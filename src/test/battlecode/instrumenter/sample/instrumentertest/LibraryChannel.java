@@ -0,0 +1,36 @@
+package instrumentertest;
+
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Tries to pass a bit from one robot to another through the library classes
+ * they share: through their static fields, and through enum constants.
+ */
+@SuppressWarnings("unused")
+public class LibraryChannel {
+    public static void send(boolean bit) {
+        if (bit) {
+            new Random();
+            Math.random();
+            RoundingMode.HALF_UP.hashCode();
+            shuffled();
+        }
+    }
+
+    public static String receive() {
+        return new Random().nextInt() + " " + Math.random() + " " + RoundingMode.HALF_UP.hashCode() + " " + shuffled();
+    }
+
+    private static List<Integer> shuffled() {
+        final List<Integer> list = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            list.add(i);
+        }
+        Collections.shuffle(list);
+        return list;
+    }
+}
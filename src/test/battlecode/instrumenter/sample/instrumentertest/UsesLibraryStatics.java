@@ -0,0 +1,34 @@
+package instrumentertest;
+
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Uses library classes with static state: Math.random() and
+ * Collections.shuffle() each keep a Random.
+ */
+@SuppressWarnings("unused")
+public class UsesLibraryStatics {
+    public static double random() {
+        return Math.random();
+    }
+
+    public static String shuffle() {
+        final List<Integer> list = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            list.add(i);
+        }
+        Collections.shuffle(list);
+        return list.toString();
+    }
+
+    public static int newList() {
+        return new ArrayList<>().size();
+    }
+
+    public static boolean roundingMode() {
+        return RoundingMode.values()[4] == RoundingMode.HALF_UP;
+    }
+}
@@ -0,0 +1,32 @@
+package battlecode.server;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for EngineMetrics.
+ */
+public class EngineMetricsTest {
+
+    @Test
+    public void testSpawnLatencyPercentiles() {
+        EngineMetrics metrics = new EngineMetrics();
+        assertEquals(0, metrics.getSpawnLatencyPercentile(50));
+
+        // Out of order, and more than the initial capacity
+        for (int i = 200; i >= 1; i--) {
+            metrics.recordSpawnLatency(i);
+        }
+
+        assertEquals(200, metrics.getSpawnCount());
+        assertEquals(1, metrics.getSpawnLatencyPercentile(0));
+        assertEquals(100, metrics.getSpawnLatencyPercentile(50));
+        assertEquals(180, metrics.getSpawnLatencyPercentile(90));
+        assertEquals(198, metrics.getSpawnLatencyPercentile(99));
+        assertEquals(200, metrics.getSpawnLatencyPercentile(100));
+
+        metrics.reset();
+        assertEquals(0, metrics.getSpawnCount());
+    }
+}
@@ -71,9 +71,18 @@ public abstract class SerializerFactoryTestBase {
             new long[] {1, 2, 3, 4, 5},
     };
 
+    private static final GameStats gameStats = new GameStats();
+    static {
+        gameStats.addRobotTypeCounts(new int[][] {
+                new int[] {1, 0, 2},
+                new int[] {0, 3, 0},
+        });
+    }
+
     // An array with a sample object from every type of thing we could ever want to serialize / deserialize.
     private static final ServerEvent[] serverEvents = new ServerEvent[] {
             new MatchHeader(gameMap, teamMemories, 0, 3),
+            new RoundDelta(new InternalSignal[0], 0x8000000000000001L),
             new RoundDelta(new InternalSignal[] {
                     new AttackSignal(57, new MapLocation(1,1)),
                     new BroadcastSignal(57, new Signal(new MapLocation(1, 1),
@@ -100,6 +109,7 @@ public abstract class SerializerFactoryTestBase {
             }),
             new MatchFooter(Team.A, teamMemories),
             new GameStats(),
+            gameStats,
             new InjectDelta(true, new InternalSignal[0]),
             new PauseEvent(),
             new ExtensibleMetadata(),
@@ -122,6 +132,7 @@ public abstract class SerializerFactoryTestBase {
             RunNotification.forever(),
             StartNotification.INSTANCE,
             new InjectNotification(new MovementOverrideSignal(0, new MapLocation(0, 0))),
+            new RewindNotification(40),
             new GameNotification(new GameInfo(
                     "teama",
                     url,
@@ -0,0 +1,76 @@
+package battlecode.util;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class OrderedIntMapTest {
+    @Test
+    public void testMatchesLinkedHashMap() {
+        final Random random = new Random(42);
+        final OrderedIntMap<String> map = new OrderedIntMap<>(2);
+        final Map<Integer, String> expected = new LinkedHashMap<>();
+
+        for (int step = 0; step < 20000; step++) {
+            final int key = random.nextInt(500) - 250;
+            switch (random.nextInt(4)) {
+                case 0:
+                case 1:
+                    assertEquals(expected.put(key, "v" + step),
+                            map.put(key, "v" + step));
+                    break;
+                case 2:
+                    assertEquals(expected.remove(key), map.remove(key));
+                    break;
+                default:
+                    if (random.nextInt(50) == 0) {
+                        map.compact();
+                        assertEquals(map.size(), map.end());
+                    }
+            }
+            assertEquals(expected.get(key), map.get(key));
+            assertEquals(expected.containsKey(key), map.containsKey(key));
+            assertEquals(expected.size(), map.size());
+        }
+
+        assertEquals(new ArrayList<>(expected.values()),
+                new ArrayList<>(map.values()));
+        assertArrayEquals(expected.values().toArray(), map.toArray());
+    }
+
+    @Test
+    public void testWalkWhileModifying() {
+        final OrderedIntMap<Integer> map = new OrderedIntMap<>(1);
+        for (int i = 0; i < 10; i++) {
+            map.put(i * 7, i);
+        }
+
+        map.compact();
+        final int end = map.end();
+        final List<Integer> visited = new ArrayList<>();
+        for (int i = 0; i < end; i++) {
+            final Integer value = map.getAt(i);
+            if (value == null) {
+                continue;
+            }
+            visited.add(value);
+            // Remove the next value and add a new one; neither is visited.
+            map.remove((value + 1) * 7);
+            map.put(1000 + value, 100 + value);
+        }
+
+        assertEquals(Arrays.asList(0, 2, 4, 6, 8), visited);
+
+        map.compact();
+        assertEquals(Arrays.asList(0, 2, 4, 6, 8, 100, 102, 104, 106, 108),
+                new ArrayList<>(map.values()));
+        assertEquals(Integer.valueOf(104), map.get(1004));
+    }
+}
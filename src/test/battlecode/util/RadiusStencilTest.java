@@ -0,0 +1,69 @@
+package battlecode.util;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class RadiusStencilTest {
+    @Test
+    public void testMatchesBruteForce() {
+        for (int radiusSquared = 0; radiusSquared <= 300; radiusSquared++) {
+            List<Integer> expected = new ArrayList<>();
+            for (int x = -20; x <= 20; x++) {
+                for (int y = -20; y <= 20; y++) {
+                    if (x * x + y * y <= radiusSquared) {
+                        expected.add(x * 1000 + y);
+                    }
+                }
+            }
+
+            assertEquals(expected, cells(0, 0, radiusSquared, -100, -100, 100, 100));
+            assertEquals(expected.size(), RadiusStencil.count(radiusSquared));
+        }
+    }
+
+    @Test
+    public void testClipping() {
+        List<Integer> expected = new ArrayList<>();
+        for (int x = 8; x <= 20; x++) {
+            for (int y = 10; y <= 11; y++) {
+                if ((x - 10) * (x - 10) + (y - 10) * (y - 10) <= 25) {
+                    expected.add(x * 1000 + y);
+                }
+            }
+        }
+        assertEquals(expected, cells(10, 10, 25, 8, 10, 20, 11));
+    }
+
+    @Test
+    public void testSkipsColumnsClippedAway() {
+        // The rectangle only overlaps the middle columns of the disc.
+        RadiusStencil.forEachColumnClipped(0, 0, 25, -10, 4, 10, 10,
+                (x, minY, maxY) -> {
+                    assertTrue(minY <= maxY);
+                    assertTrue(Math.abs(x) <= 3);
+                });
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testTooLarge() {
+        RadiusStencil.getHalfHeights(RadiusStencil.MAX_RADIUS_SQUARED + 1);
+    }
+
+    private static List<Integer> cells(int centerX, int centerY, int radiusSquared,
+                                       int minX, int minY, int maxX, int maxY) {
+        final List<Integer> cells = new ArrayList<>();
+        RadiusStencil.forEachColumnClipped(centerX, centerY, radiusSquared,
+                minX, minY, maxX, maxY,
+                (x, y0, y1) -> {
+                    for (int y = y0; y <= y1; y++) {
+                        cells.add(x * 1000 + y);
+                    }
+                });
+        return cells;
+    }
+}
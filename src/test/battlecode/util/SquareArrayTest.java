@@ -21,6 +21,28 @@ public class SquareArrayTest {
         }
     }
 
+    @Test
+    public void testDoubleCopiesAreIndependent() {
+        SquareArray.Double original = new SquareArray.Double(4, 3);
+        original.set(1, 1, 5);
+        SquareArray.Double copy = new SquareArray.Double(original);
+        SquareArray.Double copyOfCopy = new SquareArray.Double(copy);
+
+        original.set(1, 1, 6);
+        copy.set(2, 1, 7);
+        copyOfCopy.set(0, 2, 8);
+
+        assertEquals(6, original.get(1, 1), 1e-9);
+        assertEquals(0, original.get(2, 1), 1e-9);
+        assertEquals(0, original.get(0, 2), 1e-9);
+        assertEquals(5, copy.get(1, 1), 1e-9);
+        assertEquals(7, copy.get(2, 1), 1e-9);
+        assertEquals(0, copy.get(0, 2), 1e-9);
+        assertEquals(5, copyOfCopy.get(1, 1), 1e-9);
+        assertEquals(0, copyOfCopy.get(2, 1), 1e-9);
+        assertEquals(8, copyOfCopy.get(0, 2), 1e-9);
+    }
+
     @Test
     public void testBoolean() {
         SquareArray.Boolean arr = new SquareArray.Boolean(10, 7);
@@ -0,0 +1,35 @@
+package battlecode.world;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+public class CopyableRandomTest {
+    @Test
+    public void testSameValuesAsRandom() {
+        for (long seed : new long[] {0, 1, -7, 123456789L}) {
+            final Random expected = new Random(seed);
+            final CopyableRandom actual = new CopyableRandom(seed);
+            for (int i = 0; i < 1000; i++) {
+                assertEquals(expected.nextInt(i + 1), actual.nextInt(i + 1));
+                assertEquals(expected.nextLong(), actual.nextLong());
+                assertEquals(expected.nextDouble(), actual.nextDouble(), 0);
+            }
+        }
+    }
+
+    @Test
+    public void testCopiesContinueTheSequence() {
+        final CopyableRandom original = new CopyableRandom(42);
+        for (int i = 0; i < 10; i++) {
+            original.nextInt(100);
+        }
+
+        final CopyableRandom copy = new CopyableRandom(original);
+        for (int i = 0; i < 100; i++) {
+            assertEquals(original.nextInt(1000), copy.nextInt(1000));
+        }
+    }
+}
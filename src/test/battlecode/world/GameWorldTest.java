@@ -0,0 +1,200 @@
+package battlecode.world;
+
+import battlecode.common.GameConstants;
+import battlecode.common.MapLocation;
+import battlecode.common.RobotType;
+import battlecode.common.Team;
+import battlecode.world.control.NullControlProvider;
+import battlecode.world.control.TeamControlProvider;
+import battlecode.world.control.ZombieControlProvider;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+public class GameWorldTest {
+    @Test
+    public void testRestoreSnapshot() {
+        final TestMapGenerator mapGen = new TestMapGenerator(20, 20, 200)
+                .withSeed(5);
+        final Random random = new Random(11);
+        final boolean[][] taken = new boolean[20][20];
+        for (int i = 0; i < 60; i++) {
+            final int x = random.nextInt(20);
+            final int y = random.nextInt(20);
+            if (taken[x][y]) {
+                continue;
+            }
+            taken[x][y] = true;
+            if (i % 3 == 0) {
+                mapGen.withRobot(RobotType.SOLDIER,
+                        i % 2 == 0 ? Team.A : Team.B, x, y);
+            } else {
+                mapGen.withRobot(RobotType.STANDARDZOMBIE, Team.ZOMBIE, x, y);
+            }
+        }
+        for (int i = 0; i < 40; i++) {
+            mapGen.withRubble(random.nextInt(20), random.nextInt(20),
+                    GameConstants.RUBBLE_OBSTRUCTION_THRESH);
+            mapGen.withParts(random.nextInt(20), random.nextInt(20), 10);
+        }
+        final GameWorld world = zombieWorld(mapGen.getMap("map"));
+
+        for (int round = 0; round < 20; round++) {
+            world.runRound();
+        }
+        final GameWorld.Snapshot snapshot = world.snapshot();
+        assertEquals(19, snapshot.getRound());
+
+        final List<String> expected = new ArrayList<>();
+        for (int round = 0; round < 40; round++) {
+            world.runRound();
+            expected.add(describe(world));
+        }
+
+        // Restoring twice gives the same replay both times.
+        for (int attempt = 0; attempt < 2; attempt++) {
+            world.restore(snapshot);
+            assertEquals(snapshot.getStateHash(), world.getStateHash());
+            final List<String> actual = new ArrayList<>();
+            for (int round = 0; round < 40; round++) {
+                world.runRound();
+                actual.add(describe(world));
+            }
+            assertEquals(expected, actual);
+        }
+    }
+
+    // A world taken back to an earlier round should go on exactly as if it
+    // had never been interrupted.
+    @Test
+    public void testRewindMatchesUninterruptedRun() {
+        final TestMapGenerator mapGen = new TestMapGenerator(20, 20, 200)
+                .withSeed(17)
+                .withRobot(RobotType.ZOMBIEDEN, Team.ZOMBIE, 10, 10)
+                .withRobot(RobotType.ARCHON, Team.A, 1, 1)
+                .withRobot(RobotType.ARCHON, Team.B, 18, 18)
+                .withZombieSpawn(5, RobotType.STANDARDZOMBIE, 4)
+                .withZombieSpawn(25, RobotType.FASTZOMBIE, 20);
+        final Random random = new Random(13);
+        for (int i = 0; i < 30; i++) {
+            final int x = random.nextInt(20);
+            final int y = random.nextInt(20);
+            if (Math.abs(x - 10) > 1 || Math.abs(y - 10) > 1) {
+                mapGen.withRobot(RobotType.SOLDIER,
+                        i % 2 == 0 ? Team.A : Team.B, x, y);
+            }
+        }
+        for (int i = 0; i < 40; i++) {
+            mapGen.withRubble(random.nextInt(20), random.nextInt(20),
+                    GameConstants.RUBBLE_OBSTRUCTION_THRESH);
+            mapGen.withParts(random.nextInt(20), random.nextInt(20), 10);
+        }
+        final GameMap map = mapGen.getMap("map");
+
+        final GameWorld uninterrupted = zombieWorld(map, false);
+        final List<String> expected = new ArrayList<>();
+        for (int round = 0; round < 70; round++) {
+            uninterrupted.runRound();
+            expected.add(describe(uninterrupted));
+        }
+
+        final GameWorld world = zombieWorld(map, false);
+        final SnapshotHistory snapshots = new SnapshotHistory(world, 10);
+        for (int round = 0; round < 50; round++) {
+            world.runRound();
+            snapshots.roundEnded();
+        }
+        assertEquals(29, snapshots.nearest(33).getRound());
+        snapshots.rewind(33);
+        assertEquals(expected.get(33), describe(world));
+
+        for (int round = 34; round < 70; round++) {
+            world.runRound();
+            snapshots.roundEnded();
+            assertEquals(expected.get(round), describe(world));
+        }
+        assertEquals(uninterrupted.getGameStats().getRobotTypeCounts().size(),
+                world.getGameStats().getRobotTypeCounts().size());
+        for (int round = 0; round < 70; round++) {
+            assertArrayEquals(
+                    uninterrupted.getGameStats().getRobotTypeCounts().get(round),
+                    world.getGameStats().getRobotTypeCounts().get(round));
+        }
+    }
+
+    @Test
+    public void testMapLocationsWithinRadius() {
+        final TestMapGenerator mapGen = new TestMapGenerator(12, 9, 200);
+        final Random random = new Random(3);
+        for (int i = 0; i < 30; i++) {
+            mapGen.withParts(random.nextInt(12), random.nextInt(9), 10);
+        }
+        final GameMap map = mapGen.getMap("map");
+        final GameWorld world = zombieWorld(map);
+        final MapLocation origin = map.getOrigin();
+
+        for (MapLocation center : new MapLocation[]{
+                origin, origin.add(11, 8), origin.add(5, 4), origin.add(-3, 2)}) {
+            for (int radiusSquared = 0; radiusSquared <= 200; radiusSquared += 7) {
+                final List<MapLocation> expected = new ArrayList<>();
+                final List<MapLocation> expectedParts = new ArrayList<>();
+                for (int x = origin.x; x < origin.x + 12; x++) {
+                    for (int y = origin.y; y < origin.y + 9; y++) {
+                        final MapLocation loc = new MapLocation(x, y);
+                        if (loc.distanceSquaredTo(center) <= radiusSquared) {
+                            expected.add(loc);
+                            if (world.getParts(loc) > 0) {
+                                expectedParts.add(loc);
+                            }
+                        }
+                    }
+                }
+                assertEquals(expected, Arrays.asList(
+                        world.getAllMapLocationsWithinRadiusSq(center, radiusSquared)));
+                assertEquals(expectedParts, Arrays.asList(
+                        world.getPartLocationsWithinRadiusSq(center, radiusSquared)));
+            }
+        }
+    }
+
+    /**
+     * The zombie provider keeps its rng in the world, so a restored world
+     * replays exactly.
+     */
+    private static GameWorld zombieWorld(GameMap map) {
+        return zombieWorld(map, true);
+    }
+
+    private static GameWorld zombieWorld(GameMap map, boolean disableSpawning) {
+        final TeamControlProvider provider = new TeamControlProvider();
+        provider.registerControlProvider(Team.ZOMBIE,
+                new ZombieControlProvider(disableSpawning));
+        provider.registerControlProvider(Team.A, new NullControlProvider());
+        provider.registerControlProvider(Team.B, new NullControlProvider());
+        provider.registerControlProvider(Team.NEUTRAL, new NullControlProvider());
+        return new GameWorld(map, provider, "", "",
+                new long[2][GameConstants.TEAM_MEMORY_LENGTH]);
+    }
+
+    private static String describe(GameWorld world) {
+        final StringBuilder sb = new StringBuilder();
+        sb.append(world.getCurrentRound()).append(' ')
+                .append(world.getStateHash()).append(' ')
+                .append(world.resources(Team.A)).append(' ')
+                .append(world.resources(Team.B));
+        for (InternalRobot robot : world.allObjects()) {
+            sb.append(", ").append(robot.getID()).append(' ')
+                    .append(robot.getType()).append(' ')
+                    .append(robot.getLocation()).append(' ')
+                    .append(robot.getHealthLevel()).append(' ')
+                    .append(robot.getCoreDelay());
+        }
+        return sb.toString();
+    }
+}
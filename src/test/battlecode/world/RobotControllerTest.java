@@ -1,8 +1,18 @@
 package battlecode.world;
 
 import battlecode.common.*;
+import battlecode.world.signal.BytecodesUsedSignal;
+import battlecode.world.signal.ControlBitsSignal;
+import battlecode.world.signal.HealthChangeSignal;
+import battlecode.world.signal.InfectionSignal;
+import battlecode.world.signal.InternalSignal;
+import battlecode.world.signal.RobotDelaySignal;
 import org.junit.Test;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
 import static org.junit.Assert.*;
 
 /**
@@ -889,7 +899,63 @@ public class RobotControllerTest {
             }
         });
     }
-    
+
+    /**
+     * Broadcasts from robots near each other and far apart, delivered
+     * together, arrive in the order they were sent.
+     */
+    @Test
+    public void testBroadcastsFromManyRobots() throws GameActionException {
+        TestMapGenerator mapGen = new TestMapGenerator(30, 30, 1000);
+
+        GameMap map = mapGen.getMap("test");
+
+        TestGame game = new TestGame(map);
+
+        int oX = game.getOriginX();
+        int oY = game.getOriginY();
+        final int first = game.spawn(oX, oY, RobotType.SCOUT, Team.A);
+        final int second = game.spawn(oX, oY + 2, RobotType.SCOUT, Team.A);
+        final int listener = game.spawn(oX + 1, oY + 1, RobotType.SCOUT, Team.A);
+        final int far = game.spawn(oX + 25, oY + 25, RobotType.SCOUT, Team.B);
+        final int farListener = game.spawn(oX + 26, oY + 25, RobotType.SCOUT, Team.B);
+
+        game.round((id, rc) -> {
+            if (id == first) {
+                rc.broadcastMessageSignal(1, 0, 2);
+            } else if (id == second) {
+                rc.broadcastMessageSignal(2, 0, 2);
+            } else if (id == listener) {
+                // Sends after the others; no one reads until next round.
+                rc.broadcastMessageSignal(3, 0, 2);
+            } else if (id == far) {
+                rc.broadcastMessageSignal(4, 0, 2);
+            } else if (id == farListener) {
+                rc.broadcastMessageSignal(5, 0, 100);
+            }
+        });
+
+        game.round((id, rc) -> {
+            final Signal[] queue = rc.emptySignalQueue();
+            final int[] expected;
+            if (id == first) {
+                expected = new int[]{3};
+            } else if (id == second) {
+                expected = new int[]{3};
+            } else if (id == listener) {
+                expected = new int[]{1, 2};
+            } else if (id == far) {
+                expected = new int[]{5};
+            } else {
+                expected = new int[]{4};
+            }
+            assertEquals(expected.length, queue.length);
+            for (int i = 0; i < expected.length; i++) {
+                assertEquals(expected[i], queue[i].getMessage()[0]);
+            }
+        });
+    }
+
     /**
      * Test case to ensure issue #174 in battlecode-server is fixed
      * (test fails before exploit is fixed)
@@ -1069,6 +1135,367 @@ public class RobotControllerTest {
         });
     }
 
+    /**
+     * Makes sure senseNearbyRobots and senseHostileRobots return robots in
+     * turn order, no matter where on the map they are.
+     */
+    @Test
+    public void testSensingOrder() throws GameActionException {
+        TestMapGenerator mapGen = new TestMapGenerator(30, 30, 100);
+        GameMap map = mapGen.getMap("test");
+        TestGame game = new TestGame(map);
+        int oX = game.getOriginX();
+        int oY = game.getOriginY();
+        final Team[] teams = {Team.A, Team.B, Team.ZOMBIE, Team.NEUTRAL};
+        final Random random = new Random(1234);
+        for (int i = 0; i < 80; i++) {
+            int x = oX + random.nextInt(30);
+            int y = oY + random.nextInt(30);
+            if (game.getWorld().getRobot(new MapLocation(x, y)) == null) {
+                game.spawn(x, y, RobotType.SOLDIER, teams[i % teams.length]);
+            }
+        }
+        final int[] radii = {-1, 0, 2, 10, 24, 100};
+
+        game.round((id, rc) -> {
+            InternalRobot me = game.getBot(id);
+            for (int radiusSquared : radii) {
+                List<Integer> nearby = new ArrayList<>();
+                List<Integer> hostile = new ArrayList<>();
+                for (InternalRobot o : game.getWorld().allObjects()) {
+                    if (o == me || !me.canSense(o.getLocation())) {
+                        continue;
+                    }
+                    if (radiusSquared >= 0 && o.getLocation()
+                            .distanceSquaredTo(rc.getLocation()) > radiusSquared) {
+                        continue;
+                    }
+                    nearby.add(o.getID());
+                    if (o.getTeam() == rc.getTeam().opponent()
+                            || o.getTeam() == Team.ZOMBIE) {
+                        hostile.add(o.getID());
+                    }
+                }
+
+                List<Integer> sensed = new ArrayList<>();
+                for (RobotInfo info : rc.senseNearbyRobots(radiusSquared)) {
+                    sensed.add(info.ID);
+                }
+                assertEquals(nearby, sensed);
+
+                sensed.clear();
+                for (RobotInfo info : rc.senseHostileRobots(rc.getLocation(),
+                        radiusSquared)) {
+                    sensed.add(info.ID);
+                }
+                assertEquals(hostile, sensed);
+            }
+        });
+    }
+
+    /**
+     * Makes sure robots keep their own state when robots spawned before
+     * them die, and that dead robots can still be inspected.
+     */
+    @Test
+    public void testStateAfterDeath() throws GameActionException {
+        TestMapGenerator mapGen = new TestMapGenerator(10, 10, 100);
+        GameMap map = mapGen.getMap("test");
+        TestGame game = new TestGame(map);
+        int oX = game.getOriginX();
+        int oY = game.getOriginY();
+        final int[] soldiers = new int[4];
+        for (int i = 0; i < soldiers.length; i++) {
+            soldiers[i] = game.spawn(oX + 2 * i, oY, RobotType.SOLDIER, Team.A);
+            game.getBot(soldiers[i]).takeDamage(i + 1);
+            game.getBot(soldiers[i]).addCoreDelay(i + 1);
+        }
+        final InternalRobot dead = game.getBot(soldiers[1]);
+        dead.takeDamage(dead.getHealthLevel());
+        game.waitRounds(1);
+
+        assertFalse(dead.exists());
+        assertEquals(0, dead.getHealthLevel(), EPSILON);
+        assertEquals(2, dead.getCoreDelay(), EPSILON);
+        for (int i : new int[]{0, 2, 3}) {
+            InternalRobot bot = game.getBot(soldiers[i]);
+            assertEquals(RobotType.SOLDIER.maxHealth - (i + 1),
+                    bot.getHealthLevel(), EPSILON);
+            assertEquals(1, bot.getRoundsAlive());
+        }
+
+        // Signals still line up with the robots that are left.
+        game.getWorld().processBeginningOfRound();
+        for (InternalSignal s : game.getWorld().getAllSignals(true)) {
+            if (s instanceof RobotDelaySignal) {
+                assertArrayEquals(new int[]{soldiers[0], soldiers[2],
+                        soldiers[3]}, ((RobotDelaySignal) s).getRobotIDs());
+            }
+        }
+    }
+
+    /**
+     * Makes sure per-robot signals only cover robots that changed, unless
+     * full robot state is requested.
+     */
+    @Test
+    public void testChangedRobotSignals() throws GameActionException {
+        TestMapGenerator mapGen = new TestMapGenerator(10, 10, 100);
+        GameMap map = mapGen.getMap("test");
+        TestGame game = new TestGame(map);
+        GameWorld world = game.getWorld();
+        int oX = game.getOriginX();
+        int oY = game.getOriginY();
+        final int soldierA = game.spawn(oX, oY, RobotType.SOLDIER, Team.A);
+        final int soldierB = game.spawn(oX, oY + 2, RobotType.SOLDIER, Team.A);
+        final int soldierC = game.spawn(oX, oY + 4, RobotType.SOLDIER, Team.A);
+        game.waitRounds(3);
+        world.getAllSignals(true);
+
+        game.round((id, rc) -> {
+            if (id == soldierA) {
+                rc.move(Direction.EAST);
+            }
+        });
+        game.getBot(soldierC).takeDamage(1);
+
+        // Each round starts with a fresh list of signals.
+        int from = 0;
+        InternalSignal[] signals = world.getAllSignals(true);
+        assertArrayEquals(new int[]{soldierA}, signalOfType(signals, from,
+                RobotDelaySignal.class).getRobotIDs());
+        assertArrayEquals(new int[]{soldierC}, signalOfType(signals, from,
+                HealthChangeSignal.class).getRobotIDs());
+        assertNull(signalOfType(signals, from, InfectionSignal.class));
+        assertNull(signalOfType(signals, from, BytecodesUsedSignal.class));
+
+        world.setFullRobotState(true);
+        from = signals.length;
+        signals = world.getAllSignals(true);
+        final int[] all = {soldierA, soldierB, soldierC};
+        assertArrayEquals(all, signalOfType(signals, from,
+                RobotDelaySignal.class).getRobotIDs());
+        assertArrayEquals(all, signalOfType(signals, from,
+                InfectionSignal.class).getRobotIDs());
+        assertArrayEquals(all, signalOfType(signals, from,
+                BytecodesUsedSignal.class).getRobotIDs());
+        assertNull(signalOfType(signals, from, HealthChangeSignal.class));
+    }
+
+    /**
+     * Makes sure the health of robots in their first rounds is reported
+     * every time signals are collected, as on injection, changed or not.
+     */
+    @Test
+    public void testNewRobotHealthSignals() throws GameActionException {
+        TestMapGenerator mapGen = new TestMapGenerator(10, 10, 100);
+        GameMap map = mapGen.getMap("test");
+        TestGame game = new TestGame(map);
+        GameWorld world = game.getWorld();
+        int oX = game.getOriginX();
+        int oY = game.getOriginY();
+        final int soldier = game.spawn(oX, oY, RobotType.SOLDIER, Team.A);
+        game.waitRounds(2);
+        assertEquals(2, game.getBot(soldier).getRoundsAlive());
+
+        for (int i = 0; i < 2; i++) {
+            InternalSignal[] signals = world.inject(new ControlBitsSignal(soldier, i));
+            assertArrayEquals(new int[]{soldier}, signalOfType(signals, 0,
+                    HealthChangeSignal.class).getRobotIDs());
+        }
+
+        game.waitRounds(1);
+        InternalSignal[] signals = world.inject(new ControlBitsSignal(soldier, 2));
+        assertNull(signalOfType(signals, 0, HealthChangeSignal.class));
+    }
+
+    private static <T extends InternalSignal> T signalOfType(
+            InternalSignal[] signals, int from, Class<T> type) {
+        for (int i = from; i < signals.length; i++) {
+            if (type.isInstance(signals[i])) {
+                return type.cast(signals[i]);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Makes sure sensed RobotInfos are shared while a robot is unchanged
+     * and refreshed as soon as it changes.
+     */
+    @Test
+    public void testRobotInfoCache() throws GameActionException {
+        TestMapGenerator mapGen = new TestMapGenerator(10, 10, 100);
+        GameMap map = mapGen.getMap("test");
+        TestGame game = new TestGame(map);
+        int oX = game.getOriginX();
+        int oY = game.getOriginY();
+        final int soldier = game.spawn(oX, oY, RobotType.SOLDIER, Team.A);
+        final InternalRobot bot = game.getBot(soldier);
+
+        RobotInfo info = bot.getRobotInfo();
+        assertSame(info, bot.getRobotInfo());
+
+        bot.takeDamage(1);
+        RobotInfo damaged = bot.getRobotInfo();
+        assertNotSame(info, damaged);
+        assertEquals(RobotType.SOLDIER.maxHealth - 1, damaged.health, EPSILON);
+        assertSame(damaged, bot.getRobotInfo());
+
+        game.round((id, rc) -> {
+            if (id == soldier) {
+                rc.move(Direction.EAST);
+            }
+        });
+        RobotInfo moved = bot.getRobotInfo();
+        assertEquals(new MapLocation(oX + 1, oY), moved.location);
+        assertEquals(bot.getCoreDelay(), moved.coreDelay, EPSILON);
+        assertEquals(bot.getWeaponDelay(), moved.weaponDelay, EPSILON);
+    }
+
+    @Test
+    public void testTiebreakAggregates() throws GameActionException {
+        TestMapGenerator mapGen = new TestMapGenerator(10, 10, 100);
+        GameMap map = mapGen.getMap("test");
+        TestGame game = new TestGame(map);
+        GameWorld world = game.getWorld();
+        int oX = game.getOriginX();
+        int oY = game.getOriginY();
+        final int archonA1 = game.spawn(oX, oY, RobotType.ARCHON, Team.A);
+        final int archonA2 = game.spawn(oX + 2, oY, RobotType.ARCHON, Team.A);
+        final int archonB = game.spawn(oX + 4, oY, RobotType.ARCHON, Team.B);
+        game.spawn(oX + 6, oY, RobotType.SOLDIER, Team.A);
+
+        assertEquals(2 * RobotType.ARCHON.partCost
+                + RobotType.SOLDIER.partCost, world.getPartValue(Team.A));
+        assertEquals(RobotType.ARCHON.partCost, world.getPartValue(Team.B));
+        assertEquals(Math.max(archonA1, archonA2),
+                world.getHighestArchonID(Team.A));
+        assertEquals(archonB, world.getHighestArchonID(Team.B));
+        assertEquals(0, world.getHighestArchonID(Team.ZOMBIE));
+
+        game.getBot(archonA1).takeDamage(10);
+        assertEquals(2 * RobotType.ARCHON.maxHealth - 10,
+                world.getArchonHealth(Team.A), EPSILON);
+
+        final InternalRobot dead = game.getBot(archonA2);
+        dead.takeDamage(dead.getHealthLevel());
+        game.waitRounds(1);
+
+        assertEquals(RobotType.ARCHON.partCost + RobotType.SOLDIER.partCost,
+                world.getPartValue(Team.A));
+        assertEquals(archonA1, world.getHighestArchonID(Team.A));
+        assertEquals(RobotType.ARCHON.maxHealth - 10,
+                world.getArchonHealth(Team.A), EPSILON);
+    }
+
+    @Test
+    public void testRobotTypeCountSeries() throws GameActionException {
+        TestMapGenerator mapGen = new TestMapGenerator(10, 10, 100);
+        GameMap map = mapGen.getMap("test");
+        TestGame game = new TestGame(map);
+        int oX = game.getOriginX();
+        int oY = game.getOriginY();
+        game.spawn(oX, oY, RobotType.ARCHON, Team.A);
+        final int soldier = game.spawn(oX + 2, oY, RobotType.SOLDIER, Team.A);
+        game.spawn(oX + 4, oY, RobotType.SOLDIER, Team.B);
+        game.waitRounds(1);
+
+        final InternalRobot dead = game.getBot(soldier);
+        dead.takeDamage(dead.getHealthLevel());
+        game.waitRounds(1);
+
+        final List<int[][]> series =
+                game.getWorld().getGameStats().getRobotTypeCounts();
+        assertEquals(2, series.size());
+        final int a = Team.A.ordinal();
+        final int b = Team.B.ordinal();
+        final int soldiers = RobotType.SOLDIER.ordinal();
+        assertEquals(1, series.get(0)[a][RobotType.ARCHON.ordinal()]);
+        assertEquals(1, series.get(0)[a][soldiers]);
+        assertEquals(1, series.get(0)[b][soldiers]);
+        assertEquals(0, series.get(1)[a][soldiers]);
+        assertEquals(1, series.get(1)[b][soldiers]);
+        assertArrayEquals(series.get(1)[a],
+                game.getWorld().getRobotTypeCounts()[a]);
+    }
+
+    @Test
+    public void testStateHash() throws GameActionException {
+        TestMapGenerator mapGen = new TestMapGenerator(10, 10, 100)
+                .withRubble(1, 0, 50)
+                .withParts(0, 1, 30);
+        GameMap map = mapGen.getMap("test");
+        TestGame game = new TestGame(map);
+        GameWorld world = game.getWorld();
+        int oX = game.getOriginX();
+        int oY = game.getOriginY();
+        final int archon = game.spawn(oX, oY, RobotType.ARCHON, Team.A);
+        final int soldier = game.spawn(oX + 3, oY, RobotType.SOLDIER, Team.B);
+        assertEquals(recomputeStateHash(world), world.getStateHash());
+
+        final long before = world.getStateHash();
+        game.round((id, rc) -> {
+            if (id == archon) {
+                rc.clearRubble(Direction.EAST);
+                rc.setTeamMemory(0, 12345L);
+            } else if (id == soldier) {
+                rc.attackLocation(new MapLocation(oX, oY));
+            }
+        });
+        assertNotEquals(before, world.getStateHash());
+        assertEquals(recomputeStateHash(world), world.getStateHash());
+
+        game.waitRounds(5);
+        assertEquals(recomputeStateHash(world), world.getStateHash());
+        game.round((id, rc) -> {
+            if (id == archon) {
+                rc.move(Direction.SOUTH);
+            }
+        });
+        assertEquals(0, world.getParts(new MapLocation(oX, oY + 1)), EPSILON);
+        assertEquals(recomputeStateHash(world), world.getStateHash());
+
+        final InternalRobot dead = game.getBot(soldier);
+        dead.takeDamage(dead.getHealthLevel());
+        game.waitRounds(1);
+        assertEquals(recomputeStateHash(world), world.getStateHash());
+    }
+
+    /**
+     * Compute the state hash from scratch, the way GameWorld keeps it.
+     */
+    private static long recomputeStateHash(GameWorld world) {
+        final GameMap map = world.getGameMap();
+        long hash = 0;
+        for (InternalRobot robot : world.allObjects()) {
+            hash += StateHash.robotTerm(robot);
+        }
+        for (int x = 0; x < map.getWidth(); x++) {
+            for (int y = 0; y < map.getHeight(); y++) {
+                final MapLocation loc = new MapLocation(
+                        map.getOrigin().x + x, map.getOrigin().y + y);
+                final long key = (long) y * map.getWidth() + x;
+                hash += StateHash.term(StateHash.RUBBLE, key,
+                        world.getRubble(loc));
+                hash += StateHash.term(StateHash.PARTS, key,
+                        world.getParts(loc));
+            }
+        }
+        for (Team team : Team.values()) {
+            hash += StateHash.term(StateHash.RESOURCES, team.ordinal(),
+                    world.resources(team));
+        }
+        final long[][] memory = world.getTeamMemory();
+        for (int t = 0; t < memory.length; t++) {
+            for (int i = 0; i < memory[t].length; i++) {
+                hash += StateHash.term(StateHash.MEMORY,
+                        (long) t * memory[0].length + i, memory[t][i]);
+            }
+        }
+        return hash;
+    }
+
     /**
      * Makes sure a turret can't attack things within 5 units.
      */
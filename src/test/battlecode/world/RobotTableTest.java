@@ -0,0 +1,73 @@
+package battlecode.world;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+public class RobotTableTest {
+    /**
+     * @return a robot that keeps track of its slot like InternalRobot does
+     */
+    private static InternalRobot robotIn(RobotTable table, int id) {
+        final InternalRobot robot = mock(InternalRobot.class);
+        final int[] slot = new int[1];
+        doAnswer(invocation -> {
+            slot[0] = (Integer) invocation.getArguments()[0];
+            return null;
+        }).when(robot).setSlot(anyInt());
+        when(robot.getSlot()).thenAnswer(invocation -> slot[0]);
+        robot.setSlot(table.add(robot, id));
+        return robot;
+    }
+
+    @Test
+    public void testRemoveKeepsTurnOrder() {
+        final RobotTable table = new RobotTable(2);
+        final InternalRobot[] robots = new InternalRobot[6];
+        for (int i = 0; i < robots.length; i++) {
+            robots[i] = robotIn(table, 100 + i);
+            table.healthLevel[i] = i;
+            table.markDirty(i, RobotTable.DIRTY_HEALTH);
+        }
+
+        final RobotTable detached = table.remove(1);
+        table.remove(3);
+        table.remove(4);
+        assertEquals(1.0, detached.healthLevel[0], 0);
+        // Rows don't move until the table is compacted.
+        assertEquals(5, robots[5].getSlot());
+
+        // Until it's compacted, the table still reports the survivors in
+        // turn order.
+        assertArrayEquals(new int[] {0, 2, 5}, table.dirtySlots(RobotTable.DIRTY_HEALTH));
+
+        table.compact();
+        assertEquals(3, table.size());
+        final int[] survivors = {0, 2, 5};
+        for (int i = 0; i < survivors.length; i++) {
+            assertSame(robots[survivors[i]], table.get(i));
+            assertEquals(i, robots[survivors[i]].getSlot());
+            assertEquals(100 + survivors[i], table.ids[i]);
+            assertEquals(survivors[i], table.healthLevel[i], 0);
+        }
+        assertArrayEquals(new int[] {0, 1, 2}, table.dirtySlots(RobotTable.DIRTY_HEALTH));
+
+        // New robots go after the survivors.
+        final InternalRobot late = robotIn(table, 200);
+        assertEquals(3, late.getSlot());
+    }
+
+    @Test
+    public void testRemovingLastRowsShrinksTable() {
+        final RobotTable table = new RobotTable(4);
+        final InternalRobot first = robotIn(table, 1);
+        robotIn(table, 2);
+        robotIn(table, 3);
+
+        table.remove(1);
+        table.remove(2);
+        assertEquals(1, table.size());
+        assertSame(first, table.get(0));
+    }
+}
@@ -0,0 +1,54 @@
+package battlecode.world;
+
+import battlecode.common.MapLocation;
+import battlecode.common.Signal;
+import battlecode.common.Team;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class SignalQueueTest {
+    private static Signal signal(int i) {
+        return new Signal(new MapLocation(0, 0), i, Team.A);
+    }
+
+    @Test
+    public void testOrder() {
+        SignalQueue queue = new SignalQueue(5);
+        assertNull(queue.poll());
+        assertEquals(0, queue.drain().length);
+
+        for (int i = 0; i < 3; i++) {
+            queue.add(signal(i));
+        }
+        assertEquals(0, queue.poll().getID());
+        queue.add(signal(3));
+        queue.add(signal(4));
+        queue.add(signal(5));
+        assertEquals(5, queue.size());
+
+        Signal[] all = queue.drain();
+        assertEquals(5, all.length);
+        for (int i = 0; i < all.length; i++) {
+            assertEquals(i + 1, all[i].getID());
+        }
+        assertEquals(0, queue.size());
+        assertNull(queue.poll());
+    }
+
+    @Test
+    public void testEviction() {
+        SignalQueue queue = new SignalQueue(4);
+        for (int i = 0; i < 11; i++) {
+            queue.add(signal(i));
+        }
+        assertEquals(4, queue.size());
+        assertEquals(7, queue.poll().getID());
+
+        Signal[] rest = queue.drain();
+        assertEquals(3, rest.length);
+        assertEquals(8, rest[0].getID());
+        assertEquals(10, rest[2].getID());
+    }
+}
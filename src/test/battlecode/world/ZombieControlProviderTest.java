@@ -10,6 +10,11 @@ import battlecode.world.control.ZombieControlProvider;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 
@@ -248,4 +253,109 @@ public class ZombieControlProviderTest {
         //Should never attack guard (slightly further)
         assertEquals(guard.getHealthLevel(),RobotType.GUARD.maxHealth,1e-9);
     }
+
+    @Test
+    public void testNearestPlayerControlled() {
+        final GameMap map = new TestMapGenerator(40, 40, 100)
+                .withSeed(42)
+                .getMap("map");
+        final GameWorld world = new GameWorld(map, zombieControlProvider, "", "", new long[2][GameConstants.TEAM_MEMORY_LENGTH]);
+        final MapLocation origin = world.getGameMap().getOrigin();
+        final Team[] teams = {Team.A, Team.B, Team.ZOMBIE, Team.NEUTRAL};
+
+        // Spread robots out on a coarse grid so there are lots of ties.
+        int i = 0;
+        for (int x = 0; x < 40; x += 3) {
+            for (int y = 0; y < 40; y += 5) {
+                world.spawnRobot(RobotType.SOLDIER, origin.add(x, y),
+                        teams[i++ % teams.length], 0, Optional.empty());
+            }
+        }
+
+        // The world's rng is only used for tiebreaks here, so we can replay it.
+        final Random rand = new Random(map.getSeed());
+        for (int x = -3; x < 43; x++) {
+            for (int y = -3; y < 43; y++) {
+                final MapLocation loc = origin.add(x, y);
+
+                final List<InternalRobot> closest = new ArrayList<>();
+                int distSq = Integer.MAX_VALUE;
+                for (InternalRobot robot : world.allObjects()) {
+                    if (!robot.getTeam().isPlayer()) continue;
+                    int newDistSq = robot.getLocation().distanceSquaredTo(loc);
+                    if (newDistSq < distSq) {
+                        closest.clear();
+                        distSq = newDistSq;
+                    }
+                    if (newDistSq == distSq) {
+                        closest.add(robot);
+                    }
+                }
+                final InternalRobot expected = closest.get(rand.nextInt(closest.size()));
+
+                assertEquals(expected.getID(), world.getNearestPlayerControlled(loc).ID);
+            }
+        }
+    }
+
+    @Test
+    public void testParallelMatchesSequential() {
+        final TestMapGenerator mapGen = new TestMapGenerator(30, 30, 200)
+                .withSeed(99);
+        final Random random = new Random(7);
+        final boolean[][] taken = new boolean[30][30];
+        for (int i = 0; i < 120; i++) {
+            final int x = random.nextInt(30);
+            final int y = random.nextInt(30);
+            if (taken[x][y]) {
+                continue;
+            }
+            taken[x][y] = true;
+            if (i % 3 == 0) {
+                mapGen.withRobot(RobotType.SOLDIER, i % 2 == 0 ? Team.A : Team.B, x, y);
+            } else {
+                mapGen.withRobot(i % 5 == 0 ? RobotType.FASTZOMBIE
+                        : RobotType.STANDARDZOMBIE, Team.ZOMBIE, x, y);
+            }
+        }
+        for (int i = 0; i < 60; i++) {
+            mapGen.withRubble(random.nextInt(30), random.nextInt(30),
+                    GameConstants.RUBBLE_OBSTRUCTION_THRESH);
+        }
+        final GameMap map = mapGen.getMap("map");
+
+        final GameWorld sequential = zombieWorld(map,
+                ZombieControlProvider.DecisionMode.SEQUENTIAL);
+        final GameWorld parallel = zombieWorld(map,
+                ZombieControlProvider.DecisionMode.PARALLEL);
+
+        for (int round = 0; round < 100; round++) {
+            sequential.runRound();
+            parallel.runRound();
+            assertEquals(describe(sequential), describe(parallel));
+            assertEquals(sequential.getStateHash(),
+                    parallel.getStateHash());
+        }
+    }
+
+    private static GameWorld zombieWorld(GameMap map,
+            ZombieControlProvider.DecisionMode mode) {
+        final TeamControlProvider provider = new TeamControlProvider();
+        provider.registerControlProvider(Team.ZOMBIE,
+                new ZombieControlProvider(true, mode));
+        provider.registerControlProvider(Team.A, new NullControlProvider());
+        provider.registerControlProvider(Team.B, new NullControlProvider());
+        provider.registerControlProvider(Team.NEUTRAL, new NullControlProvider());
+        return new GameWorld(map, provider, "", "",
+                new long[2][GameConstants.TEAM_MEMORY_LENGTH]);
+    }
+
+    private static List<String> describe(GameWorld world) {
+        final List<String> robots = new ArrayList<>();
+        for (InternalRobot robot : world.allObjects()) {
+            robots.add(robot.getID() + " " + robot.getType() + " "
+                    + robot.getLocation() + " " + robot.getHealthLevel());
+        }
+        return robots;
+    }
 }